@@ -0,0 +1,231 @@
+package com.sysml.platform.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sysml.platform.common.ErrorCode;
+import com.sysml.platform.common.ErrorCodeRegistry;
+import graphql.ErrorClassification;
+import graphql.GraphqlErrorBuilder;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RQ-API-BATCH-007: GraphQL批量请求
+ * POST /graphql的请求体为JSON数组时，数组中每个操作在有界线程池上并行执行，按原顺序返回结果数组。
+ * 每个操作单独经过WebGraphQlHandler，拦截器、Instrumentation（指标、成本限制）逐操作生效；
+ * 结果在完成的工作线程上立即序列化，慢操作只占用自己的槽位，超时后以错误结果返回。
+ * 同时在途的操作数有上限（parallelism × 4），批量请求整体预占槽位，不足时以503拒绝，
+ * 操作只在线程池上执行，不会落到请求线程。执行中的操作无法中止，超时的操作继续占用槽位直到完成。
+ * 失败以ErrorCode错误载荷返回，异常细节只写入日志。
+ * 单个操作的请求体原样转交StreamingRequestHandler
+ */
+@Component
+public class BatchRequestHandler {
+
+    /** 操作在批量请求中的下标，幂等键按它区分同一请求中的各个操作 */
+    static final String BATCH_INDEX_ATTRIBUTE = BatchRequestHandler.class.getName() + ".index";
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRequestHandler.class);
+
+    private static final TypeReference<List<Map<String, Object>>> OPERATIONS_TYPE = new TypeReference<>() {};
+
+    private final WebGraphQlHandler graphQlHandler;
+    private final StreamingRequestHandler singleRequestHandler;
+    private final ObjectMapper objectMapper;
+    private final int maxOperations;
+    private final Duration operationTimeout;
+    private final Semaphore slots;
+    private final ThreadPoolExecutor executor;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final IdGenerator idGenerator = new JdkIdGenerator();
+
+    public BatchRequestHandler(
+            WebGraphQlHandler graphQlHandler,
+            StreamingRequestHandler singleRequestHandler,
+            ObjectMapper objectMapper,
+            ErrorCodeRegistry errorCodeRegistry,
+            @Value("${performance.batch.max-operations:20}") int maxOperations,
+            @Value("${performance.batch.parallelism:8}") int parallelism,
+            @Value("${performance.query.timeout:5000}") long operationTimeoutMillis) {
+        this.graphQlHandler = graphQlHandler;
+        this.singleRequestHandler = singleRequestHandler;
+        this.objectMapper = objectMapper;
+        this.errorCodeRegistry = errorCodeRegistry;
+        this.maxOperations = maxOperations;
+        this.operationTimeout = Duration.ofMillis(operationTimeoutMillis);
+        // 在途操作数由slots限制，队列长度不会超过它
+        this.slots = new Semaphore(parallelism * 4);
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public ServerResponse handleRequest(ServerRequest request) throws ServletException {
+        byte[] body;
+        try {
+            body = StreamUtils.copyToByteArray(request.servletRequest().getInputStream());
+        } catch (IOException e) {
+            return ServerResponse.badRequest().body(
+                errorResult(ErrorCode.BAD_REQUEST, "Unreadable GraphQL request body"));
+        }
+        if (!isBatch(body)) {
+            return singleRequestHandler.handleRequest(ServerRequest.from(request).body(body).build());
+        }
+
+        List<Map<String, Object>> operations;
+        try {
+            operations = objectMapper.readValue(body, OPERATIONS_TYPE);
+        } catch (IOException e) {
+            return ServerResponse.badRequest().body(
+                errorResult(ErrorCode.BAD_REQUEST, "Invalid GraphQL batch request body"));
+        }
+        if (operations.isEmpty() || operations.size() > maxOperations) {
+            return ServerResponse.badRequest().body(errorResult(
+                ErrorCode.BAD_REQUEST, "GraphQL batch must contain 1.." + maxOperations + " operations"));
+        }
+        if (!slots.tryAcquire(operations.size())) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResult(
+                ErrorCode.SERVICE_UNAVAILABLE, "Too many batched GraphQL operations in flight"));
+        }
+
+        // 超时从预占槽位时算起，包含在线程池队列中等待的时间
+        long deadline = System.nanoTime() + operationTimeout.toNanos();
+        List<CompletableFuture<byte[]>> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            Map<String, Object> operation = operations.get(i);
+            Map<String, Object> attributes = new HashMap<>(request.attributes());
+            attributes.put(BATCH_INDEX_ATTRIBUTE, i);
+            results.add(CompletableFuture.supplyAsync(() -> execute(request, attributes, operation), executor)
+                .whenComplete((result, failure) -> slots.release()));
+        }
+
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).build((servletRequest, servletResponse) -> {
+            OutputStream out = servletResponse.getOutputStream();
+            out.write('[');
+            for (int i = 0; i < results.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                // 各结果已在工作线程上序列化完成，这里只按顺序写出
+                out.write(await(results.get(i), deadline));
+                out.flush();
+            }
+            out.write(']');
+            out.flush();
+            return null;
+        });
+    }
+
+    /**
+     * 请求体首个非空白字符为'['即视为批量请求
+     */
+    static boolean isBatch(byte[] body) {
+        for (byte b : body) {
+            if (!Character.isWhitespace(b)) {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    private byte[] execute(ServerRequest request, Map<String, Object> attributes, Map<String, Object> operation) {
+        Map<String, Object> result;
+        try {
+            WebGraphQlRequest graphQlRequest = new WebGraphQlRequest(
+                request.uri(), request.headers().asHttpHeaders(), initCookies(request),
+                attributes, operation, idGenerator.generateId().toString(),
+                request.servletRequest().getLocale());
+            WebGraphQlResponse response = graphQlHandler.handleRequest(graphQlRequest).block();
+            result = response != null
+                ? response.toMap()
+                : errorResult(ErrorCode.INTERNAL_ERROR, "Empty GraphQL response");
+        } catch (RuntimeException e) {
+            logger.warn("Batched GraphQL operation failed", e);
+            result = errorResult(ErrorCode.INTERNAL_ERROR, "GraphQL operation failed");
+        }
+        return serialize(result);
+    }
+
+    /**
+     * 等待操作结果直到批量请求的截止时间；超时只影响响应，操作继续执行并占用槽位直到完成
+     */
+    private byte[] await(CompletableFuture<byte[]> result, long deadline) {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return serialize(errorResult(ErrorCode.OPERATION_TIMEOUT,
+                "GraphQL operation timed out after " + operationTimeout.toMillis() + "ms"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return serialize(errorResult(ErrorCode.INTERNAL_ERROR, "GraphQL operation failed"));
+        } catch (ExecutionException e) {
+            logger.warn("Batched GraphQL operation failed", e.getCause());
+            return serialize(errorResult(ErrorCode.INTERNAL_ERROR, "GraphQL operation failed"));
+        }
+    }
+
+    private byte[] serialize(Map<String, Object> result) {
+        try {
+            return objectMapper.writeValueAsBytes(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> errorResult(ErrorCode code, String message) {
+        return Map.of("errors", List.of(GraphqlErrorBuilder.newError()
+            .message(message)
+            .errorType(ErrorClassification.errorClassification(code.getCode()))
+            .extensions(Map.of(
+                "code", code.getCode(),
+                "messageKey", errorCodeRegistry.getMessageKey(code.getCode())))
+            .build()
+            .toSpecification()));
+    }
+
+    private static MultiValueMap<String, HttpCookie> initCookies(ServerRequest request) {
+        MultiValueMap<String, HttpCookie> target = new LinkedMultiValueMap<>();
+        request.cookies().values().forEach(list -> list.forEach(cookie ->
+            target.add(cookie.getName(), new HttpCookie(cookie.getName(), cookie.getValue()))));
+        return target;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "graphql-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sysml.platform.api;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.HexFormat;
+
+/**
+ * RQ-NFR-PERF-006: 客户端标识
+ * 已认证请求取认证主体名，匿名请求取远端地址（经代理时由server.forward-headers-strategy还原），
+ * 写入请求属性CLIENT_ATTRIBUTE，随WebGraphQlRequest的属性传给拦截器与Instrumentation。
+ * 不信任客户端自报的请求头：轮换请求头不会得到新的身份，匿名客户端也不会共用同一身份。
+ * 指标标签与日志中只出现SHA-256指纹前缀
+ */
+@Component
+public class ClientIdentityFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ATTRIBUTE = ClientIdentityFilter.class.getName() + ".client";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        request.setAttribute(CLIENT_ATTRIBUTE, clientId(request.getUserPrincipal(), request.getRemoteAddr()));
+        chain.doFilter(request, response);
+    }
+
+    static String clientId(Principal principal, String remoteAddress) {
+        if (principal != null && principal.getName() != null) {
+            return "user-" + fingerprint(principal.getName());
+        }
+        return "addr-" + fingerprint(remoteAddress != null ? remoteAddress : "");
+    }
+
+    private static String fingerprint(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.sysml.platform.api;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
 import graphql.scalars.ExtendedScalars;
 import graphql.schema.idl.RuntimeWiring;
 
@@ -24,4 +32,31 @@ public class GraphQLConfig {
             .scalar(ExtendedScalars.DateTime)
             .scalar(ExtendedScalars.Json);
     }
-}
\ No newline at end of file
+
+    /**
+     * RQ-API-INCREMENTAL-006: Accept: multipart/mixed的请求走增量交付
+     * 优先于Spring GraphQL默认路由匹配，其余请求不受影响
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RouterFunction<ServerResponse> incrementalDeliveryRouterFunction(
+            IncrementalDeliveryHandler handler,
+            @Value("${spring.graphql.path:/graphql}") String path) {
+        return RouterFunctions.route(
+            RequestPredicates.POST(path).and(IncrementalDeliveryHandler.acceptsMultipart()),
+            handler::handleRequest);
+    }
+
+    /**
+     * RQ-API-BATCH-007: JSON请求先经批量处理器，数组请求体并行执行，单个操作转交StreamingRequestHandler
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public RouterFunction<ServerResponse> batchRequestRouterFunction(
+            BatchRequestHandler handler,
+            @Value("${spring.graphql.path:/graphql}") String path) {
+        return RouterFunctions.route(
+            RequestPredicates.POST(path).and(RequestPredicates.contentType(MediaType.APPLICATION_JSON)),
+            handler::handleRequest);
+    }
+}
@@ -0,0 +1,212 @@
+package com.sysml.platform.api;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.DataFetcherResult;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RQ-NFR-METRICS-002: GraphQL解析器级指标
+ * 记录操作级与字段级（父类型+字段）延迟直方图、调用次数和结果大小，经/actuator/prometheus暴露
+ *
+ * 标签基数有界：字段标签受schema约束；客户端提供的操作名超过上限后归入"other"
+ * 字段级计量器按(父类型, 字段)缓存，字段解析的热路径上不构造builder、不查找注册表；
+ * 字段级延迟直方图的桶限定在100µs~10s，只计时非平凡解析器，控制时间序列数量
+ */
+@Component
+public class GraphQLMetricsInstrumentation extends SimplePerformantInstrumentation {
+
+    static final String OPERATION_LATENCY = "graphql.operation.latency";
+    static final String FIELD_LATENCY = "graphql.field.latency";
+    static final String FIELD_INVOCATIONS = "graphql.field.invocations";
+    static final String FIELD_RESULT_SIZE = "graphql.field.result.size";
+
+    private static final String ANONYMOUS = "anonymous";
+    private static final String OTHER = "other";
+    private static final Duration FIELD_LATENCY_MIN = Duration.ofNanos(100_000);
+    private static final Duration FIELD_LATENCY_MAX = Duration.ofSeconds(10);
+
+    private final MeterRegistry registry;
+    private final int maxOperationNames;
+    private final Set<String> operationNames = ConcurrentHashMap.newKeySet();
+    private final Map<String, FieldMeters> fieldMeters = new ConcurrentHashMap<>();
+
+    public GraphQLMetricsInstrumentation(
+            MeterRegistry registry,
+            @Value("${performance.metrics.max-operation-names:100}") int maxOperationNames) {
+        this.registry = registry;
+        this.maxOperationNames = maxOperationNames;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new MetricsState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(
+            InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        long start = System.nanoTime();
+        MetricsState metricsState = (MetricsState) state;
+        return SimpleInstrumentationContext.whenCompleted((result, t) -> {
+            boolean failed = t != null || (result != null && !result.getErrors().isEmpty());
+            Timer.builder(OPERATION_LATENCY)
+                .description("GraphQL操作执行延迟")
+                .tag("operation", metricsState.operationName)
+                .tag("type", metricsState.operationType)
+                .tag("outcome", failed ? "error" : "success")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        OperationDefinition definition = parameters.getExecutionContext().getOperationDefinition();
+        MetricsState metricsState = (MetricsState) state;
+        metricsState.operationName = boundedOperationName(definition.getName());
+        metricsState.operationType = definition.getOperation().name().toLowerCase();
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(
+            InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        DataFetchingEnvironment env = parameters.getEnvironment();
+        GraphQLType fieldType = GraphQLTypeUtil.unwrapNonNull(env.getFieldType());
+        boolean timed = !parameters.isTrivialDataFetcher();
+        boolean sized = timed || GraphQLTypeUtil.isList(fieldType);
+        if (!sized) {
+            // 普通属性读取不计时，避免给每个标量字段增加开销
+            return SimpleInstrumentationContext.noOp();
+        }
+
+        String parentType = env.getParentType() instanceof GraphQLNamedType
+            ? ((GraphQLNamedType) env.getParentType()).getName() : OTHER;
+        FieldMeters meters = fieldMeters(parentType, env.getFieldDefinition().getName());
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((result, t) -> {
+            if (timed) {
+                meters.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                (t != null ? meters.failures : meters.successes).increment();
+            }
+            if (t == null) {
+                meters.resultSize.record(sizeOf(result));
+            }
+        });
+    }
+
+    private FieldMeters fieldMeters(String parentType, String field) {
+        String key = parentType + '.' + field;
+        FieldMeters meters = fieldMeters.get(key);
+        return meters != null ? meters : fieldMeters.computeIfAbsent(key, k -> new FieldMeters(registry, parentType, field));
+    }
+
+    /**
+     * 操作名由客户端提供，超过上限后统一归入"other"以限制时间序列数量
+     */
+    private String boundedOperationName(String name) {
+        if (name == null || name.isEmpty()) {
+            return ANONYMOUS;
+        }
+        if (operationNames.contains(name)) {
+            return name;
+        }
+        if (operationNames.size() < maxOperationNames && operationNames.add(name)) {
+            return name;
+        }
+        return operationNames.contains(name) ? name : OTHER;
+    }
+
+    static int sizeOf(Object result) {
+        if (result instanceof DataFetcherResult) {
+            result = ((DataFetcherResult<?>) result).getData();
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+
+    /**
+     * 单个字段的计量器，首次解析该字段时注册
+     */
+    private static final class FieldMeters {
+        private final Timer latency;
+        private final Counter successes;
+        private final Counter failures;
+        private final DistributionSummary resultSize;
+
+        private FieldMeters(MeterRegistry registry, String parentType, String field) {
+            this.latency = Timer.builder(FIELD_LATENCY)
+                .description("GraphQL字段解析延迟")
+                .tag("parentType", parentType)
+                .tag("field", field)
+                // 直方图桶限定在解析器的常见范围内，控制每个字段的时间序列数量
+                .publishPercentileHistogram()
+                .minimumExpectedValue(FIELD_LATENCY_MIN)
+                .maximumExpectedValue(FIELD_LATENCY_MAX)
+                .register(registry);
+            this.successes = invocations(registry, parentType, field, "success");
+            this.failures = invocations(registry, parentType, field, "error");
+            this.resultSize = DistributionSummary.builder(FIELD_RESULT_SIZE)
+                .description("GraphQL字段结果大小（元素个数）")
+                .tag("parentType", parentType)
+                .tag("field", field)
+                .register(registry);
+        }
+
+        private static Counter invocations(MeterRegistry registry, String parentType, String field, String outcome) {
+            return Counter.builder(FIELD_INVOCATIONS)
+                .description("GraphQL字段解析器调用次数")
+                .tag("parentType", parentType)
+                .tag("field", field)
+                .tag("outcome", outcome)
+                .register(registry);
+        }
+    }
+
+    /**
+     * 单次执行的状态：操作名与类型在文档解析后的beginExecuteOperation时才可知
+     */
+    private static class MetricsState implements InstrumentationState {
+        private volatile String operationName = ANONYMOUS;
+        private volatile String operationType = "unknown";
+    }
+}
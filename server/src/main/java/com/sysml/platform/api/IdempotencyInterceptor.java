@@ -0,0 +1,189 @@
+package com.sysml.platform.api;
+
+import com.sysml.platform.common.ErrorCode;
+import com.sysml.platform.common.ErrorCodeRegistry;
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.language.OperationDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RQ-API-DEDUP-009: 变更请求幂等键
+ * 携带Idempotency-Key请求头的Mutation，其结果按（客户端, 键）缓存ttl毫秒：
+ * 重试直接返回首次结果（响应头Idempotent-Replayed: true），首次仍在执行时等待其完成，不会重复执行。
+ * 同一键用于不同的文档/变量时返回IDEMPOTENCY_KEY_REUSED。
+ * 只缓存变更确实执行了的结果（有data且没有请求级错误）：限流、校验失败与执行异常不缓存，
+ * 等待中的重试随之自行执行。客户端取ClientIdentityFilter的标识；批量请求中各操作按下标各自成键。
+ *
+ * 拦截器顺序：幂等重放最先，其次读请求合并，最后查询成本预算，重放与合并的请求不再计入预算
+ */
+@Component
+@Order(1)
+public class IdempotencyInterceptor implements WebGraphQlInterceptor {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String IDEMPOTENCY_REPLAYS = "graphql.idempotency.replays";
+
+    private final OperationTypeResolver operationTypes;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MeterRegistry registry;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyInterceptor(
+            OperationTypeResolver operationTypes,
+            ErrorCodeRegistry errorCodeRegistry,
+            MeterRegistry registry,
+            @Value("${performance.idempotency.ttl:600000}") long ttlMillis,
+            @Value("${performance.idempotency.max-entries:10000}") int maxEntries) {
+        this.operationTypes = operationTypes;
+        this.errorCodeRegistry = errorCodeRegistry;
+        this.registry = registry;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String key = request.getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+        if (key == null || key.isBlank()
+                || operationTypes.resolve(request.getDocument(), request.getOperationName())
+                    != OperationDefinition.Operation.MUTATION) {
+            return chain.next(request);
+        }
+
+        // 幂等键按客户端隔离，不同客户端使用相同键互不影响；批量请求中的操作按下标区分
+        String scope = Objects.toString(request.getAttributes().get(ClientIdentityFilter.CLIENT_ATTRIBUTE), "")
+            + '\n' + key
+            + '\n' + Objects.toString(request.getAttributes().get(BatchRequestHandler.BATCH_INDEX_ATTRIBUTE), "");
+        List<Object> fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(fingerprint, now + ttlMillis);
+        Entry entry = entries.compute(scope, (k, existing) ->
+            existing == null || existing.isExpired(now) ? fresh : existing);
+
+        if (entry != fresh) {
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return Mono.just(response(request, keyReusedResult(key)));
+            }
+            // 首次执行的结果不可缓存时以null完成，重试自行执行
+            return Mono.fromFuture(entry.result, true).map(result -> {
+                registry.counter(IDEMPOTENCY_REPLAYS).increment();
+                WebGraphQlResponse replay = response(request, result);
+                replay.getResponseHeaders().set(REPLAYED_HEADER, "true");
+                return replay;
+            }).switchIfEmpty(Mono.defer(() -> intercept(request, chain)));
+        }
+
+        evictIfNeeded(now);
+        return chain.next(request)
+            .doOnNext(response -> {
+                ExecutionResult result = response.getExecutionResult();
+                if (mutationRan(result)) {
+                    fresh.result.complete(result);
+                } else {
+                    entries.remove(scope, fresh);
+                    fresh.result.complete(null);
+                }
+            })
+            .doOnError(error -> {
+                entries.remove(scope, fresh);
+                fresh.result.completeExceptionally(error);
+            })
+            .doOnCancel(() -> {
+                entries.remove(scope, fresh);
+                fresh.result.cancel(false);
+            });
+    }
+
+    /**
+     * 有data且错误都带路径（字段级）时变更已执行；无路径的错误来自解析、校验或执行前的拒绝
+     */
+    private static boolean mutationRan(ExecutionResult result) {
+        if (!result.isDataPresent() || result.getData() == null) {
+            return false;
+        }
+        for (GraphQLError error : result.getErrors()) {
+            if (error.getPath() == null || error.getPath().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按值比较文档、操作名与变量（变量Map与键顺序无关）
+     */
+    private static List<Object> fingerprint(WebGraphQlRequest request) {
+        return Arrays.asList(request.getDocument(), request.getOperationName(), request.getVariables());
+    }
+
+    private ExecutionResult keyReusedResult(String key) {
+        ErrorCode code = ErrorCode.IDEMPOTENCY_KEY_REUSED;
+        return ExecutionResultImpl.newExecutionResult()
+            .addError(GraphqlErrorBuilder.newError()
+                .message("Idempotency-Key '" + key + "' was already used for a different request")
+                .errorType(ErrorClassification.errorClassification(code.getCode()))
+                .extensions(Map.of(
+                    "code", code.getCode(),
+                    "messageKey", errorCodeRegistry.getMessageKey(code.getCode())))
+                .build())
+            .build();
+    }
+
+    private static WebGraphQlResponse response(WebGraphQlRequest request, ExecutionResult result) {
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(), result));
+    }
+
+    /**
+     * 超过容量时先清理过期条目，仍超出则淘汰已完成的条目
+     */
+    private void evictIfNeeded(long now) {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (iterator.next().result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final List<Object> fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+
+        private Entry(List<Object> fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
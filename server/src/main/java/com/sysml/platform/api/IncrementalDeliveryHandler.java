@@ -0,0 +1,269 @@
+package com.sysml.platform.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.language.Field;
+import graphql.language.Selection;
+import jakarta.servlet.ServletException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.function.RequestPredicate;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * RQ-API-INCREMENTAL-006: GraphQL增量交付（@defer/@stream）
+ * 客户端以Accept: multipart/mixed请求/graphql时，先返回去掉延迟片段、流式列表截断后的首个载荷，
+ * 再依次以multipart分块推送延迟片段数据与流式列表的后续条目（deferSpec=20220824格式）。
+ * 首个载荷文档先执行并立即写出：延迟片段不解析，流式列表在解析器返回后即截断（StreamWindowInstrumentation），
+ * 首屏不等待延迟内容。随后补充文档只执行一次，所有后续分块都从这一次的结果中拆出，彼此来自同一数据快照。
+ * 两次执行都经由WebGraphQlHandler（拦截器、上下文与指标照常生效）；
+ * 首次执行的错误随首个载荷返回，补充执行的错误随最后一个分块返回
+ */
+@Component
+public class IncrementalDeliveryHandler {
+
+    static final MediaType MULTIPART_MIXED = new MediaType("multipart", "mixed",
+        Map.of("boundary", "\"-\"", "deferSpec", "20220824"));
+
+    private static final byte[] PART_HEADER =
+        "\r\n---\r\nContent-Type: application/json; charset=utf-8\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TERMINATOR = "\r\n-----\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final WebGraphQlHandler graphQlHandler;
+    private final ObjectMapper objectMapper;
+    private final int streamChunkSize;
+    private final IdGenerator idGenerator = new JdkIdGenerator();
+
+    public IncrementalDeliveryHandler(
+            WebGraphQlHandler graphQlHandler,
+            ObjectMapper objectMapper,
+            @Value("${performance.incremental.stream-chunk-size:50}") int streamChunkSize) {
+        this.graphQlHandler = graphQlHandler;
+        this.objectMapper = objectMapper;
+        this.streamChunkSize = Math.max(1, streamChunkSize);
+    }
+
+    /**
+     * 仅当Accept中显式列出multipart/mixed时走增量交付（通配符不算）
+     */
+    static RequestPredicate acceptsMultipart() {
+        return request -> request.headers().accept().stream()
+            .anyMatch(type -> "multipart".equals(type.getType()) && "mixed".equals(type.getSubtype()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ServerResponse handleRequest(ServerRequest request) throws ServletException {
+        Map<String, Object> body;
+        try {
+            body = request.body(Map.class);
+        } catch (IOException e) {
+            throw new ServletException("Failed to read GraphQL request body", e);
+        }
+        String query = (String) body.get("query");
+        String operationName = (String) body.get("operationName");
+        Map<String, Object> variables = (Map<String, Object>) body.get("variables");
+        IncrementalDocumentPlanner plan = IncrementalDocumentPlanner.plan(query, operationName, variables);
+
+        return ServerResponse.ok().contentType(MULTIPART_MIXED).build((servletRequest, servletResponse) -> {
+            OutputStream out = servletResponse.getOutputStream();
+            if (plan == null || !plan.isIncremental()) {
+                // 无延迟内容或非Query操作：单个分块
+                Map<String, Object> result = execute(request, body,
+                    plan != null ? plan.getCompleteDocument() : query, false);
+                result.put("hasNext", false);
+                writePart(out, result);
+            } else {
+                deliver(request, body, plan, out);
+            }
+            out.write(TERMINATOR);
+            out.flush();
+            return null;
+        });
+    }
+
+    private void deliver(ServerRequest request, Map<String, Object> body, IncrementalDocumentPlanner plan,
+                         OutputStream out) throws IOException {
+        Map<String, Object> initial = execute(request, body, plan.getInitialDocument(), true);
+        boolean hasNext = initial.get("data") != null;
+        initial.put("hasNext", hasNext);
+        writePart(out, initial);
+        if (!hasNext) {
+            return;
+        }
+
+        // 首个载荷已刷出，再解析延迟片段与流式列表的后续条目
+        Map<String, Object> remainder = execute(request, body, plan.getRemainderDocument(), false);
+        Object data = remainder.get("data");
+
+        for (IncrementalDocumentPlanner.DeferredFragment fragment : plan.getDeferredFragments()) {
+            Set<String> keys = fragment.getResponseKeys();
+            List<Map<String, Object>> incremental = new ArrayList<>();
+            collect(data, fragment.getAncestors(), 0, new ArrayList<>(), (object, path) -> {
+                Map<String, Object> fragmentData = new LinkedHashMap<>();
+                for (String key : keys) {
+                    if (object.containsKey(key)) {
+                        fragmentData.put(key, object.get(key));
+                    }
+                }
+                if (!fragmentData.isEmpty()) {
+                    incremental.add(entry("data", fragmentData, path, fragment.getLabel()));
+                }
+            });
+            writeIncremental(out, incremental);
+        }
+
+        for (IncrementalDocumentPlanner.StreamedField field : plan.getStreamedFields()) {
+            List<List<Object>> paths = new ArrayList<>();
+            List<List<?>> lists = new ArrayList<>();
+            collect(data, field.getAncestors(), 0, new ArrayList<>(), (object, path) -> {
+                if (object.get(field.getResponseKey()) instanceof List) {
+                    List<Object> listPath = new ArrayList<>(path);
+                    listPath.add(field.getResponseKey());
+                    paths.add(listPath);
+                    lists.add((List<?>) object.get(field.getResponseKey()));
+                }
+            });
+            // 按streamChunkSize分块推送首个载荷之后的条目，同一偏移处各列表的条目放在同一分块
+            for (int offset = field.getInitialCount(); ; offset += streamChunkSize) {
+                List<Map<String, Object>> incremental = new ArrayList<>();
+                for (int i = 0; i < lists.size(); i++) {
+                    List<?> items = lists.get(i);
+                    if (offset < items.size()) {
+                        List<Object> itemPath = new ArrayList<>(paths.get(i));
+                        itemPath.add(offset);
+                        incremental.add(entry("items",
+                            new ArrayList<>(items.subList(offset, Math.min(offset + streamChunkSize, items.size()))),
+                            itemPath, field.getLabel()));
+                    }
+                }
+                if (incremental.isEmpty()) {
+                    break;
+                }
+                writeIncremental(out, incremental);
+            }
+        }
+
+        Map<String, Object> last = new LinkedHashMap<>();
+        if (remainder.containsKey("errors")) {
+            last.put("errors", remainder.get("errors"));
+        }
+        last.put("hasNext", false);
+        writePart(out, last);
+    }
+
+    /**
+     * 带@stream(initialCount)的字段只保留首个载荷中的条目
+     */
+    private static Object truncate(Object value, Field field) {
+        int initialCount = IncrementalDocumentPlanner.initialCount(field);
+        if (initialCount < 0 || !(value instanceof List)) {
+            return value;
+        }
+        List<?> items = (List<?>) value;
+        return items.subList(0, Math.min(initialCount, items.size()));
+    }
+
+    /**
+     * 沿祖先路径定位目标对象（遇到列表逐项展开），回调对象及其响应路径
+     */
+    @SuppressWarnings("unchecked")
+    private static void collect(Object value, List<Selection<?>> ancestors, int index, List<Object> path,
+                                BiConsumer<Map<String, Object>, List<Object>> sink) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof List) {
+            List<?> items = (List<?>) value;
+            for (int i = 0; i < items.size(); i++) {
+                List<Object> itemPath = new ArrayList<>(path);
+                itemPath.add(i);
+                collect(items.get(i), ancestors, index, itemPath, sink);
+            }
+            return;
+        }
+        if (!(value instanceof Map)) {
+            return;
+        }
+        Map<String, Object> object = (Map<String, Object>) value;
+        if (index == ancestors.size()) {
+            sink.accept(object, path);
+            return;
+        }
+        Selection<?> step = ancestors.get(index);
+        if (step instanceof Field) {
+            String key = IncrementalDocumentPlanner.responseKey((Field) step);
+            List<Object> childPath = new ArrayList<>(path);
+            childPath.add(key);
+            // 祖先上的流式列表只沿首个载荷中的条目定位，后续条目随流式分块完整返回
+            collect(truncate(object.get(key), (Field) step), ancestors, index + 1, childPath, sink);
+        } else {
+            // 内联片段不增加路径层级
+            collect(object, ancestors, index + 1, path, sink);
+        }
+    }
+
+    private void writeIncremental(OutputStream out, List<Map<String, Object>> incremental) throws IOException {
+        if (incremental.isEmpty()) {
+            return;
+        }
+        Map<String, Object> part = new LinkedHashMap<>();
+        part.put("incremental", incremental);
+        part.put("hasNext", true);
+        writePart(out, part);
+    }
+
+    private static Map<String, Object> entry(String kind, Object payload, List<Object> path, String label) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put(kind, payload);
+        entry.put("path", path);
+        if (label != null) {
+            entry.put("label", label);
+        }
+        return entry;
+    }
+
+    private void writePart(OutputStream out, Map<String, Object> payload) throws IOException {
+        out.write(PART_HEADER);
+        out.write(objectMapper.writeValueAsBytes(payload));
+        // 每个分块立即刷出，客户端可先渲染首屏
+        out.flush();
+    }
+
+    private Map<String, Object> execute(ServerRequest request, Map<String, Object> body, String document,
+                                        boolean initialPhase) {
+        Map<String, Object> executionBody = new LinkedHashMap<>(body);
+        executionBody.put("query", document);
+        WebGraphQlRequest graphQlRequest = new WebGraphQlRequest(
+            request.uri(), request.headers().asHttpHeaders(), initCookies(request),
+            request.attributes(), executionBody, idGenerator.generateId().toString(),
+            request.servletRequest().getLocale());
+        if (initialPhase) {
+            graphQlRequest.configureExecutionInput((input, builder) -> builder.graphQLContext(
+                Map.of(StreamWindowInstrumentation.INITIAL_PHASE_CONTEXT_KEY, true)).build());
+        }
+        WebGraphQlResponse response = graphQlHandler.handleRequest(graphQlRequest).block();
+        return response != null ? new LinkedHashMap<>(response.toMap()) : new LinkedHashMap<>();
+    }
+
+    private static MultiValueMap<String, HttpCookie> initCookies(ServerRequest request) {
+        MultiValueMap<String, HttpCookie> target = new LinkedMultiValueMap<>();
+        request.cookies().values().forEach(list -> list.forEach(cookie ->
+            target.add(cookie.getName(), new HttpCookie(cookie.getName(), cookie.getValue()))));
+        return target;
+    }
+}
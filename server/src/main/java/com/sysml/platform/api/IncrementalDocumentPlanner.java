@@ -0,0 +1,416 @@
+package com.sysml.platform.api;
+
+import graphql.language.*;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+
+import java.util.*;
+
+/**
+ * RQ-API-INCREMENTAL-006: @defer/@stream文档规划
+ * 增量交付分两次执行：首个载荷文档（去掉延迟片段、流式字段带initialCount），
+ * 以及首个载荷写出后的补充文档（各延迟片段与各流式字段连同其祖先路径，合并为一个操作）。
+ * 规划结果同时描述如何把补充执行的结果拆分为各分块：
+ * 祖先上的@stream保持截断，延迟片段只补齐首个载荷中的条目，后续流式条目本身即完整返回。
+ *
+ * 限制：仅Query操作拆分；延迟片段/流式列表内部嵌套的@defer/@stream随外层一次性返回
+ */
+final class IncrementalDocumentPlanner {
+
+    static final String DEFER = "defer";
+    static final String STREAM = "stream";
+
+    private static final String IF = "if";
+    private static final String LABEL = "label";
+    private static final String INITIAL_COUNT = "initialCount";
+
+    private final OperationDefinition operation;
+    private final Map<String, Object> variables;
+    private final List<DeferredFragment> deferredFragments = new ArrayList<>();
+    private final List<StreamedField> streamedFields = new ArrayList<>();
+    private final SelectionSet initialSelectionSet;
+
+    private IncrementalDocumentPlanner(OperationDefinition operation, Map<String, Object> variables) {
+        this.operation = operation;
+        this.variables = variables;
+        this.initialSelectionSet = walk(operation.getSelectionSet(), List.of());
+    }
+
+    /**
+     * 规划增量执行；文档无法解析或无法确定操作时返回null，由常规管线报告错误
+     */
+    static IncrementalDocumentPlanner plan(String query, String operationName, Map<String, Object> variables) {
+        if (query == null) {
+            return null;
+        }
+        Document document;
+        try {
+            document = Parser.parse(query);
+        } catch (InvalidSyntaxException e) {
+            return null;
+        }
+        List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+        OperationDefinition operation = null;
+        if (operationName != null) {
+            for (OperationDefinition candidate : operations) {
+                if (operationName.equals(candidate.getName())) {
+                    operation = candidate;
+                }
+            }
+        } else if (operations.size() == 1) {
+            operation = operations.get(0);
+        }
+        if (operation == null) {
+            return null;
+        }
+        Map<String, FragmentDefinition> fragments = new HashMap<>();
+        for (FragmentDefinition fragment : document.getDefinitionsOfType(FragmentDefinition.class)) {
+            fragments.put(fragment.getName(), fragment);
+        }
+        SelectionSet selectionSet = inlineFragments(operation.getSelectionSet(), fragments);
+        OperationDefinition normalized = operation.transform(b -> b.selectionSet(selectionSet));
+        return new IncrementalDocumentPlanner(normalized,
+            variables != null ? variables : Collections.emptyMap());
+    }
+
+    /**
+     * 是否需要增量交付（Query且包含生效的@defer/@stream）
+     */
+    boolean isIncremental() {
+        return operation.getOperation() == OperationDefinition.Operation.QUERY
+            && (!deferredFragments.isEmpty() || !streamedFields.isEmpty());
+    }
+
+    /**
+     * 去掉全部@defer/@stream后的完整文档，用于不拆分的执行（如Mutation）
+     */
+    String getCompleteDocument() {
+        return print(strip(operation.getSelectionSet()));
+    }
+
+    /**
+     * 首个载荷文档：不含延迟片段，流式字段保留@stream(initialCount)由StreamWindowInstrumentation截断
+     */
+    String getInitialDocument() {
+        return print(initialSelectionSet);
+    }
+
+    /**
+     * 补充文档：各延迟片段与各流式字段嵌回祖先路径后合并为一个操作，同名祖先字段由GraphQL合并执行；
+     * 所有后续分块都从这一次执行的结果中拆出
+     */
+    String getRemainderDocument() {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (DeferredFragment fragment : deferredFragments) {
+            selections.add(nest(fragment.getAncestors(), fragment.fragment));
+        }
+        for (StreamedField field : streamedFields) {
+            selections.add(nest(field.getAncestors(), field.field));
+        }
+        return print(strip(SelectionSet.newSelectionSet(selections).build()));
+    }
+
+    List<DeferredFragment> getDeferredFragments() {
+        return deferredFragments;
+    }
+
+    List<StreamedField> getStreamedFields() {
+        return streamedFields;
+    }
+
+    /**
+     * 延迟片段：所在位置的祖先路径与片段内容
+     */
+    static final class DeferredFragment {
+        private final String label;
+        private final List<Selection<?>> ancestors;
+        private final InlineFragment fragment;
+
+        private DeferredFragment(String label, List<Selection<?>> ancestors, InlineFragment fragment) {
+            this.label = label;
+            this.ancestors = ancestors;
+            this.fragment = fragment;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        List<Selection<?>> getAncestors() {
+            return ancestors;
+        }
+
+        /**
+         * 片段内（含嵌套内联片段）的响应键
+         */
+        Set<String> getResponseKeys() {
+            Set<String> keys = new LinkedHashSet<>();
+            collectResponseKeys(fragment.getSelectionSet(), keys);
+            return keys;
+        }
+    }
+
+    /**
+     * 流式字段：所在位置的祖先路径、字段与首个载荷中的条目数
+     */
+    static final class StreamedField {
+        private final String label;
+        private final List<Selection<?>> ancestors;
+        private final Field field;
+        private final int initialCount;
+
+        private StreamedField(String label, List<Selection<?>> ancestors, Field field, int initialCount) {
+            this.label = label;
+            this.ancestors = ancestors;
+            this.field = field;
+            this.initialCount = initialCount;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        List<Selection<?>> getAncestors() {
+            return ancestors;
+        }
+
+        String getResponseKey() {
+            return responseKey(field);
+        }
+
+        int getInitialCount() {
+            return initialCount;
+        }
+    }
+
+    /**
+     * 计算首个载荷的选择集，并登记延迟片段与流式字段
+     */
+    private SelectionSet walk(SelectionSet selectionSet, List<Selection<?>> ancestors) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                Field field = (Field) selection;
+                List<Directive> directives = new ArrayList<>();
+                Directive stream = null;
+                for (Directive directive : field.getDirectives()) {
+                    if (STREAM.equals(directive.getName())) {
+                        if (isActive(directive)) {
+                            stream = Directive.newDirective().name(STREAM)
+                                .argument(Argument.newArgument(INITIAL_COUNT,
+                                    IntValue.of(intArgument(directive, INITIAL_COUNT, 0))).build())
+                                .build();
+                            directives.add(stream);
+                        }
+                    } else {
+                        directives.add(directive);
+                    }
+                }
+                Field step = field.transform(b -> b.directives(directives).selectionSet(null));
+                if (stream != null) {
+                    streamedFields.add(new StreamedField(stringArgument(field.getDirectives(STREAM).get(0), LABEL),
+                        ancestors, field.transform(b -> b.directives(directives)),
+                        intArgument(stream, INITIAL_COUNT, 0)));
+                }
+                SelectionSet children = field.getSelectionSet() != null
+                    ? walk(field.getSelectionSet(), append(ancestors, step)) : null;
+                selections.add(field.transform(b -> b.directives(directives).selectionSet(children)));
+            } else if (selection instanceof InlineFragment) {
+                InlineFragment fragment = (InlineFragment) selection;
+                Directive defer = null;
+                List<Directive> directives = new ArrayList<>();
+                for (Directive directive : fragment.getDirectives()) {
+                    if (DEFER.equals(directive.getName())) {
+                        if (isActive(directive)) {
+                            defer = directive;
+                        }
+                    } else {
+                        directives.add(directive);
+                    }
+                }
+                if (defer != null) {
+                    InlineFragment deferred = fragment.transform(b -> b.directives(directives)
+                        .selectionSet(strip(fragment.getSelectionSet())));
+                    deferredFragments.add(new DeferredFragment(stringArgument(defer, LABEL), ancestors, deferred));
+                    continue;
+                }
+                InlineFragment step = fragment.transform(b -> b.directives(directives).selectionSet(null));
+                SelectionSet children = walk(fragment.getSelectionSet(), append(ancestors, step));
+                selections.add(fragment.transform(b -> b.directives(directives).selectionSet(children)));
+            }
+        }
+        return SelectionSet.newSelectionSet(selections).build();
+    }
+
+    /**
+     * 去掉选择集中所有@defer/@stream，即完整返回
+     */
+    private static SelectionSet strip(SelectionSet selectionSet) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                Field field = (Field) selection;
+                selections.add(field.transform(b -> b.directives(withoutIncremental(field.getDirectives()))
+                    .selectionSet(field.getSelectionSet() != null ? strip(field.getSelectionSet()) : null)));
+            } else if (selection instanceof InlineFragment) {
+                InlineFragment fragment = (InlineFragment) selection;
+                selections.add(fragment.transform(b -> b.directives(withoutIncremental(fragment.getDirectives()))
+                    .selectionSet(strip(fragment.getSelectionSet()))));
+            }
+        }
+        return SelectionSet.newSelectionSet(selections).build();
+    }
+
+    private static List<Directive> withoutIncremental(List<Directive> directives) {
+        List<Directive> result = new ArrayList<>();
+        for (Directive directive : directives) {
+            if (!DEFER.equals(directive.getName()) && !STREAM.equals(directive.getName())) {
+                result.add(directive);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将命名片段展开为内联片段，补充文档无需携带片段定义
+     */
+    private static SelectionSet inlineFragments(SelectionSet selectionSet, Map<String, FragmentDefinition> fragments) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                Field field = (Field) selection;
+                selections.add(field.getSelectionSet() == null ? field
+                    : field.transform(b -> b.selectionSet(inlineFragments(field.getSelectionSet(), fragments))));
+            } else if (selection instanceof InlineFragment) {
+                InlineFragment fragment = (InlineFragment) selection;
+                selections.add(fragment.transform(b -> b.selectionSet(
+                    inlineFragments(fragment.getSelectionSet(), fragments))));
+            } else if (selection instanceof FragmentSpread) {
+                FragmentSpread spread = (FragmentSpread) selection;
+                FragmentDefinition definition = fragments.get(spread.getName());
+                if (definition == null) {
+                    // 未定义的片段保留原样，由校验阶段报告
+                    selections.add(spread);
+                    continue;
+                }
+                selections.add(InlineFragment.newInlineFragment()
+                    .typeCondition(definition.getTypeCondition())
+                    .directives(spread.getDirectives())
+                    .selectionSet(inlineFragments(definition.getSelectionSet(), fragments))
+                    .build());
+            }
+        }
+        return SelectionSet.newSelectionSet(selections).build();
+    }
+
+    /**
+     * 打印为只含当前操作的文档，并剔除未引用的变量定义（否则校验报NoUnusedVariables）
+     */
+    private String print(SelectionSet selectionSet) {
+        Set<String> used = new HashSet<>();
+        collectVariableReferences(selectionSet, used);
+        List<VariableDefinition> definitions = new ArrayList<>();
+        for (VariableDefinition definition : operation.getVariableDefinitions()) {
+            if (used.contains(definition.getName())) {
+                definitions.add(definition);
+            }
+        }
+        OperationDefinition derived = operation.transform(b -> b
+            .selectionSet(selectionSet)
+            .variableDefinitions(definitions));
+        return AstPrinter.printAst(Document.newDocument().definition(derived).build());
+    }
+
+    private static void collectVariableReferences(Node<?> node, Set<String> names) {
+        if (node instanceof VariableReference) {
+            names.add(((VariableReference) node).getName());
+        }
+        for (Node<?> child : node.getChildren()) {
+            collectVariableReferences(child, names);
+        }
+    }
+
+    private static void collectResponseKeys(SelectionSet selectionSet, Set<String> keys) {
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                keys.add(responseKey((Field) selection));
+            } else if (selection instanceof InlineFragment) {
+                collectResponseKeys(((InlineFragment) selection).getSelectionSet(), keys);
+            }
+        }
+    }
+
+    static String responseKey(Field field) {
+        return field.getAlias() != null ? field.getAlias() : field.getName();
+    }
+
+    /**
+     * 首个载荷选择集中字段的@stream initialCount，非流式字段返回-1
+     */
+    static int initialCount(Field field) {
+        if (!field.hasDirective(STREAM)) {
+            return -1;
+        }
+        Argument argument = field.getDirectives(STREAM).get(0).getArgument(INITIAL_COUNT);
+        return argument != null && argument.getValue() instanceof IntValue
+            ? ((IntValue) argument.getValue()).getValue().intValue() : 0;
+    }
+
+    /**
+     * 由内向外把选择嵌入祖先路径（祖先节点本身不带子选择）
+     */
+    private static Selection<?> nest(List<Selection<?>> ancestors, Selection<?> selection) {
+        Selection<?> nested = selection;
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            SelectionSet children = SelectionSet.newSelectionSet().selection(nested).build();
+            Selection<?> step = ancestors.get(i);
+            nested = step instanceof Field
+                ? ((Field) step).transform(b -> b.selectionSet(children))
+                : ((InlineFragment) step).transform(b -> b.selectionSet(children));
+        }
+        return nested;
+    }
+
+    private static List<Selection<?>> append(List<Selection<?>> ancestors, Selection<?> step) {
+        List<Selection<?>> result = new ArrayList<>(ancestors);
+        result.add(step);
+        return Collections.unmodifiableList(result);
+    }
+
+    private boolean isActive(Directive directive) {
+        Argument condition = directive.getArgument(IF);
+        if (condition == null) {
+            return true;
+        }
+        Object value = resolve(condition.getValue());
+        return !Boolean.FALSE.equals(value);
+    }
+
+    private int intArgument(Directive directive, String name, int defaultValue) {
+        Argument argument = directive.getArgument(name);
+        Object value = argument != null ? resolve(argument.getValue()) : null;
+        return value instanceof Number ? Math.max(0, ((Number) value).intValue()) : defaultValue;
+    }
+
+    private String stringArgument(Directive directive, String name) {
+        Argument argument = directive.getArgument(name);
+        Object value = argument != null ? resolve(argument.getValue()) : null;
+        return value instanceof String ? (String) value : null;
+    }
+
+    private Object resolve(Value<?> value) {
+        if (value instanceof VariableReference) {
+            return variables.get(((VariableReference) value).getName());
+        }
+        if (value instanceof BooleanValue) {
+            return ((BooleanValue) value).isValue();
+        }
+        if (value instanceof IntValue) {
+            return ((IntValue) value).getValue().intValue();
+        }
+        if (value instanceof StringValue) {
+            return ((StringValue) value).getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.sysml.platform.api;
+
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RQ-API-DEDUP-009: 按文档判断请求的操作类型
+ * 拦截器在执行前需要区分查询与变更；解析结果按文档文本缓存（有界LRU，超出时淘汰最久未用的文档），
+ * 无法解析时返回null交由执行阶段报错
+ */
+@Component
+class OperationTypeResolver {
+
+    private static final int MAX_CACHED_DOCUMENTS = 1000;
+    private static final String ANONYMOUS = "";
+
+    // 访问顺序的LinkedHashMap，受this保护；解析在锁外进行
+    private final LinkedHashMap<String, Map<String, OperationDefinition.Operation>> cache =
+        new LinkedHashMap<>(16, 0.75f, true);
+
+    OperationDefinition.Operation resolve(String document, String operationName) {
+        if (document == null) {
+            return null;
+        }
+        Map<String, OperationDefinition.Operation> operations;
+        synchronized (this) {
+            operations = cache.get(document);
+        }
+        if (operations == null) {
+            operations = parse(document);
+            synchronized (this) {
+                cache.put(document, operations);
+                if (cache.size() > MAX_CACHED_DOCUMENTS) {
+                    Iterator<String> eldest = cache.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (operationName != null && !operationName.isEmpty()) {
+            return operations.get(operationName);
+        }
+        // 未指定操作名时文档必须只含一个操作
+        return operations.size() == 1 ? operations.values().iterator().next() : null;
+    }
+
+    private static Map<String, OperationDefinition.Operation> parse(String document) {
+        Map<String, OperationDefinition.Operation> operations = new HashMap<>();
+        try {
+            Document parsed = Parser.parse(document);
+            for (OperationDefinition definition : parsed.getDefinitionsOfType(OperationDefinition.class)) {
+                operations.put(definition.getName() != null ? definition.getName() : ANONYMOUS,
+                    definition.getOperation());
+            }
+        } catch (InvalidSyntaxException e) {
+            // 语法错误由graphql-java在执行阶段报告
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,191 @@
+package com.sysml.platform.api;
+
+import com.sysml.platform.common.ErrorCode;
+import com.sysml.platform.common.ErrorCodeRegistry;
+import com.sysml.platform.common.TokenBucket;
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.QueryComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RQ-NFR-PERF-006: 按客户端的查询成本预算
+ * 每个客户端（ClientIdentityFilter确定的认证主体或远端地址）一个令牌桶，操作执行前按查询成本扣减。
+ * 成本 = 每个字段1 + 子选择成本 × 分页参数（first/last/size）。
+ * 预算不足时立即以RATE_LIMITED错误拒绝，不执行任何解析器，也不阻塞请求线程；
+ * 错误扩展retryAfter给出预算恢复到本次成本所需的秒数，由客户端延后重试。
+ * 默认关闭，按实际负载设置容量与补充速率后开启。
+ *
+ * 作为拦截器把客户端标识写入GraphQLContext（排在幂等与读请求合并拦截器之后），
+ * 作为Instrumentation在文档解析后计算成本
+ */
+@Component
+@Order(3)
+public class QueryCostBudgetInstrumentation extends SimplePerformantInstrumentation implements WebGraphQlInterceptor {
+
+    static final String BUDGET_REQUESTS = "graphql.budget.requests";
+    static final String BUDGET_COST = "graphql.budget.cost";
+    static final String BUDGET_TOKENS = "graphql.budget.tokens";
+
+    static final String CLIENT_CONTEXT_KEY = QueryCostBudgetInstrumentation.class.getName() + ".client";
+
+    private static final String ANONYMOUS = "anonymous";
+    private static final String OTHER = "other";
+    private static final List<String> PAGE_SIZE_ARGUMENTS = List.of("first", "last", "size");
+
+    private final MeterRegistry registry;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final boolean enabled;
+    private final long capacity;
+    private final double refillPerSecond;
+    private final int maxClients;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public QueryCostBudgetInstrumentation(
+            MeterRegistry registry,
+            ErrorCodeRegistry errorCodeRegistry,
+            @Value("${performance.budget.enabled:false}") boolean enabled,
+            @Value("${performance.budget.capacity:2000}") long capacity,
+            @Value("${performance.budget.refill-per-second:200}") double refillPerSecond,
+            @Value("${performance.budget.max-clients:1000}") int maxClients) {
+        this.registry = registry;
+        this.errorCodeRegistry = errorCodeRegistry;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.maxClients = maxClients;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (enabled) {
+            Object identity = request.getAttributes().get(ClientIdentityFilter.CLIENT_ATTRIBUTE);
+            String client = identity != null ? identity.toString() : ANONYMOUS;
+            request.configureExecutionInput((input, builder) ->
+                builder.graphQLContext(Map.of(CLIENT_CONTEXT_KEY, client)).build());
+        }
+        return chain.next(request);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        if (!enabled) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        ExecutionContext context = parameters.getExecutionContext();
+        String client = bucketKey(context.getGraphQLContext().getOrDefault(CLIENT_CONTEXT_KEY, ANONYMOUS));
+        int cost = calculateCost(context);
+        DistributionSummary.builder(BUDGET_COST)
+            .description("GraphQL操作查询成本")
+            .tag("client", client)
+            .register(registry)
+            .record(cost);
+
+        long waitNanos = bucket(client).tryAcquire(cost, System.nanoTime());
+        if (waitNanos > 0) {
+            count(client, "rejected");
+            throw new AbortExecutionException(List.of(rateLimitedError(client, cost, waitNanos)));
+        }
+        count(client, "admitted");
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    /**
+     * 查询成本：分页字段的子选择成本按页大小放大
+     */
+    static int calculateCost(ExecutionContext context) {
+        return QueryComplexityCalculator.newCalculator()
+            .schema(context.getGraphQLSchema())
+            .document(context.getDocument())
+            .operationName(context.getExecutionInput().getOperationName())
+            .variables(context.getCoercedVariables())
+            .fieldComplexityCalculator(QueryCostBudgetInstrumentation::fieldCost)
+            .build()
+            .calculate();
+    }
+
+    private static int fieldCost(FieldComplexityEnvironment environment, int childCost) {
+        int multiplier = 1;
+        for (String name : PAGE_SIZE_ARGUMENTS) {
+            Object value = environment.getArguments().get(name);
+            if (value instanceof Number) {
+                multiplier = Math.max(multiplier, ((Number) value).intValue());
+            }
+        }
+        return 1 + childCost * multiplier;
+    }
+
+    /**
+     * 客户端数超过上限后新客户端共用"other"桶，限制内存与指标时间序列
+     */
+    private String bucketKey(String client) {
+        return buckets.containsKey(client) || buckets.size() < maxClients ? client : OTHER;
+    }
+
+    private TokenBucket bucket(String key) {
+        return buckets.computeIfAbsent(key, k -> {
+            TokenBucket created = new TokenBucket(capacity, refillPerSecond, System.nanoTime());
+            Gauge.builder(BUDGET_TOKENS, created, b -> b.available(System.nanoTime()))
+                .description("GraphQL客户端剩余查询预算")
+                .tag("client", k)
+                .register(registry);
+            return created;
+        });
+    }
+
+    private void count(String client, String outcome) {
+        Counter.builder(BUDGET_REQUESTS)
+            .description("GraphQL预算准入结果")
+            .tag("client", client)
+            .tag("outcome", outcome)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * 单次成本超过桶容量时永远无法放行，不给出retryAfter
+     */
+    private GraphQLError rateLimitedError(String client, int cost, long waitNanos) {
+        ErrorCode code = ErrorCode.RATE_LIMITED;
+        Map<String, Object> extensions = new LinkedHashMap<>();
+        extensions.put("code", code.getCode());
+        extensions.put("messageKey", errorCodeRegistry.getMessageKey(code.getCode()));
+        extensions.put("cost", cost);
+        if (waitNanos != TokenBucket.NEVER) {
+            extensions.put("retryAfter", TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        }
+        return GraphqlErrorBuilder.newError()
+            .message("Query cost budget exhausted for client '" + client + "' (cost " + cost
+                + ", capacity " + capacity + ", refill " + refillPerSecond + "/s)")
+            .errorType(ErrorClassification.errorClassification(code.getCode()))
+            .extensions(extensions)
+            .build();
+    }
+}
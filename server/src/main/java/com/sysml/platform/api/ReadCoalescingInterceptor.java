@@ -0,0 +1,95 @@
+package com.sysml.platform.api;
+
+import graphql.language.OperationDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RQ-API-DEDUP-009: 相同读请求合并（single-flight）
+ * 文档、操作名、变量、客户端凭据与数据版本都相同的Query若已在执行，后到的请求不再执行，
+ * 直接共享该次执行结果。数据版本在每个Mutation完成时递增，变更完成后到达的读请求不会拿到变更前的结果。
+ * 排在幂等拦截器之后、查询成本预算之前，共享结果的请求不再计入预算
+ */
+@Component
+@Order(2)
+public class ReadCoalescingInterceptor implements WebGraphQlInterceptor {
+
+    static final String COALESCED_REQUESTS = "graphql.requests.coalesced";
+
+    private final OperationTypeResolver operationTypes;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final String clientHeader;
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final Map<List<Object>, Mono<WebGraphQlResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ReadCoalescingInterceptor(
+            OperationTypeResolver operationTypes,
+            MeterRegistry registry,
+            @Value("${performance.coalescing.enabled:true}") boolean enabled,
+            @Value("${performance.coalescing.credential-header:X-API-Key}") String clientHeader) {
+        this.operationTypes = operationTypes;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        OperationDefinition.Operation operation =
+            operationTypes.resolve(request.getDocument(), request.getOperationName());
+        if (operation == OperationDefinition.Operation.MUTATION) {
+            return chain.next(request).doFinally(signal -> dataVersion.incrementAndGet());
+        }
+        if (!enabled || operation != OperationDefinition.Operation.QUERY) {
+            return chain.next(request);
+        }
+
+        List<Object> key = key(request);
+        AtomicReference<Mono<WebGraphQlResponse>> self = new AtomicReference<>();
+        Mono<WebGraphQlResponse> execution = Mono.defer(() -> chain.next(request))
+            .doFinally(signal -> inFlight.remove(key, self.get()))
+            .cache();
+        self.set(execution);
+
+        Mono<WebGraphQlResponse> leader = inFlight.putIfAbsent(key, execution);
+        if (leader == null) {
+            return execution;
+        }
+        registry.counter(COALESCED_REQUESTS).increment();
+        // 共享ExecutionResult，每个等待者各自包装响应（响应头互不影响）
+        return leader.map(response -> new WebGraphQlResponse(
+            new DefaultExecutionGraphQlResponse(request.toExecutionInput(), response.getExecutionResult())));
+    }
+
+    /**
+     * 数据版本 + 文档 + 操作名 + 变量 + 凭据 + 语言环境
+     */
+    private List<Object> key(WebGraphQlRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return Arrays.asList(
+            dataVersion.get(),
+            request.getDocument(),
+            request.getOperationName(),
+            request.getVariables(),
+            request.getExtensions(),
+            headers.getFirst(clientHeader),
+            headers.getFirst(HttpHeaders.AUTHORIZATION),
+            request.getLocale());
+    }
+}
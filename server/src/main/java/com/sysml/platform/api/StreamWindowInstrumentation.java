@@ -0,0 +1,60 @@
+package com.sysml.platform.api;
+
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * RQ-API-INCREMENTAL-006: 首个载荷中的@stream窗口
+ * 增量交付的首次执行在GraphQLContext中带INITIAL_PHASE_CONTEXT_KEY，
+ * 此时带@stream(initialCount)的字段在解析器返回后即截断为前initialCount项，
+ * 后续条目的子字段不在首次执行中解析；其余请求中的@stream不起作用，列表完整返回
+ */
+@Component
+public class StreamWindowInstrumentation extends SimplePerformantInstrumentation {
+
+    static final String INITIAL_PHASE_CONTEXT_KEY = StreamWindowInstrumentation.class.getName() + ".initialPhase";
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        DataFetchingEnvironment env = parameters.getEnvironment();
+        int initialCount = IncrementalDocumentPlanner.initialCount(env.getField());
+        if (initialCount < 0 || !Boolean.TRUE.equals(env.getGraphQlContext().get(INITIAL_PHASE_CONTEXT_KEY))) {
+            return dataFetcher;
+        }
+        return environment -> window(dataFetcher.get(environment), initialCount);
+    }
+
+    private static Object window(Object value, int initialCount) {
+        if (value instanceof CompletionStage) {
+            return ((CompletionStage<?>) value).thenApply(result -> window(result, initialCount));
+        }
+        if (value instanceof DataFetcherResult) {
+            return ((DataFetcherResult<?>) value).map(data -> window(data, initialCount));
+        }
+        if (value instanceof List) {
+            List<?> items = (List<?>) value;
+            return items.size() > initialCount ? new ArrayList<>(items.subList(0, initialCount)) : items;
+        }
+        if (value instanceof Iterable) {
+            List<Object> items = new ArrayList<>();
+            Iterator<?> iterator = ((Iterable<?>) value).iterator();
+            while (items.size() < initialCount && iterator.hasNext()) {
+                items.add(iterator.next());
+            }
+            return items;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package com.sysml.platform.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sysml.platform.common.ErrorCode;
+import com.sysml.platform.common.ErrorCodeRegistry;
+import graphql.ErrorClassification;
+import graphql.GraphqlErrorBuilder;
+import jakarta.servlet.ServletException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RQ-API-STREAMING-008: 单个操作的流式响应
+ * 与GraphQlHttpHandler相同的请求处理，结果由StreamingResponseWriter直接流式写出；
+ * performance.streaming.enabled=false时原样交给GraphQlHttpHandler
+ */
+@Component
+public class StreamingRequestHandler {
+
+    private static final TypeReference<Map<String, Object>> OPERATION_TYPE = new TypeReference<>() {};
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = List.of(
+        MediaType.APPLICATION_GRAPHQL_RESPONSE, MediaType.APPLICATION_JSON);
+
+    private final WebGraphQlHandler graphQlHandler;
+    private final GraphQlHttpHandler httpHandler;
+    private final ObjectMapper objectMapper;
+    private final StreamingResponseWriter responseWriter;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final boolean enabled;
+    private final IdGenerator idGenerator = new JdkIdGenerator();
+
+    public StreamingRequestHandler(
+            WebGraphQlHandler graphQlHandler,
+            GraphQlHttpHandler httpHandler,
+            ObjectMapper objectMapper,
+            StreamingResponseWriter responseWriter,
+            ErrorCodeRegistry errorCodeRegistry,
+            @Value("${performance.streaming.enabled:true}") boolean enabled) {
+        this.graphQlHandler = graphQlHandler;
+        this.httpHandler = httpHandler;
+        this.objectMapper = objectMapper;
+        this.responseWriter = responseWriter;
+        this.errorCodeRegistry = errorCodeRegistry;
+        this.enabled = enabled;
+    }
+
+    public ServerResponse handleRequest(ServerRequest request) throws ServletException {
+        if (!enabled) {
+            return httpHandler.handleRequest(request);
+        }
+        Map<String, Object> operation;
+        try {
+            operation = objectMapper.readValue(request.body(byte[].class), OPERATION_TYPE);
+        } catch (IOException | ServletException e) {
+            ErrorCode code = ErrorCode.BAD_REQUEST;
+            return ServerResponse.badRequest().body(Map.of("errors", List.of(GraphqlErrorBuilder.newError()
+                .message("Invalid GraphQL request body")
+                .errorType(ErrorClassification.errorClassification(code.getCode()))
+                .extensions(Map.of(
+                    "code", code.getCode(),
+                    "messageKey", errorCodeRegistry.getMessageKey(code.getCode())))
+                .build()
+                .toSpecification())));
+        }
+        WebGraphQlRequest graphQlRequest = new WebGraphQlRequest(
+            request.uri(), request.headers().asHttpHeaders(), initCookies(request),
+            request.attributes(), operation, idGenerator.generateId().toString(),
+            request.servletRequest().getLocale());
+        MediaType contentType = selectResponseMediaType(request);
+        return ServerResponse.async(graphQlHandler.handleRequest(graphQlRequest).map(response ->
+            ServerResponse.ok()
+                .headers(headers -> headers.putAll(response.getResponseHeaders()))
+                .contentType(contentType)
+                .build((servletRequest, servletResponse) -> {
+                    responseWriter.write(response.getExecutionResult(), servletResponse.getOutputStream());
+                    return null;
+                })));
+    }
+
+    /**
+     * 与GraphQlHttpHandler一致：Accept中显式列出的受支持类型优先，否则application/json
+     */
+    private static MediaType selectResponseMediaType(ServerRequest request) {
+        for (MediaType accepted : request.headers().accept()) {
+            if (SUPPORTED_MEDIA_TYPES.contains(accepted)) {
+                return accepted;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private static MultiValueMap<String, HttpCookie> initCookies(ServerRequest request) {
+        MultiValueMap<String, HttpCookie> target = new LinkedMultiValueMap<>();
+        request.cookies().values().forEach(list -> list.forEach(cookie ->
+            target.add(cookie.getName(), new HttpCookie(cookie.getName(), cookie.getValue()))));
+        return target;
+    }
+}
@@ -0,0 +1,130 @@
+package com.sysml.platform.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RQ-API-STREAMING-008: GraphQL结果流式序列化
+ * 以JsonGenerator直接遍历ExecutionResult的数据树写入输出流，不再经toSpecification()组装中间Map、
+ * 也不经HttpMessageConverter整体写出；列表元素之间按flush-bytes分块刷出，大结果可边序列化边传输
+ */
+@Component
+public class StreamingResponseWriter {
+
+    private final ObjectMapper objectMapper;
+    private final int flushBytes;
+
+    public StreamingResponseWriter(
+            ObjectMapper objectMapper,
+            @Value("${performance.streaming.flush-bytes:65536}") int flushBytes) {
+        this.objectMapper = objectMapper;
+        this.flushBytes = Math.max(1, flushBytes);
+    }
+
+    /**
+     * 按GraphQL规范字段顺序（errors, data, extensions）写出结果，不关闭输出流
+     */
+    public void write(ExecutionResult result, OutputStream out) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(counting)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            ChunkedWriter writer = new ChunkedWriter(generator, counting);
+            generator.writeStartObject();
+            List<GraphQLError> errors = result.getErrors();
+            if (errors != null && !errors.isEmpty()) {
+                generator.writeArrayFieldStart("errors");
+                for (GraphQLError error : errors) {
+                    generator.writeObject(error.toSpecification());
+                }
+                generator.writeEndArray();
+            }
+            if (result.isDataPresent()) {
+                generator.writeFieldName("data");
+                writer.writeValue(result.getData());
+            }
+            if (result.getExtensions() != null) {
+                generator.writeFieldName("extensions");
+                writer.writeValue(result.getExtensions());
+            }
+            generator.writeEndObject();
+        }
+        out.flush();
+    }
+
+    /**
+     * 递归写出数据树；每写完一个列表元素检查自上次刷出后的字节数
+     */
+    private final class ChunkedWriter {
+        private final JsonGenerator generator;
+        private final CountingOutputStream counting;
+        private long flushedAt;
+
+        private ChunkedWriter(JsonGenerator generator, CountingOutputStream counting) {
+            this.generator = generator;
+            this.counting = counting;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value instanceof Map) {
+                generator.writeStartObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    generator.writeFieldName(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+                generator.writeEndObject();
+            } else if (value instanceof Collection) {
+                generator.writeStartArray();
+                for (Object item : (Collection<?>) value) {
+                    writeValue(item);
+                    flushIfNeeded();
+                }
+                generator.writeEndArray();
+            } else {
+                // 标量已由graphql-java完成序列化（String/Number/Boolean），Json标量交给ObjectMapper
+                generator.writeObject(value);
+            }
+        }
+
+        private void flushIfNeeded() throws IOException {
+            long written = counting.count + generator.getOutputBuffered();
+            if (written - flushedAt >= flushBytes) {
+                generator.flush();
+                flushedAt = written;
+            }
+        }
+    }
+
+    /**
+     * 统计已写入底层流的字节数
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
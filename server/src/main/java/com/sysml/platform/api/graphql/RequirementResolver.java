@@ -1,12 +1,12 @@
 package com.sysml.platform.api.graphql;
 
 import com.sysml.platform.domain.requirements.*;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * 需求域GraphQL解析器
@@ -23,40 +23,75 @@ public class RequirementResolver {
     }
     
     @QueryMapping
-    public Object requirement(@Argument String id) {
+    public Object requirement(@Argument String id, DataFetchingFieldSelectionSet selectionSet) {
         // 实现单个需求查询
-        return requirementService.queryRequirements(
-            QueryRequirementsInput.builder()
-                .keyword(id)
-                .page(0)
-                .size(1)
-                .build()
-        ).getContent().stream().findFirst().orElse(null);
+        return findOne(id, projection(selectionSet, "", false));
     }
     
     @QueryMapping
-    public Object requirements(@Argument Integer page, @Argument Integer size) {
+    public Object requirements(@Argument Integer page, @Argument Integer size,
+                               DataFetchingFieldSelectionSet selectionSet) {
         // 查询需求列表
         return requirementService.queryRequirements(
             QueryRequirementsInput.builder()
                 .page(page != null ? page : 0)
                 .size(size != null ? size : 20)
-                .build()
+                .build(),
+            projection(selectionSet, "content/",
+                selectionSet.containsAnyOf("totalElements", "totalPages"))
+        );
+    }
+    
+    @QueryMapping
+    public Object requirementConnection(@Argument Integer first, @Argument String after,
+                                        @Argument Integer last, @Argument String before,
+                                        @Argument String keyword,
+                                        DataFetchingFieldSelectionSet selectionSet) {
+        // 游标分页查询
+        return requirementService.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder()
+                .first(first)
+                .after(after)
+                .last(last)
+                .before(before)
+                .keyword(keyword)
+                .build(),
+            projection(selectionSet, "edges/node/",
+                selectionSet.containsAnyOf("pageInfo/hasNextPage", "pageInfo/hasPreviousPage"))
         );
     }
     
     @QueryMapping
-    public Object requirementTree(@Argument String rootId) {
+    public Object requirementTree(@Argument String rootId, DataFetchingFieldSelectionSet selectionSet) {
         // 查询需求层次树
+        return findOne(rootId, projection(selectionSet, "", false));
+    }
+    
+    private RequirementDefinition findOne(String id, RequirementProjection projection) {
         return requirementService.queryRequirements(
             QueryRequirementsInput.builder()
-                .keyword(rootId)
+                .keyword(id)
                 .page(0)
                 .size(1)
-                .build()
+                .build(),
+            projection
         ).getContent().stream().findFirst().orElse(null);
     }
     
+    /**
+     * 按选择集生成投影，只计算/复制客户端实际请求的字段
+     * @param prefix RequirementDefinition在选择集中的路径前缀
+     */
+    private static RequirementProjection projection(DataFetchingFieldSelectionSet selectionSet,
+                                                    String prefix, boolean totals) {
+        return RequirementProjection.builder()
+            .text(selectionSet.contains(prefix + "text"))
+            .relations(selectionSet.containsAnyOf(prefix + "derivedFrom", prefix + "derives",
+                prefix + "refinedFrom", prefix + "refines"))
+            .totals(totals)
+            .build();
+    }
+    
     @MutationMapping
     public Object createRequirement(@Argument Map<String, Object> input) {
         // 转换输入
@@ -73,20 +108,14 @@ public class RequirementResolver {
     }
     
     @MutationMapping
-    public Map<String, Object> updateRequirement(@Argument String id, @Argument Map<String, Object> input) {
-        // TODO: 实现更新逻辑
-        Map<String, Object> result = new HashMap<>();
-        result.put("ok", true);
-        result.put("requirement", requirement(id));
-        return result;
+    public Object updateRequirement(@Argument String id, @Argument UpdateRequirementInput input) {
+        // 按版本比较并交换，冲突时返回REQ_VERSION_CONFLICT
+        return requirementService.updateRequirement(id, input);
     }
     
     @MutationMapping
-    public Map<String, Object> deleteRequirement(@Argument String id) {
-        // TODO: 实现删除逻辑
-        Map<String, Object> result = new HashMap<>();
-        result.put("ok", true);
-        return result;
+    public Object deleteRequirement(@Argument String id, @Argument Long expectedVersion) {
+        return requirementService.deleteRequirement(id, expectedVersion);
     }
     
     @MutationMapping
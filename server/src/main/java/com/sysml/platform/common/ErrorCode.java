@@ -9,6 +9,8 @@ public enum ErrorCode {
     VALIDATION_ERROR("VALIDATION_ERROR", "error.validation.failed", "CLIENT"),
     NOT_FOUND("NOT_FOUND", "error.resource.notfound", "CLIENT"),
     BAD_REQUEST("BAD_REQUEST", "error.bad.request", "CLIENT"),
+    RATE_LIMITED("RATE_LIMITED", "error.rate.limited", "CLIENT"),
+    IDEMPOTENCY_KEY_REUSED("IDEMPOTENCY_KEY_REUSED", "error.idempotency.reused", "CLIENT"),
     
     // 认证授权错误
     UNAUTHORIZED("UNAUTHORIZED", "error.auth.unauthorized", "AUTH"),
@@ -16,11 +18,13 @@ public enum ErrorCode {
     
     // 业务错误
     REQ_CYCLE_DETECTED("REQ_CYCLE_DETECTED", "error.requirement.cycle", "BUSINESS"),
+    REQ_VERSION_CONFLICT("REQ_VERSION_CONFLICT", "error.req.version.conflict", "BUSINESS"),
     CONNECTION_INVALID("CONNECTION_INVALID", "error.connection.invalid", "BUSINESS"),
     
     // 系统错误 (5xx)
     INTERNAL_ERROR("INTERNAL_ERROR", "error.internal", "SYSTEM"),
-    SERVICE_UNAVAILABLE("SERVICE_UNAVAILABLE", "error.service.unavailable", "SYSTEM");
+    SERVICE_UNAVAILABLE("SERVICE_UNAVAILABLE", "error.service.unavailable", "SYSTEM"),
+    OPERATION_TIMEOUT("OPERATION_TIMEOUT", "error.operation.timeout", "SYSTEM");
     
     private final String code;
     private final String messageKey;
@@ -0,0 +1,64 @@
+package com.sysml.platform.common;
+
+/**
+ * RQ-NFR-PERF-006: 令牌桶
+ * 容量capacity，按refillPerSecond匀速补充；请求按成本扣减令牌。
+ * 余额不足时不扣减，返回补足所需的时长，由调用方拒绝并提示客户端延后重试
+ */
+public class TokenBucket {
+
+    /** 成本超过容量，永远无法放行 */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and refillPerSecond must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = nowNanos;
+    }
+
+    /**
+     * 尝试扣减cost个令牌
+     * @return 0表示已扣减；否则不扣减，返回余额补足cost还需的纳秒数，cost超过容量时返回NEVER
+     */
+    public synchronized long tryAcquire(long cost, long nowNanos) {
+        refill(nowNanos);
+        if (cost > capacity) {
+            return NEVER;
+        }
+        double deficit = cost - tokens;
+        if (deficit <= 0) {
+            tokens -= cost;
+            return 0;
+        }
+        return (long) Math.ceil(deficit / refillPerNano);
+    }
+
+    /**
+     * 当前可用令牌
+     */
+    public synchronized double available(long nowNanos) {
+        refill(nowNanos);
+        return tokens;
+    }
+
+    public long getCapacity() {
+        return (long) capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefill = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 删除需求返回载荷
+ */
+@Data
+@Builder
+public class DeleteRequirementPayload {
+    private boolean ok;
+    private Error error;
+}
@@ -0,0 +1,16 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Relay分页信息
+ */
+@Data
+@Builder
+public class PageInfo {
+    private boolean hasNextPage;
+    private boolean hasPreviousPage;
+    private String startCursor;
+    private String endCursor;
+}
@@ -0,0 +1,17 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 游标分页查询输入（Relay: first/after 向后翻页，last/before 向前翻页）
+ */
+@Data
+@Builder
+public class QueryRequirementConnectionInput {
+    private String keyword;
+    private Integer first;
+    private String after;
+    private Integer last;
+    private String before;
+}
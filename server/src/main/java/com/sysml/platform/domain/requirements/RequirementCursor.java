@@ -0,0 +1,95 @@
+package com.sysml.platform.domain.requirements;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * 需求排序键与不透明游标
+ * 排序：createdAt倒序，id升序打破并列；游标即排序键的Base64编码
+ *
+ * @implements RQ-REQ-QUERY-004
+ */
+public final class RequirementCursor implements Comparable<RequirementCursor> {
+
+    private static final String PREFIX = "req:";
+    private static final char SEPARATOR = '|';
+
+    private static final Comparator<RequirementCursor> ORDER = Comparator
+        .comparing(RequirementCursor::getCreatedAt, Comparator.reverseOrder())
+        .thenComparing(RequirementCursor::getId);
+
+    private final String createdAt;
+    private final String id;
+
+    public RequirementCursor(String createdAt, String id) {
+        this.createdAt = createdAt != null ? createdAt : "";
+        this.id = Objects.requireNonNull(id, "id");
+    }
+
+    public static RequirementCursor of(RequirementDefinition req) {
+        return new RequirementCursor(req.getCreatedAt(), req.getId());
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 编码为不透明游标
+     */
+    public String encode() {
+        String raw = PREFIX + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，格式非法时抛出IllegalArgumentException
+     */
+    public static RequirementCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        int sep = raw.lastIndexOf(SEPARATOR);
+        if (!raw.startsWith(PREFIX) || sep < PREFIX.length() || sep == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new RequirementCursor(raw.substring(PREFIX.length(), sep), raw.substring(sep + 1));
+    }
+
+    @Override
+    public int compareTo(RequirementCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequirementCursor)) {
+            return false;
+        }
+        RequirementCursor that = (RequirementCursor) o;
+        return createdAt.equals(that.createdAt) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdAt, id);
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + SEPARATOR + id;
+    }
+}
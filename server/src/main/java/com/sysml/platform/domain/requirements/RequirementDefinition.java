@@ -2,13 +2,16 @@ package com.sysml.platform.domain.requirements;
 
 import lombok.Builder;
 import lombok.Data;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
  * 需求定义实体
+ * version每次更新递增，用于乐观并发控制（比较并交换）
+ * toBuilder()复制关系集合，新版本与仓库中的旧版本不共享可变状态
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class RequirementDefinition {
     private String id;
     private String reqId;
@@ -17,12 +20,37 @@ public class RequirementDefinition {
     private RequirementKind kind;
     private RequirementPriority priority;
     private RequirementStatus status;
+    @Builder.ObtainVia(method = "copyDerivedFrom")
     private Set<String> derivedFrom;  // 层次关系
+    @Builder.ObtainVia(method = "copyDerives")
     private Set<String> derives;
+    @Builder.ObtainVia(method = "copyRefines")
     private Set<String> refines;  // 细化关系
+    @Builder.ObtainVia(method = "copyRefinedBy")
     private Set<String> refinedBy;
     private String createdAt;
     private String createdBy;
     private String updatedAt;
     private String updatedBy;
-}
\ No newline at end of file
+    private long version;
+
+    private Set<String> copyDerivedFrom() {
+        return copy(derivedFrom);
+    }
+
+    private Set<String> copyDerives() {
+        return copy(derives);
+    }
+
+    private Set<String> copyRefines() {
+        return copy(refines);
+    }
+
+    private Set<String> copyRefinedBy() {
+        return copy(refinedBy);
+    }
+
+    private static Set<String> copy(Set<String> values) {
+        return values != null ? new HashSet<>(values) : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 需求Relay连接（游标分页结果）
+ */
+@Data
+@Builder
+public class RequirementDefinitionConnection {
+    private List<RequirementDefinitionEdge> edges;
+    private PageInfo pageInfo;
+}
@@ -0,0 +1,14 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 需求Relay边
+ */
+@Data
+@Builder
+public class RequirementDefinitionEdge {
+    private RequirementDefinition node;
+    private String cursor;
+}
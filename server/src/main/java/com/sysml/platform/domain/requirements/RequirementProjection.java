@@ -0,0 +1,28 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 需求查询投影
+ * 由API层按客户端选择集生成，服务层据此跳过未选择字段的计算与复制
+ */
+@Data
+@Builder
+public class RequirementProjection {
+
+    /** 全量投影：返回仓库中的原对象，计算全部统计 */
+    public static final RequirementProjection ALL = RequirementProjection.builder()
+        .text(true)
+        .relations(true)
+        .totals(true)
+        .build();
+
+    private boolean text;       // text字段
+    private boolean relations;  // derivedFrom/derives/refines/refinedBy
+    private boolean totals;     // totalElements/totalPages、hasNextPage/hasPreviousPage
+
+    public boolean isFull() {
+        return text && relations;
+    }
+}
@@ -2,6 +2,8 @@ package com.sysml.platform.domain.requirements;
 
 import org.springframework.stereotype.Service;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.time.LocalDateTime;
 
 /**
@@ -9,16 +11,27 @@ import java.time.LocalDateTime;
  * 职责：需求CRUD、层次管理、查询
  * 不负责：跨域关系、数值计算
  * 
+ * 更新/删除/建立关系都以toBuilder()构建新版本，按需求粒度比较并交换（version）写回，
+ * 不修改仓库中的实例；建立与清理关系在关系图锁内串行，环检测与写入之间关系图不会被他人改变，
+ * 删除后也不会留下指向已删除需求的关系
+ * 
  * @implements RQ-REQ-CRUD-001
  * @implements RQ-REQ-HIERARCHY-003
  */
 @Service
 public class RequirementService {
     
-    private final Map<String, RequirementDefinition> repository = new HashMap<>();
-    private final Set<String> reqIds = new HashSet<>();
-    private final Map<String, Set<String>> deriveRelations = new HashMap<>(); // source -> targets
-    private final Map<String, Set<String>> refineRelations = new HashMap<>(); // abstract -> refined
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    private final Map<String, RequirementDefinition> repository = new ConcurrentHashMap<>();
+    // 有序索引（createdAt倒序），游标翻页直接seek，无需每次排序
+    private final NavigableMap<RequirementCursor, RequirementDefinition> orderedIndex =
+        new ConcurrentSkipListMap<>();
+    private final Map<String, String> reqIdIndex = new ConcurrentHashMap<>(); // reqId -> id
+    private final Map<String, Set<String>> deriveRelations = new ConcurrentHashMap<>(); // source -> targets
+    private final Map<String, Set<String>> refineRelations = new ConcurrentHashMap<>(); // abstract -> refined
+    // 关系写入锁：环检测读取整个derive图，CAS只保护单个需求
+    private final Object relationLock = new Object();
     
     public CreateRequirementPayload createRequirement(CreateRequirementInput input) {
         // 验证必填字段
@@ -32,8 +45,9 @@ public class RequirementService {
                 .build();
         }
         
-        // 检查reqId唯一性
-        if (reqIds.contains(input.getReqId())) {
+        // 检查reqId唯一性：先占位，并发创建同一reqId时只有一个成功
+        String id = UUID.randomUUID().toString();
+        if (input.getReqId() != null && reqIdIndex.putIfAbsent(input.getReqId(), id) != null) {
             return CreateRequirementPayload.builder()
                 .ok(false)
                 .error(Error.builder()
@@ -44,7 +58,6 @@ public class RequirementService {
         }
         
         // 创建需求
-        String id = UUID.randomUUID().toString();
         RequirementDefinition req = RequirementDefinition.builder()
             .id(id)
             .reqId(input.getReqId())
@@ -55,10 +68,12 @@ public class RequirementService {
             .status(RequirementStatus.DRAFT)
             .createdAt(LocalDateTime.now().toString())
             .createdBy("system")
+            .version(1)
             .build();
         
+        // 先写索引再发布到仓库：更新只能在发布之后发生，replace()总能在索引中找到条目并以更高版本覆盖
+        orderedIndex.put(RequirementCursor.of(req), req);
         repository.put(id, req);
-        reqIds.add(input.getReqId());
         
         return CreateRequirementPayload.builder()
             .ok(true)
@@ -66,105 +81,428 @@ public class RequirementService {
             .build();
     }
     
+    /**
+     * 更新需求（乐观并发）
+     * 读取当前版本、构建新版本、以比较并交换写回；被其他写者抢先时重新读取比较。
+     * 指定expectedVersion且与当前版本不一致时返回REQ_VERSION_CONFLICT及当前版本
+     * @implements RQ-REQ-CRUD-001
+     */
+    public UpdateRequirementPayload updateRequirement(String id, UpdateRequirementInput input) {
+        Long expectedVersion = input.getExpectedVersion();
+        while (true) {
+            RequirementDefinition current = findByIdOrReqId(id);
+            if (current == null) {
+                return UpdateRequirementPayload.builder()
+                    .ok(false)
+                    .error(notFoundError())
+                    .build();
+            }
+            if (expectedVersion != null && expectedVersion != current.getVersion()) {
+                return UpdateRequirementPayload.builder()
+                    .ok(false)
+                    .error(versionConflictError(List.of("input", "expectedVersion")))
+                    .requirement(current)
+                    .build();
+            }
+            
+            RequirementDefinition.RequirementDefinitionBuilder next = nextVersion(current);
+            if (input.getName() != null) {
+                next.name(input.getName());
+            }
+            if (input.getText() != null) {
+                next.text(input.getText());
+            }
+            if (input.getPriority() != null) {
+                next.priority(input.getPriority());
+            }
+            if (input.getStatus() != null) {
+                next.status(input.getStatus());
+            }
+            RequirementDefinition updated = next.build();
+            
+            if (replace(current, updated)) {
+                return UpdateRequirementPayload.builder()
+                    .ok(true)
+                    .requirement(updated)
+                    .build();
+            }
+        }
+    }
+    
+    /**
+     * 删除需求（乐观并发）
+     * 删除成功后移除双向关系：关系表中的条目，以及其他需求derivedFrom/refines中的引用（生成新版本）
+     * @implements RQ-REQ-CRUD-001
+     */
+    public DeleteRequirementPayload deleteRequirement(String id, Long expectedVersion) {
+        while (true) {
+            RequirementDefinition current = findByIdOrReqId(id);
+            if (current == null) {
+                return DeleteRequirementPayload.builder()
+                    .ok(false)
+                    .error(notFoundError())
+                    .build();
+            }
+            if (expectedVersion != null && expectedVersion != current.getVersion()) {
+                return DeleteRequirementPayload.builder()
+                    .ok(false)
+                    .error(versionConflictError(List.of("expectedVersion")))
+                    .build();
+            }
+            if (repository.remove(current.getId(), current)) {
+                orderedIndex.remove(RequirementCursor.of(current));
+                if (current.getReqId() != null) {
+                    reqIdIndex.remove(current.getReqId(), current.getId());
+                }
+                synchronized (relationLock) {
+                    removeRelations(current.getId());
+                }
+                return DeleteRequirementPayload.builder()
+                    .ok(true)
+                    .build();
+            }
+        }
+    }
+    
+    /**
+     * 移除已删除需求的出边与入边；在关系图锁内调用，之后建立的关系会发现该需求不存在
+     */
+    private void removeRelations(String removedId) {
+        deriveRelations.remove(removedId);
+        refineRelations.remove(removedId);
+        Set<String> holders = new HashSet<>();
+        deriveRelations.forEach((source, targets) -> {
+            if (targets.remove(removedId)) {
+                holders.add(source);
+            }
+        });
+        refineRelations.forEach((abstractId, refined) -> {
+            if (refined.remove(removedId)) {
+                holders.add(abstractId);
+            }
+        });
+        for (String holder : holders) {
+            detach(holder, removedId);
+        }
+    }
+    
+    /**
+     * 以新版本从需求的derivedFrom/refines中去掉引用，被其他写者抢先时重新读取
+     */
+    private void detach(String id, String removedId) {
+        while (true) {
+            RequirementDefinition current = repository.get(id);
+            if (current == null
+                    || !(contains(current.getDerivedFrom(), removedId) || contains(current.getRefines(), removedId))) {
+                return;
+            }
+            RequirementDefinition next = nextVersion(current)
+                .derivedFrom(without(current.getDerivedFrom(), removedId))
+                .refines(without(current.getRefines(), removedId))
+                .build();
+            if (replace(current, next)) {
+                return;
+            }
+        }
+    }
+    
+    private static RequirementDefinition.RequirementDefinitionBuilder nextVersion(RequirementDefinition current) {
+        return current.toBuilder()
+            .version(current.getVersion() + 1)
+            .updatedAt(LocalDateTime.now().toString())
+            .updatedBy("system");
+    }
+    
+    /**
+     * 比较并交换写回新版本，成功后同步有序索引
+     */
+    private boolean replace(RequirementDefinition current, RequirementDefinition next) {
+        if (!repository.replace(current.getId(), current, next)) {
+            return false;
+        }
+        // 只允许更高版本覆盖索引条目；已删除的条目不会被重新插入
+        orderedIndex.computeIfPresent(RequirementCursor.of(next),
+            (cursor, indexed) -> next.getVersion() > indexed.getVersion() ? next : indexed);
+        return true;
+    }
+    
+    /**
+     * 按id查找，兼容以reqId引用需求的客户端
+     */
+    private RequirementDefinition findByIdOrReqId(String id) {
+        RequirementDefinition req = repository.get(id);
+        if (req != null) {
+            return req;
+        }
+        String mapped = reqIdIndex.get(id);
+        return mapped != null ? repository.get(mapped) : null;
+    }
+    
+    private Error notFoundError() {
+        return Error.builder()
+            .code("REQ_NOT_FOUND")
+            .messageKey("error.req.notfound")
+            .build();
+    }
+    
+    private Error versionConflictError(List<String> path) {
+        return Error.builder()
+            .code("REQ_VERSION_CONFLICT")
+            .messageKey("error.req.version.conflict")
+            .path(path)
+            .build();
+    }
+    
     /**
      * 建立derive关系（派生）
      * @implements RQ-REQ-HIERARCHY-003
      */
     public DeriveRequirementPayload deriveRequirement(String sourceId, String targetId) {
-        // 检查需求是否存在
-        RequirementDefinition source = repository.get(sourceId);
-        RequirementDefinition target = repository.get(targetId);
-        
-        if (source == null || target == null) {
-            return DeriveRequirementPayload.builder()
-                .ok(false)
-                .error(Error.builder()
-                    .code("REQ_NOT_FOUND")
-                    .messageKey("error.req.notfound")
-                    .build())
-                .build();
+        synchronized (relationLock) {
+            return derive(sourceId, targetId);
         }
-        
-        // 检测是否会形成环
-        if (wouldCreateCycle(sourceId, targetId)) {
-            return DeriveRequirementPayload.builder()
-                .ok(false)
-                .error(Error.builder()
-                    .code("REQ_CYCLE_DETECTED")
-                    .messageKey("error.req.cycle")
-                    .build())
+    }
+    
+    private DeriveRequirementPayload derive(String sourceId, String targetId) {
+        while (true) {
+            // 检查需求是否存在
+            RequirementDefinition source = repository.get(sourceId);
+            RequirementDefinition target = repository.get(targetId);
+            
+            if (source == null || target == null) {
+                return DeriveRequirementPayload.builder()
+                    .ok(false)
+                    .error(Error.builder()
+                        .code("REQ_NOT_FOUND")
+                        .messageKey("error.req.notfound")
+                        .build())
+                    .build();
+            }
+            
+            // 检测是否会形成环
+            if (wouldCreateCycle(sourceId, targetId)) {
+                return DeriveRequirementPayload.builder()
+                    .ok(false)
+                    .error(Error.builder()
+                        .code("REQ_CYCLE_DETECTED")
+                        .messageKey("error.req.cycle")
+                        .build())
+                    .build();
+            }
+            
+            // 新版本中记录关系，被其他写者抢先时重新读取
+            RequirementDefinition next = nextVersion(source)
+                .derivedFrom(with(source.getDerivedFrom(), targetId))
                 .build();
+            if (replace(source, next)) {
+                deriveRelations.computeIfAbsent(sourceId, k -> ConcurrentHashMap.newKeySet()).add(targetId);
+                return DeriveRequirementPayload.builder()
+                    .ok(true)
+                    .source(next)
+                    .target(target)
+                    .build();
+            }
         }
-        
-        // 建立关系
-        deriveRelations.computeIfAbsent(sourceId, k -> new HashSet<>()).add(targetId);
-        
-        // 更新需求对象中的关系
-        Set<String> derivedFrom = source.getDerivedFrom();
-        if (derivedFrom == null) {
-            derivedFrom = new HashSet<>();
-            source.setDerivedFrom(derivedFrom);
+    }
+    
+    private static Set<String> with(Set<String> values, String value) {
+        Set<String> result = values != null ? new HashSet<>(values) : new HashSet<>();
+        result.add(value);
+        return result;
+    }
+    
+    private static Set<String> without(Set<String> values, String value) {
+        if (!contains(values, value)) {
+            return values;
         }
-        derivedFrom.add(targetId);
-        
-        return DeriveRequirementPayload.builder()
-            .ok(true)
-            .source(source)
-            .target(target)
-            .build();
+        Set<String> result = new HashSet<>(values);
+        result.remove(value);
+        return result;
+    }
+    
+    private static boolean contains(Set<String> values, String value) {
+        return values != null && values.contains(value);
     }
     
     /**
-     * 查询需求
+     * 查询需求（page/size偏移分页，保留给既有客户端）
      * @implements RQ-REQ-QUERY-004
      */
     public QueryRequirementsPayload queryRequirements(QueryRequirementsInput input) {
-        // 使用索引优化查询
-        List<RequirementDefinition> filtered = new ArrayList<>();
-        String keyword = input.getKeyword();
-        
-        // 如果有关键字，执行过滤
-        if (keyword != null && !keyword.isEmpty()) {
-            String lowerKeyword = keyword.toLowerCase();
-            for (RequirementDefinition req : repository.values()) {
-                if (matchesKeyword(req, lowerKeyword)) {
-                    filtered.add(req);
-                }
-            }
-        } else {
-            // 没有关键字，返回所有
-            filtered.addAll(repository.values());
-        }
-        
-        // 排序
-        filtered.sort((a, b) -> {
-            if (a.getCreatedAt() != null && b.getCreatedAt() != null) {
-                return b.getCreatedAt().compareTo(a.getCreatedAt()); // 按创建时间倒序
-            }
-            return 0;
-        });
-        
-        // 分页
+        return queryRequirements(input, RequirementProjection.ALL);
+    }
+    
+    /**
+     * 按投影查询需求：未选择统计时页满即停，未选择的字段不复制
+     * @implements RQ-REQ-QUERY-004
+     */
+    public QueryRequirementsPayload queryRequirements(QueryRequirementsInput input, RequirementProjection projection) {
+        String keyword = normalizeKeyword(input.getKeyword());
         int page = input.getPage() != null ? input.getPage() : 0;
-        int size = input.getSize() != null ? input.getSize() : 20;
+        int size = input.getSize() != null ? input.getSize() : DEFAULT_PAGE_SIZE;
         int start = page * size;
-        int end = Math.min(start + size, filtered.size());
         
+        // 有序索引已按createdAt倒序排列，顺序遍历即可，无需排序
         List<RequirementDefinition> content = new ArrayList<>();
-        if (start < filtered.size()) {
-            content = filtered.subList(start, end);
+        int total = 0;
+        for (RequirementDefinition req : orderedIndex.values()) {
+            if (keyword != null && !matchesKeyword(req, keyword)) {
+                continue;
+            }
+            if (total >= start && content.size() < size) {
+                content.add(project(req, projection));
+            }
+            total++;
+            if (content.size() == size) {
+                if (keyword == null) {
+                    // 无关键字时总数即仓库大小，可提前结束
+                    total = orderedIndex.size();
+                    break;
+                }
+                if (!projection.isTotals()) {
+                    // 未选择统计字段，无需扫描剩余匹配项
+                    break;
+                }
+            }
         }
         
-        return QueryRequirementsPayload.builder()
+        QueryRequirementsPayload.QueryRequirementsPayloadBuilder payload = QueryRequirementsPayload.builder()
             .ok(true)
             .content(content)
-            .totalElements(filtered.size())
-            .totalPages((filtered.size() + size - 1) / size)
             .pageNumber(page)
-            .pageSize(size)
+            .pageSize(size);
+        if (projection.isTotals()) {
+            payload.totalElements(total)
+                .totalPages((total + size - 1) / size);
+        }
+        return payload.build();
+    }
+    
+    /**
+     * 游标分页查询需求（Relay Connection）
+     * 在有序索引上按游标seek，翻页代价与页号无关，并发插入不会使行在页间漂移
+     * @implements RQ-REQ-QUERY-004
+     */
+    public RequirementDefinitionConnection queryRequirementConnection(QueryRequirementConnectionInput input) {
+        return queryRequirementConnection(input, RequirementProjection.ALL);
+    }
+    
+    /**
+     * 按投影游标分页：未选择翻页标记时不做多取一条与反向探测
+     * @implements RQ-REQ-QUERY-004
+     */
+    public RequirementDefinitionConnection queryRequirementConnection(QueryRequirementConnectionInput input,
+                                                                      RequirementProjection projection) {
+        String keyword = normalizeKeyword(input.getKeyword());
+        Integer first = input.getFirst();
+        Integer last = input.getLast();
+        if ((first != null && first < 0) || (last != null && last < 0)) {
+            throw new IllegalArgumentException("first/last must be non-negative");
+        }
+        
+        NavigableMap<RequirementCursor, RequirementDefinition> range = orderedIndex;
+        RequirementCursor after = input.getAfter() != null ? RequirementCursor.decode(input.getAfter()) : null;
+        RequirementCursor before = input.getBefore() != null ? RequirementCursor.decode(input.getBefore()) : null;
+        if (after != null) {
+            range = range.tailMap(after, false);
+        }
+        if (before != null) {
+            range = range.headMap(before, false);
+        }
+        
+        boolean backward = last != null && first == null;
+        int limit = backward ? last : (first != null ? first : DEFAULT_PAGE_SIZE);
+        
+        // 多取一条用于判断是否还有下一页/上一页
+        boolean probe = projection.isTotals();
+        List<RequirementDefinition> nodes = collect(
+            backward ? range.descendingMap() : range, keyword, probe ? limit + 1 : limit);
+        boolean hasMore = nodes.size() > limit;
+        if (hasMore) {
+            nodes = nodes.subList(0, limit);
+        }
+        if (backward) {
+            Collections.reverse(nodes);
+        }
+        
+        List<RequirementDefinitionEdge> edges = new ArrayList<>(nodes.size());
+        for (RequirementDefinition node : nodes) {
+            edges.add(RequirementDefinitionEdge.builder()
+                .node(project(node, projection))
+                .cursor(RequirementCursor.of(node).encode())
+                .build());
+        }
+        
+        boolean hasNextPage = probe && (backward
+            ? before != null && !collect(orderedIndex.tailMap(before, true), keyword, 1).isEmpty()
+            : hasMore);
+        boolean hasPreviousPage = probe && (backward
+            ? hasMore
+            : after != null && !collect(orderedIndex.headMap(after, true).descendingMap(), keyword, 1).isEmpty());
+        
+        return RequirementDefinitionConnection.builder()
+            .edges(edges)
+            .pageInfo(PageInfo.builder()
+                .hasNextPage(hasNextPage)
+                .hasPreviousPage(hasPreviousPage)
+                .startCursor(edges.isEmpty() ? null : edges.get(0).getCursor())
+                .endCursor(edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor())
+                .build())
             .build();
     }
     
+    private List<RequirementDefinition> collect(
+            NavigableMap<RequirementCursor, RequirementDefinition> range, String keyword, int limit) {
+        List<RequirementDefinition> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        for (RequirementDefinition req : range.values()) {
+            if (keyword == null || matchesKeyword(req, keyword)) {
+                result.add(req);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 按投影构建返回视图；全量投影直接返回仓库对象
+     */
+    private RequirementDefinition project(RequirementDefinition req, RequirementProjection projection) {
+        if (projection.isFull()) {
+            return req;
+        }
+        RequirementDefinition.RequirementDefinitionBuilder view = RequirementDefinition.builder()
+            .id(req.getId())
+            .reqId(req.getReqId())
+            .name(req.getName())
+            .kind(req.getKind())
+            .priority(req.getPriority())
+            .status(req.getStatus())
+            .createdAt(req.getCreatedAt())
+            .createdBy(req.getCreatedBy())
+            .updatedAt(req.getUpdatedAt())
+            .updatedBy(req.getUpdatedBy())
+            .version(req.getVersion());
+        if (projection.isText()) {
+            view.text(req.getText());
+        }
+        if (projection.isRelations()) {
+            view.derivedFrom(req.getDerivedFrom())
+                .derives(req.getDerives())
+                .refines(req.getRefines())
+                .refinedBy(req.getRefinedBy());
+        }
+        return view.build();
+    }
+    
+    private String normalizeKeyword(String keyword) {
+        return keyword != null && !keyword.isEmpty() ? keyword.toLowerCase() : null;
+    }
+    
     private boolean matchesKeyword(RequirementDefinition req, String keyword) {
         // 在多个字段中搜索
         if (req.getName() != null && req.getName().toLowerCase().contains(keyword)) {
@@ -184,36 +522,40 @@ public class RequirementService {
      * @implements RQ-REQ-RELATION-005
      */
     public RefineRequirementPayload refineRequirement(String abstractId, String refinedId) {
-        // 检查需求是否存在
-        RequirementDefinition abstract_ = repository.get(abstractId);
-        RequirementDefinition refined = repository.get(refinedId);
-        
-        if (abstract_ == null || refined == null) {
-            return RefineRequirementPayload.builder()
-                .ok(false)
-                .error(Error.builder()
-                    .code("REQ_NOT_FOUND")
-                    .messageKey("error.req.notfound")
-                    .build())
-                .build();
+        synchronized (relationLock) {
+            return refine(abstractId, refinedId);
         }
-        
-        // 建立refine关系
-        refineRelations.computeIfAbsent(abstractId, k -> new HashSet<>()).add(refinedId);
-        
-        // 更新需求对象中的关系
-        Set<String> refines = abstract_.getRefines();
-        if (refines == null) {
-            refines = new HashSet<>();
-            abstract_.setRefines(refines);
+    }
+    
+    private RefineRequirementPayload refine(String abstractId, String refinedId) {
+        while (true) {
+            // 检查需求是否存在
+            RequirementDefinition abstract_ = repository.get(abstractId);
+            RequirementDefinition refined = repository.get(refinedId);
+            
+            if (abstract_ == null || refined == null) {
+                return RefineRequirementPayload.builder()
+                    .ok(false)
+                    .error(Error.builder()
+                        .code("REQ_NOT_FOUND")
+                        .messageKey("error.req.notfound")
+                        .build())
+                    .build();
+            }
+            
+            // 新版本中记录关系，被其他写者抢先时重新读取
+            RequirementDefinition next = nextVersion(abstract_)
+                .refines(with(abstract_.getRefines(), refinedId))
+                .build();
+            if (replace(abstract_, next)) {
+                refineRelations.computeIfAbsent(abstractId, k -> ConcurrentHashMap.newKeySet()).add(refinedId);
+                return RefineRequirementPayload.builder()
+                    .ok(true)
+                    .source(next)
+                    .target(refined)
+                    .build();
+            }
         }
-        refines.add(refinedId);
-        
-        return RefineRequirementPayload.builder()
-            .ok(true)
-            .source(abstract_)
-            .target(refined)
-            .build();
     }
     
     /**
@@ -240,8 +582,8 @@ public class RequirementService {
         return RequirementRelationsPayload.builder()
             .ok(true)
             .requirementId(requirementId)
-            .derives(derives != null ? derives : new HashSet<>())
-            .refines(refines != null ? refines : new HashSet<>())
+            .derives(derives != null ? new HashSet<>(derives) : new HashSet<>())
+            .refines(refines != null ? new HashSet<>(refines) : new HashSet<>())
             .build();
     }
     
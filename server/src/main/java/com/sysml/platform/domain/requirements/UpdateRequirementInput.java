@@ -2,12 +2,14 @@ package com.sysml.platform.domain.requirements;
 
 /**
  * 更新需求输入
+ * expectedVersion为空时无条件更新，否则与当前版本不一致即返回冲突
  */
 public class UpdateRequirementInput {
     private String name;
     private String text;
     private RequirementPriority priority;
     private RequirementStatus status;
+    private Long expectedVersion;
     
     public String getName() {
         return name;
@@ -40,4 +42,12 @@ public class UpdateRequirementInput {
     public void setStatus(RequirementStatus status) {
         this.status = status;
     }
+    
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+    
+    public void setExpectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.sysml.platform.domain.requirements;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 更新需求返回载荷
+ * 版本冲突时requirement为当前最新版本，供客户端合并后重试
+ */
+@Data
+@Builder
+public class UpdateRequirementPayload {
+    private boolean ok;
+    private Error error;
+    private RequirementDefinition requirement;
+}
@@ -0,0 +1,53 @@
+package com.sysml.platform.infrastructure.cdo;
+
+/**
+ * 属性级差异
+ * 记录事务中一个属性相对已提交状态的设置或删除，以及修改前后的值
+ */
+public final class AttributeDelta {
+
+    public enum Kind { SET, UNSET }
+
+    private final String name;
+    private final Kind kind;
+    private final Object oldValue;
+    private final Object newValue;
+
+    private AttributeDelta(String name, Kind kind, Object oldValue, Object newValue) {
+        this.name = name;
+        this.kind = kind;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    static AttributeDelta set(String name, Object oldValue, Object newValue) {
+        return new AttributeDelta(name, Kind.SET, oldValue, newValue);
+    }
+
+    static AttributeDelta unset(String name, Object oldValue) {
+        return new AttributeDelta(name, Kind.UNSET, oldValue, null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.SET
+            ? name + ": " + oldValue + " -> " + newValue
+            : name + ": " + oldValue + " -> (unset)";
+    }
+}
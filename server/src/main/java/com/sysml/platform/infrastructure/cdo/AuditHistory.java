@@ -0,0 +1,236 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源审计历史
+ * 实现RQ-INFRA-TX-002: 审计历史与时间点读取
+ *
+ * - 每个路径按版本升序保存提交记录：差异层直接复用已提交版本的差异（不复制），完整状态为关键帧，删除为墓碑
+ * - 距上一个关键帧每keyframeInterval条记录强制写入一个关键帧，读取时的差异链长度有上界
+ * - 按版本读取：二分查找不超过该版本的记录，再从最近的关键帧起应用差异，O(log n + 链长)
+ * - 按时间读取：提交时间索引定位该时刻已提交的最大版本，再按版本读取
+ * - 后台压缩按保留时间与每路径最大记录数裁剪，保留窗口起点的状态物化为关键帧；全部过期的墓碑整体移除
+ * - 历史只在内存中，从启动后的提交开始记录
+ */
+final class AuditHistory implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditHistory.class);
+
+    private final int keyframeInterval;
+    private final long retentionMillis;
+    private final int maxVersions;
+    private final Map<String, PathHistory> histories = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Long> commitTimes = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * @param compactionIntervalMillis 后台压缩周期，0表示不启动后台压缩（由调用方调用compact）
+     */
+    AuditHistory(int keyframeInterval, long retentionMillis, int maxVersions, long compactionIntervalMillis) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.retentionMillis = retentionMillis;
+        this.maxVersions = Math.max(1, maxVersions);
+        if (compactionIntervalMillis > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "cdo-audit-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    /**
+     * 记录一次提交：writes中值为已提交状态，null表示删除。调用方保证按版本顺序调用
+     */
+    void record(long version, long timestamp, Map<String, CDOResource> writes) {
+        writes.forEach((path, state) ->
+            histories.computeIfAbsent(path, p -> new PathHistory()).append(version, timestamp, state, keyframeInterval));
+        commitTimes.put(timestamp, version);
+    }
+
+    /**
+     * 版本提交后路径的完整属性；不存在、已删除或早于保留窗口时返回null
+     */
+    Map<String, Object> attributesAt(String path, long version) {
+        PathHistory history = histories.get(path);
+        return history == null ? null : history.attributesAt(version);
+    }
+
+    /**
+     * 时间点已提交的最大版本；早于记录起点时返回-1
+     */
+    long versionAt(long timestamp) {
+        Map.Entry<Long, Long> entry = commitTimes.floorEntry(timestamp);
+        return entry == null ? -1 : entry.getValue();
+    }
+
+    /**
+     * 全部路径的记录数
+     */
+    long size() {
+        long size = 0;
+        for (PathHistory history : histories.values()) {
+            size += history.size();
+        }
+        return size;
+    }
+
+    /**
+     * 按保留策略裁剪，now为当前时间
+     */
+    void compact(long now) {
+        long cutoff = now - retentionMillis;
+        histories.entrySet().removeIf(entry -> entry.getValue().compact(cutoff, maxVersions));
+        // 保留窗口起点所在的提交时间，按时间读取窗口起点时仍能定位
+        Long floor = commitTimes.floorKey(cutoff);
+        if (floor != null) {
+            commitTimes.headMap(floor, false).clear();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Audit history compaction failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+
+    /**
+     * 单个路径的记录，数组按版本升序；追加、读取与压缩在本对象上同步
+     */
+    private static final class PathHistory {
+        private long[] versions = new long[4];
+        private long[] timestamps = new long[4];
+        private Map<String, Object>[] states = newStates(4);
+        private boolean[] keyframes = new boolean[4];
+        private int size;
+        private int sinceKeyframe;
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object>[] newStates(int capacity) {
+            return (Map<String, Object>[]) new Map<?, ?>[capacity];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void append(long version, long timestamp, CDOResource state, int keyframeInterval) {
+            if (size == versions.length) {
+                int capacity = size * 2;
+                versions = Arrays.copyOf(versions, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                states = Arrays.copyOf(states, capacity);
+                keyframes = Arrays.copyOf(keyframes, capacity);
+            }
+            boolean keyframe;
+            Map<String, Object> attributes;
+            if (state == null) {
+                keyframe = true;
+                attributes = null;
+            } else if (!state.isOverlay()) {
+                keyframe = true;
+                attributes = state.localAttributes();
+            } else if (sinceKeyframe + 1 >= keyframeInterval || size == 0) {
+                keyframe = true;
+                attributes = state.flattened().localAttributes();
+            } else {
+                keyframe = false;
+                attributes = state.localAttributes();
+            }
+            versions[size] = version;
+            timestamps[size] = timestamp;
+            states[size] = attributes;
+            keyframes[size] = keyframe;
+            size++;
+            sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+        }
+
+        synchronized Map<String, Object> attributesAt(long version) {
+            int index = floorIndex(version);
+            return index < 0 ? null : materialize(index);
+        }
+
+        /**
+         * 裁剪早于cutoff的记录与超出maxVersions的记录；返回true表示整个历史可以移除
+         */
+        synchronized boolean compact(long cutoff, int maxVersions) {
+            int firstRetained = 0;
+            while (firstRetained < size && timestamps[firstRetained] < cutoff) {
+                firstRetained++;
+            }
+            // 窗口起点时的状态由其前一条记录决定
+            int start = Math.max(0, firstRetained - 1);
+            start = Math.max(start, size - maxVersions);
+            if (start < size && firstRetained == size && states[size - 1] == null) {
+                return true;
+            }
+            if (start == 0) {
+                return false;
+            }
+            Map<String, Object> base = materialize(start);
+            int remaining = size - start;
+            System.arraycopy(versions, start, versions, 0, remaining);
+            System.arraycopy(timestamps, start, timestamps, 0, remaining);
+            System.arraycopy(states, start, states, 0, remaining);
+            System.arraycopy(keyframes, start, keyframes, 0, remaining);
+            Arrays.fill(states, remaining, size, null);
+            states[0] = base;
+            keyframes[0] = true;
+            size = remaining;
+            return false;
+        }
+
+        private int floorIndex(long version) {
+            int index = Arrays.binarySearch(versions, 0, size, version);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        /**
+         * 从最近的关键帧起应用差异得到完整属性；墓碑返回null
+         */
+        private Map<String, Object> materialize(int index) {
+            if (states[index] == null) {
+                return null;
+            }
+            int keyframe = index;
+            while (!keyframes[keyframe]) {
+                keyframe--;
+            }
+            Map<String, Object> attributes = new HashMap<>(states[keyframe]);
+            for (int i = keyframe + 1; i <= index; i++) {
+                states[i].forEach((name, value) -> {
+                    if (CDOResource.isUnset(value)) {
+                        attributes.remove(name);
+                    } else {
+                        attributes.put(name, value);
+                    }
+                });
+            }
+            return attributes;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * CDO分支
+ * 实现RQ-INFRA-TX-002: 写时复制分支
+ *
+ * 分支是一个独立的事务管理器：创建时固定父仓库的当前版本为基础（O(1)，不复制资源），
+ * 分支内的提交只写入分支自己的版本链，其中的差异层直接叠加在父仓库的共享状态之上；
+ * 分支中没有记录的路径回落读取父仓库的基础版本。分支可以再创建子分支。
+ *
+ * 合并以基础版本为快照在父仓库上提交分支的全部变更：每个路径合并为相对父仓库基础状态的单层差异，
+ * 基础版本之后父仓库也修改过或被事务锁定的路径为冲突，整个合并失败并列出冲突路径。
+ * 合并成功后分支关闭；合并失败时分支保持打开，可以继续修改后重新合并或直接关闭。
+ * 分支只在内存中，关闭后释放对父仓库基础版本的固定
+ */
+public class CDOBranch extends CDOTransactionManager {
+
+    private final String name;
+    private volatile boolean closed;
+
+    CDOBranch(String name, CDOTransactionManager parent, long baseVersion) {
+        super(parent, baseVersion);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 将分支的变更合并回父仓库，成功后关闭分支；失败（冲突或日志写入失败）时分支保持打开
+     *
+     * @return 父仓库上的提交结果；分支没有变更时版本号为-1
+     * @throws CommitConflictException 基础版本之后父仓库也修改了分支变更的路径
+     * @throws IllegalStateException 父仓库的提交日志写入失败
+     */
+    public synchronized CommitInfo merge() {
+        checkOpen();
+        CDOTransactionManager parent = getParent();
+        long base = getBaseVersion();
+        Map<String, CDOResource> writes = new LinkedHashMap<>();
+        localChanges().forEach((path, state) -> {
+            CDOResource parentState = parent.readResource(path, base);
+            if (state == null) {
+                if (parentState != null) {
+                    writes.put(path, null);
+                }
+            } else {
+                writes.put(path, state.diffAgainst(parentState));
+            }
+        });
+        parent.checkLockConflicts(null, writes.keySet());
+        CommitInfo info;
+        try {
+            info = writes.isEmpty() ? CommitInfo.empty(base) : parent.commitAsync(base, writes).join();
+        } catch (CompletionException e) {
+            // 落盘失败时future以日志的原始异常完成
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Commit log failed", cause);
+        }
+        close();
+        return info;
+    }
+
+    /**
+     * 丢弃分支并释放父仓库的基础版本；重复调用无操作
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            getParent().unpinSnapshot(getBaseVersion());
+        }
+    }
+
+    @Override
+    CDOResource readResource(String path, long snapshotVersion) {
+        checkOpen();
+        return super.readResource(path, snapshotVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "CDOBranch[" + name + "@" + getBaseVersion() + "]";
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Branch is closed: " + name);
+        }
+    }
+}
@@ -1,17 +1,68 @@
 package com.sysml.platform.infrastructure.cdo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.stereotype.Component;
 
-/** CDO健康检查指示器 实现RQ-INFRA-CDO-001: CDO健康与配置 */
+/**
+ * CDO健康检查指示器 实现RQ-INFRA-CDO-001: CDO健康与配置
+ *
+ * <p>提交日志失败或已关闭时为DOWN；最近提交的p99延迟超过cdo.health.commit-latency-slo时为DEGRADED
+ * （样本少于cdo.health.min-samples时不判断）；否则为UP
+ */
 @Component("cdo")
 public class CDOHealthIndicator implements HealthIndicator {
 
+  static final Status DEGRADED = new Status("DEGRADED", "Recent commit latency exceeds the SLO");
+
+  private final CDOTransactionManager transactionManager;
+  private final String repository;
+  private final String mode;
+  private final long commitLatencySloMillis;
+  private final int minSamples;
+
+  public CDOHealthIndicator(
+      CDOTransactionManager transactionManager,
+      @Value("${cdo.repository.uuid:sysml-repo}") String repository,
+      @Value("${cdo.lean.no-audits:true}") boolean noAudits,
+      @Value("${cdo.lean.no-branches:true}") boolean noBranches,
+      @Value("${cdo.lean.no-locks:true}") boolean noLocks,
+      @Value("${cdo.health.commit-latency-slo:500}") long commitLatencySloMillis,
+      @Value("${cdo.health.min-samples:20}") int minSamples) {
+    this.transactionManager = transactionManager;
+    this.repository = repository;
+    this.mode = noAudits && noBranches && noLocks ? "lean" : "standard";
+    this.commitLatencySloMillis = commitLatencySloMillis;
+    this.minSamples = minSamples;
+  }
+
   @Override
   public Health health() {
-    // TODO: 实际检查CDO连接状态
-    // 现在先返回UP状态
-    return Health.up().withDetail("repository", "sysml-repo").withDetail("mode", "lean").build();
+    CDOMetrics metrics = transactionManager.metrics();
+    double p99 = metrics.recentLatencyMillis(0.99);
+    int samples = metrics.recentCommits();
+    Throwable failure = transactionManager.getStoreFailure();
+
+    Health.Builder builder;
+    if (failure != null) {
+      builder = Health.down().withDetail("error", String.valueOf(failure.getMessage()));
+    } else if (samples >= minSamples && p99 > commitLatencySloMillis) {
+      builder = Health.status(DEGRADED);
+    } else {
+      builder = Health.up();
+    }
+    return builder
+        .withDetail("repository", repository)
+        .withDetail("mode", mode)
+        .withDetail("persistent", transactionManager.isPersistent())
+        .withDetail("committedVersion", transactionManager.getCommittedVersion())
+        .withDetail("resources", transactionManager.getStoredPathCount())
+        .withDetail("activeTransactions", transactionManager.getActiveTransactionCount())
+        .withDetail("recentCommits", samples)
+        .withDetail("commitLatencyP99Ms", p99)
+        .withDetail("commitLatencySloMs", commitLatencySloMillis)
+        .build();
   }
 }
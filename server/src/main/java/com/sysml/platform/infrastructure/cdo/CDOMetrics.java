@@ -0,0 +1,196 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CDO事务与存储指标
+ * 实现RQ-INFRA-CDO-001: CDO健康与配置
+ *
+ * - 计数：事务开始、提交、回滚、超时，提交冲突，路径锁超时与死锁
+ * - 分阶段提交延迟直方图（validate校验序列化、sequence冲突检测与定序、durable落盘发布、total）
+ * - 每次提交写入的资源数，活跃事务数、存储资源数与已提交版本
+ * - 启用资源缓存时：常驻权重、常驻与已淘汰的路径数、淘汰次数
+ * - 最近RECENT_WINDOW次提交的总延迟环形缓冲，供健康检查按SLO判断
+ */
+final class CDOMetrics {
+
+    static final String TRANSACTIONS_BEGUN = "cdo.transactions.begun";
+    static final String TRANSACTIONS_COMMITTED = "cdo.transactions.committed";
+    static final String TRANSACTIONS_ROLLED_BACK = "cdo.transactions.rolledback";
+    static final String TRANSACTIONS_TIMEOUTS = "cdo.transactions.timeouts";
+    static final String TRANSACTIONS_ACTIVE = "cdo.transactions.active";
+    static final String COMMIT_CONFLICTS = "cdo.commit.conflicts";
+    static final String LOCK_TIMEOUTS = "cdo.locks.timeouts";
+    static final String LOCK_DEADLOCKS = "cdo.locks.deadlocks";
+    static final String COMMIT_LATENCY = "cdo.commit.latency";
+    static final String COMMIT_RESOURCES = "cdo.commit.resources";
+    static final String STORE_RESOURCES = "cdo.store.resources";
+    static final String STORE_VERSION = "cdo.store.version";
+    static final String CACHE_WEIGHT = "cdo.cache.weight";
+    static final String CACHE_RESIDENT = "cdo.cache.resident";
+    static final String CACHE_SPILLED = "cdo.cache.spilled";
+    static final String CACHE_EVICTIONS = "cdo.cache.evictions";
+
+    private static final int RECENT_WINDOW = 128;
+
+    private final Counter begun;
+    private final Counter committed;
+    private final Counter rolledBack;
+    private final Counter timeouts;
+    private final Counter conflicts;
+    private final Counter lockTimeouts;
+    private final Counter lockDeadlocks;
+    private final Timer validateLatency;
+    private final Timer sequenceLatency;
+    private final Timer durableLatency;
+    private final Timer totalLatency;
+    private final DistributionSummary resourcesPerCommit;
+    private final long[] recentNanos = new long[RECENT_WINDOW];
+    private long recentCount;
+
+    CDOMetrics(MeterRegistry registry, CDOTransactionManager manager) {
+        this.begun = Counter.builder(TRANSACTIONS_BEGUN)
+            .description("Transactions started")
+            .register(registry);
+        this.committed = Counter.builder(TRANSACTIONS_COMMITTED)
+            .description("Transactions committed")
+            .register(registry);
+        this.rolledBack = Counter.builder(TRANSACTIONS_ROLLED_BACK)
+            .description("Transactions rolled back explicitly")
+            .register(registry);
+        this.timeouts = Counter.builder(TRANSACTIONS_TIMEOUTS)
+            .description("Transactions rolled back after exceeding their timeout")
+            .register(registry);
+        this.conflicts = Counter.builder(COMMIT_CONFLICTS)
+            .description("Commits rejected by write-write conflicts")
+            .register(registry);
+        this.lockTimeouts = Counter.builder(LOCK_TIMEOUTS)
+            .description("Path lock requests that timed out")
+            .register(registry);
+        this.lockDeadlocks = Counter.builder(LOCK_DEADLOCKS)
+            .description("Path lock requests rejected as deadlock victims")
+            .register(registry);
+        this.validateLatency = stageTimer(registry, "validate");
+        this.sequenceLatency = stageTimer(registry, "sequence");
+        this.durableLatency = stageTimer(registry, "durable");
+        this.totalLatency = stageTimer(registry, "total");
+        this.resourcesPerCommit = DistributionSummary.builder(COMMIT_RESOURCES)
+            .description("Resources created, modified or deleted per commit")
+            .register(registry);
+        Gauge.builder(TRANSACTIONS_ACTIVE, manager, CDOTransactionManager::getActiveTransactionCount)
+            .description("Transactions holding a snapshot")
+            .register(registry);
+        Gauge.builder(STORE_RESOURCES, manager, CDOTransactionManager::getStoredPathCount)
+            .description("Paths in the store, including deletions still visible to snapshots")
+            .register(registry);
+        Gauge.builder(STORE_VERSION, manager, CDOTransactionManager::getCommittedVersion)
+            .description("Latest published commit version")
+            .register(registry);
+        if (manager.isCacheEnabled()) {
+            Gauge.builder(CACHE_WEIGHT, manager, CDOTransactionManager::getCacheWeight)
+                .description("Estimated bytes of committed resource state held on heap")
+                .baseUnit("bytes")
+                .register(registry);
+            Gauge.builder(CACHE_RESIDENT, manager, CDOTransactionManager::getResidentPathCount)
+                .description("Paths whose version chain is held on heap")
+                .register(registry);
+            Gauge.builder(CACHE_SPILLED, manager, CDOTransactionManager::getSpilledPathCount)
+                .description("Paths with a record in the on-disk resource store")
+                .register(registry);
+            FunctionCounter.builder(CACHE_EVICTIONS, manager, CDOTransactionManager::getCacheEvictionCount)
+                .description("Resources evicted from the heap cache")
+                .register(registry);
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage) {
+        return Timer.builder(COMMIT_LATENCY)
+            .description("CDO commit latency by pipeline stage")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    void transactionBegun() {
+        begun.increment();
+    }
+
+    void transactionCommitted() {
+        committed.increment();
+    }
+
+    void transactionRolledBack() {
+        rolledBack.increment();
+    }
+
+    void transactionTimedOut() {
+        timeouts.increment();
+    }
+
+    void commitConflict() {
+        conflicts.increment();
+    }
+
+    void lockTimeout() {
+        lockTimeouts.increment();
+    }
+
+    void lockDeadlock() {
+        lockDeadlocks.increment();
+    }
+
+    void commitValidated(long nanos) {
+        validateLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void commitSequenced(long nanos, int resources) {
+        sequenceLatency.record(nanos, TimeUnit.NANOSECONDS);
+        resourcesPerCommit.record(resources);
+    }
+
+    /**
+     * 提交完成：durableNanos为落盘发布阶段耗时（未启用日志时为-1）
+     */
+    void commitCompleted(long durableNanos, long totalNanos) {
+        if (durableNanos >= 0) {
+            durableLatency.record(durableNanos, TimeUnit.NANOSECONDS);
+        }
+        totalLatency.record(totalNanos, TimeUnit.NANOSECONDS);
+        synchronized (recentNanos) {
+            recentNanos[(int) (recentCount++ % RECENT_WINDOW)] = totalNanos;
+        }
+    }
+
+    /**
+     * 最近提交总延迟的分位数（毫秒）；没有提交时为0
+     */
+    double recentLatencyMillis(double quantile) {
+        long[] samples;
+        synchronized (recentNanos) {
+            samples = Arrays.copyOf(recentNanos, (int) Math.min(recentCount, RECENT_WINDOW));
+        }
+        if (samples.length == 0) {
+            return 0;
+        }
+        Arrays.sort(samples);
+        int rank = (int) Math.ceil(quantile * samples.length) - 1;
+        return samples[Math.max(0, rank)] / 1_000_000.0;
+    }
+
+    /**
+     * 最近窗口中的提交数
+     */
+    int recentCommits() {
+        synchronized (recentNanos) {
+            return (int) Math.min(recentCount, RECENT_WINDOW);
+        }
+    }
+}
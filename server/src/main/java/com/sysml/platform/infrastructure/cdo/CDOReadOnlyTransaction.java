@@ -0,0 +1,87 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 只读事务
+ * 实现RQ-INFRA-TX-002: 事务边界管理
+ *
+ * 固定开始时的快照版本，读取结果与读写事务一致，但不分配任何更改跟踪结构、不登记超时、不绑定上下文；
+ * 返回的资源为只读视图，修改时抛出IllegalStateException。结束只释放快照，开销为常数。
+ * 不受超时回收，应在try-with-resources中使用，避免长期占用快照阻止旧版本裁剪
+ */
+public final class CDOReadOnlyTransaction implements AutoCloseable {
+
+    private static final AtomicIntegerFieldUpdater<CDOReadOnlyTransaction> ENDED =
+        AtomicIntegerFieldUpdater.newUpdater(CDOReadOnlyTransaction.class, "ended");
+
+    private final CDOTransactionManager manager;
+    private final long startVersion;
+    private volatile int ended;
+
+    CDOReadOnlyTransaction(CDOTransactionManager manager) {
+        this.manager = manager;
+        this.startVersion = manager.openSnapshot();
+    }
+
+    public boolean isActive() {
+        return ended == 0;
+    }
+
+    /**
+     * 事务读取的快照版本
+     */
+    public long getStartVersion() {
+        return startVersion;
+    }
+
+    /**
+     * 快照中资源的只读视图，不存在时返回null
+     */
+    public CDOResource getResource(String path) {
+        CDOResource committed = read(path);
+        return committed == null ? null : committed.readOnlyView();
+    }
+
+    /**
+     * 读取快照中资源的属性，不创建视图
+     */
+    public Object getAttribute(String path, String name) {
+        CDOResource committed = read(path);
+        return committed == null ? null : committed.getAttribute(name);
+    }
+
+    public boolean resourceExists(String path) {
+        return read(path) != null;
+    }
+
+    /**
+     * 列举快照中前缀子树的资源路径（按字典序）
+     */
+    public List<String> listResources(String prefix) {
+        checkActive();
+        return manager.listVisible(prefix, startVersion);
+    }
+
+    /**
+     * 结束事务并释放快照；重复调用无操作
+     */
+    @Override
+    public void close() {
+        if (ENDED.compareAndSet(this, 0, 1)) {
+            manager.releaseSnapshot(startVersion);
+        }
+    }
+
+    private CDOResource read(String path) {
+        checkActive();
+        return manager.readResource(path, startVersion);
+    }
+
+    private void checkActive() {
+        if (ended != 0) {
+            throw new IllegalStateException("Transaction is not active");
+        }
+    }
+}
@@ -1,34 +1,251 @@
 package com.sysml.platform.infrastructure.cdo;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * CDO资源对象
  * 代表一个可持久化的资源
+ *
+ * 属性按层存储：每层只保存相对下层（已提交状态，只读共享）的差异，删除以UNSET标记。
+ * 事务中取得的资源是已提交状态之上的私有覆盖层，修改只记录属性级差异；提交时差异成为新版本的一层，
+ * 层数超过MAX_LAYERS时合并为完整状态，提交与持久化的开销与差异大小成正比。
+ * 事务设置保存点后，工作资源的修改在事务的撤销日志中记录本层修改前的值
  */
 public class CDOResource {
-    
+
+    private static final int MAX_LAYERS = 8;
+    private static final Object UNSET = new Object();
+    private static final Map<String, Object> READ_ONLY = Collections.emptyMap();
+
     private final String path;
-    private final Map<String, Object> attributes = new HashMap<>();
-    
+    private final CDOResource base;
+    private final boolean overlay;
+    private final int depth;
+    private final Map<String, Object> attributes;
+    private UndoLog undoLog;
+
     public CDOResource(String path) {
+        this(path, null, false, new HashMap<>());
+    }
+
+    private CDOResource(String path, CDOResource base, boolean overlay, Map<String, Object> attributes) {
         this.path = path;
+        this.base = base;
+        this.overlay = overlay;
+        this.depth = base == null ? 0 : base.depth + 1;
+        this.attributes = attributes;
     }
-    
+
     public String getPath() {
         return path;
     }
-    
+
     public void setAttribute(String name, Object value) {
-        attributes.put(name, value);
+        checkWritable();
+        recordUndo(name);
+        // 改回已提交的值时撤销差异
+        Object committed = base == null ? UNSET : base.lookup(name);
+        if (committed != UNSET && Objects.equals(committed, value)) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
     }
-    
+
+    /**
+     * 删除属性
+     */
+    public void unsetAttribute(String name) {
+        checkWritable();
+        recordUndo(name);
+        if (base != null && base.lookup(name) != UNSET) {
+            attributes.put(name, UNSET);
+        } else {
+            attributes.remove(name);
+        }
+    }
+
     public Object getAttribute(String name) {
-        return attributes.get(name);
+        Object value = lookup(name);
+        return value == UNSET ? null : value;
     }
-    
+
+    public boolean hasAttribute(String name) {
+        return lookup(name) != UNSET;
+    }
+
     public Map<String, Object> getAttributes() {
-        return new HashMap<>(attributes);
+        Map<String, Object> merged = base == null ? new HashMap<>() : base.getAttributes();
+        attributes.forEach((name, value) -> {
+            if (value == UNSET) {
+                merged.remove(name);
+            } else {
+                merged.put(name, value);
+            }
+        });
+        return merged;
+    }
+
+    /**
+     * 相对已提交状态的属性差异（新建资源为全部属性）
+     */
+    public List<AttributeDelta> getDeltas() {
+        List<AttributeDelta> deltas = new ArrayList<>(attributes.size());
+        attributes.forEach((name, value) -> {
+            Object oldValue = base == null ? null : base.getAttribute(name);
+            deltas.add(value == UNSET
+                ? AttributeDelta.unset(name, oldValue)
+                : AttributeDelta.set(name, oldValue, value));
+        });
+        return deltas;
+    }
+
+    /**
+     * 是否存在未提交的属性差异
+     */
+    public boolean isDirty() {
+        return !attributes.isEmpty();
+    }
+
+    /**
+     * 在本状态之上创建私有覆盖层，O(1)
+     */
+    CDOResource overlay() {
+        return new CDOResource(path, this, true, new HashMap<>());
+    }
+
+    /**
+     * 本状态的只读视图，O(1)，修改时抛出IllegalStateException
+     */
+    CDOResource readOnlyView() {
+        return new CDOResource(path, this, true, READ_ONLY);
+    }
+
+    /**
+     * 关联事务的撤销日志（只对事务的工作资源调用）
+     */
+    void attach(UndoLog log) {
+        this.undoLog = log;
+    }
+
+    /**
+     * 本层是否为差异层（否则为完整状态）
+     */
+    boolean isOverlay() {
+        return overlay;
+    }
+
+    /**
+     * 本层记录的属性（值为UNSET表示删除），调用方不得修改
+     */
+    Map<String, Object> localAttributes() {
+        return attributes;
+    }
+
+    static boolean isUnset(Object value) {
+        return value == UNSET;
+    }
+
+    /**
+     * 由完整属性构造的状态（调用方交出属性表的所有权）
+     */
+    static CDOResource of(String path, Map<String, Object> attributes) {
+        return new CDOResource(path, null, false, attributes);
+    }
+
+    /**
+     * 以给定状态为基础、与本状态等价的单层差异；基础为null时为完整状态。
+     * 用于把多层差异合并为一层，开销与两者属性数成正比
+     */
+    CDOResource diffAgainst(CDOResource newBase) {
+        Map<String, Object> merged = getAttributes();
+        if (newBase == null) {
+            return new CDOResource(path, null, false, merged);
+        }
+        Map<String, Object> delta = new HashMap<>();
+        merged.forEach((name, value) -> {
+            if (!newBase.hasAttribute(name) || !Objects.equals(newBase.getAttribute(name), value)) {
+                delta.put(name, value);
+            }
+        });
+        for (String name : newBase.getAttributes().keySet()) {
+            if (!merged.containsKey(name)) {
+                delta.put(name, UNSET);
+            }
+        }
+        return new CDOResource(path, newBase, true, delta);
+    }
+
+    /**
+     * 由日志记录还原的差异层，需rebase到已恢复的状态上
+     */
+    static CDOResource delta(String path, Map<String, Object> values, List<String> unset) {
+        Map<String, Object> attributes = new HashMap<>(values);
+        unset.forEach(name -> attributes.put(name, UNSET));
+        return new CDOResource(path, null, true, attributes);
+    }
+
+    /**
+     * 将差异层放到给定状态之上
+     */
+    CDOResource rebase(CDOResource newBase) {
+        return new CDOResource(path, newBase, overlay, attributes).compacted();
+    }
+
+    /**
+     * 冻结为已提交版本：复制本层差异（O(差异)），层数过多时合并为完整状态
+     */
+    CDOResource toCommitted() {
+        return new CDOResource(path, base, overlay, new HashMap<>(attributes)).compacted();
+    }
+
+    /**
+     * 合并所有层得到的完整状态
+     */
+    CDOResource flattened() {
+        return new CDOResource(path, null, false, getAttributes());
+    }
+
+    private CDOResource compacted() {
+        if (depth <= MAX_LAYERS && (base != null || !attributes.containsValue(UNSET))) {
+            return this;
+        }
+        return flattened();
+    }
+
+    private void checkWritable() {
+        if (attributes == READ_ONLY) {
+            throw new IllegalStateException("Resource is read-only: " + path);
+        }
+    }
+
+    private void recordUndo(String name) {
+        if (undoLog == null || !undoLog.isRecording()) {
+            return;
+        }
+        boolean present = attributes.containsKey(name);
+        Object previous = attributes.get(name);
+        undoLog.add(() -> {
+            if (present) {
+                attributes.put(name, previous);
+            } else {
+                attributes.remove(name);
+            }
+        });
+    }
+
+    private Object lookup(String name) {
+        for (CDOResource layer = this; layer != null; layer = layer.base) {
+            Object value = layer.attributes.get(name);
+            if (value != null || layer.attributes.containsKey(name)) {
+                return value;
+            }
+        }
+        return UNSET;
     }
-}
\ No newline at end of file
+}
@@ -2,45 +2,113 @@ package com.sysml.platform.infrastructure.cdo;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * CDO事务实现
  * 实现RQ-INFRA-TX-002: 事务边界管理
+ *
+ * 事务读取开始时快照版本可见的资源，返回的是已提交状态之上的私有覆盖层，修改只记录属性级差异，
+ * 提交前对其他事务不可见。提交时只发布新建、删除或有属性差异的资源，并且只应用与记录差异；
+ * 写入的路径在快照之后被他人提交过时提交失败
+ *
+ * 保存点与嵌套事务基于撤销日志：回滚到保存点只撤销其后的修改，不复制事务的更改集合
+ *
+ * 超时由时间轮主动触发：被遗弃的事务到期即回滚并释放快照、路径锁与缓存钉住，之后的任何操作抛出TransactionTimeoutException。
+ * 本地更改、保存点与撤销日志只由持有事务的线程访问，超时后在其下一次调用时丢弃
  */
 public class CDOTransaction {
-    
+
+    private static final int ACTIVE = 0;
+    private static final int COMMITTING = 1;
+    private static final int ENDED = 2;
+    private static final int TIMED_OUT = 3;
+
     private final CDOTransactionManager manager;
     private final Map<String, CDOResource> localChanges = new HashMap<>();
     private final Set<String> createdResources = new HashSet<>();
-    private boolean active = true;
+    private final Set<String> deletedResources = new HashSet<>();
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
     private final long timeout;
     private final long startTime;
-    
+    private final long startVersion;
+    private final TransactionTimer.Timeout timeoutHandle;
+    private final TransactionContext context;
+    private volatile long commitVersion = -1;
+    private CommitConflictException conflict;
+    private final UndoLog undoLog = new UndoLog();
+    private final List<Savepoint> savepoints = new ArrayList<>();
+    // 持有的路径锁，首次加锁时创建；可能由时间轮线程释放
+    private volatile Set<String> lockedPaths;
+    // 启用资源缓存时钉住的路径，首次取得工作副本时创建；可能由时间轮线程释放
+    private volatile Queue<String> pinnedPaths;
+
     public CDOTransaction(CDOTransactionManager manager) {
         this(manager, Long.MAX_VALUE);
     }
-    
+
     public CDOTransaction(CDOTransactionManager manager, long timeoutMillis) {
         this.manager = manager;
         this.timeout = timeoutMillis;
         this.startTime = System.currentTimeMillis();
+        this.startVersion = manager.openSnapshot();
+        this.context = new TransactionContext(this);
+        this.timeoutHandle = timeoutMillis == Long.MAX_VALUE
+            ? null
+            : TransactionTimer.SHARED.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS);
     }
-    
+
     /**
      * 事务是否活跃
      */
     public boolean isActive() {
-        return active;
+        return state.get() == ACTIVE;
+    }
+
+    /**
+     * 事务是否因超时被回滚
+     */
+    public boolean isTimedOut() {
+        return state.get() == TIMED_OUT;
     }
-    
+
+    /**
+     * 本事务的可传播上下文，用于跨线程、执行器与CompletableFuture阶段传递事务
+     */
+    public TransactionContext getContext() {
+        return context;
+    }
+
+    /**
+     * 事务读取的快照版本
+     */
+    public long getStartVersion() {
+        return startVersion;
+    }
+
+    /**
+     * 提交得到的版本号；未提交、无写入或异步提交尚未落盘时为-1
+     */
+    public long getCommitVersion() {
+        return commitVersion;
+    }
+
+    /**
+     * 最近一次提交失败的冲突信息，无冲突时为null
+     */
+    public CommitConflictException getConflict() {
+        return conflict;
+    }
+
     /**
      * 执行事务操作
      */
     public void execute(Runnable operation) {
-        if (!active) {
+        if (!isActive()) {
             throw new IllegalStateException("Transaction is not active");
         }
-        
+
         try {
             checkTimeout();
             operation.run();
@@ -52,79 +120,419 @@ public class CDOTransaction {
             throw new RuntimeException("Transaction failed", e);
         }
     }
-    
+
     /**
      * 创建资源
      */
     public CDOResource createResource(String path) {
         checkTimeout();
         CDOResource resource = new CDOResource(path);
-        localChanges.put(path, resource);
-        createdResources.add(path);
+        resource.attach(undoLog);
+        putChange(path, resource);
+        track(createdResources, path, true);
+        track(deletedResources, path, false);
         return resource;
     }
-    
+
     /**
-     * 获取或创建资源
+     * 获取资源的私有工作副本，快照中不存在时返回null
      */
-    public CDOResource getOrCreateResource(String path) {
+    public CDOResource getResource(String path) {
         checkTimeout();
         CDOResource resource = localChanges.get(path);
-        if (resource == null) {
-            resource = manager.getResource(path);
-            if (resource == null) {
-                resource = createResource(path);
+        if (resource == null && !deletedResources.contains(path)) {
+            CDOResource committed = manager.readResource(path, startVersion);
+            if (committed != null) {
+                resource = committed.overlay();
+                resource.attach(undoLog);
+                localChanges.put(path, resource);
+                pin(path);
             }
         }
         return resource;
     }
-    
+
+    /**
+     * 获取或创建资源
+     */
+    public CDOResource getOrCreateResource(String path) {
+        CDOResource resource = getResource(path);
+        if (resource == null) {
+            resource = createResource(path);
+        }
+        return resource;
+    }
+
+    /**
+     * 删除资源
+     */
+    public void deleteResource(String path) {
+        checkTimeout();
+        putChange(path, null);
+        track(createdResources, path, false);
+        track(deletedResources, path, true);
+    }
+
+    /**
+     * 列举前缀子树中的资源路径（按字典序）：快照可见的资源加上本事务新建的，减去本事务删除的
+     */
+    public List<String> listResources(String prefix) {
+        checkTimeout();
+        Set<String> paths = new TreeSet<>(manager.listVisible(prefix, startVersion));
+        paths.removeAll(deletedResources);
+        for (String path : createdResources) {
+            if (PathIndex.inSubtree(path, prefix)) {
+                paths.add(path);
+            }
+        }
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * 删除前缀子树中的全部资源（含前缀本身），返回删除的数量
+     */
+    public int deleteSubtree(String prefix) {
+        List<String> paths = listResources(prefix);
+        paths.forEach(this::deleteResource);
+        return paths.size();
+    }
+
+    /**
+     * 获取路径读锁（默认锁超时），事务结束时释放
+     *
+     * @throws DeadlockException 等待会构成死锁
+     * @throws LockTimeoutException 超时未获得
+     */
+    public void lockRead(String path) {
+        lock(path, false, manager.getLockTimeout());
+    }
+
+    public void lockRead(String path, long timeoutMillis) {
+        lock(path, false, timeoutMillis);
+    }
+
+    /**
+     * 获取路径写锁（默认锁超时），事务结束时释放；其他事务不能再锁定该路径，写入该路径的提交失败
+     *
+     * @throws DeadlockException 等待会构成死锁
+     * @throws LockTimeoutException 超时未获得
+     */
+    public void lockWrite(String path) {
+        lock(path, true, manager.getLockTimeout());
+    }
+
+    public void lockWrite(String path, long timeoutMillis) {
+        lock(path, true, timeoutMillis);
+    }
+
+    /**
+     * 本事务持有锁的路径
+     */
+    public Set<String> getLockedPaths() {
+        Set<String> paths = lockedPaths;
+        return paths == null ? Set.of() : Set.copyOf(paths);
+    }
+
+    private void lock(String path, boolean exclusive, long timeoutMillis) {
+        checkTimeout();
+        // 等待不超过事务剩余时间
+        long remaining = timeout == Long.MAX_VALUE ? timeoutMillis : startTime + timeout - System.currentTimeMillis();
+        manager.lock(this, path, exclusive, Math.max(0, Math.min(timeoutMillis, remaining)));
+        Set<String> paths = lockedPaths;
+        if (paths == null) {
+            paths = ConcurrentHashMap.newKeySet();
+            lockedPaths = paths;
+        }
+        paths.add(path);
+        if (!isActive()) {
+            // 等待期间事务已超时结束
+            manager.unlockAll(this, List.of(path));
+            checkTimeout();
+        }
+    }
+
+    /**
+     * 工作副本在提交或回滚前不被资源缓存淘汰
+     */
+    private void pin(String path) {
+        if (!manager.pinResource(path)) {
+            return;
+        }
+        Queue<String> paths = pinnedPaths;
+        if (paths == null) {
+            paths = new ConcurrentLinkedQueue<>();
+            pinnedPaths = paths;
+        }
+        paths.add(path);
+        if (!isActive()) {
+            // 期间事务已超时结束
+            manager.unpinResources(List.of(path));
+        }
+    }
+
+    /**
+     * 设置匿名保存点
+     */
+    public Savepoint setSavepoint() {
+        return setSavepoint("savepoint-" + (savepoints.size() + 1));
+    }
+
+    /**
+     * 设置保存点：之后的修改可以通过rollbackToSavepoint撤销
+     */
+    public Savepoint setSavepoint(String name) {
+        checkTimeout();
+        Savepoint savepoint = new Savepoint(this, name, undoLog.mark());
+        savepoints.add(savepoint);
+        return savepoint;
+    }
+
+    /**
+     * 撤销保存点之后的全部修改，开销与保存点之后的修改数成正比
+     * 保存点仍然有效，其后设置的保存点失效
+     */
+    public void rollbackToSavepoint(Savepoint savepoint) {
+        checkTimeout();
+        int position = indexOf(savepoint);
+        undoLog.undoTo(savepoint.getMark());
+        int later = savepoints.size() - position - 1;
+        savepoints.subList(position + 1, savepoints.size()).clear();
+        undoLog.release(later);
+    }
+
+    /**
+     * 释放保存点及其后设置的保存点，保留其间的修改
+     */
+    public void releaseSavepoint(Savepoint savepoint) {
+        checkTimeout();
+        int position = indexOf(savepoint);
+        int released = savepoints.size() - position;
+        savepoints.subList(position, savepoints.size()).clear();
+        undoLog.release(released);
+    }
+
+    /**
+     * 嵌套事务：操作正常返回时保留其修改，抛出异常时只撤销操作内的修改并重新抛出
+     */
+    public <T> T nested(Supplier<T> operation) {
+        Savepoint savepoint = setSavepoint();
+        T result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException | Error e) {
+            if (isActive() && savepoints.contains(savepoint)) {
+                rollbackToSavepoint(savepoint);
+                releaseSavepoint(savepoint);
+            }
+            throw e;
+        }
+        releaseSavepoint(savepoint);
+        return result;
+    }
+
     /**
      * 提交事务
+     * 写写冲突时回滚并返回false，冲突路径见getConflict()
      */
     public boolean commit() {
-        if (!active) {
+        try {
+            submit().join();
+            return true;
+        } catch (CompletionException e) {
             return false;
         }
-        
+    }
+
+    /**
+     * 异步提交：冲突检测与定序完成后即返回，事务随即结束；落盘并发布后future以提交结果完成。
+     * 同一线程可以保持多个在途提交，版本号按调用顺序递增。
+     * 冲突时future以CommitConflictException异常完成，非活跃或已超时的事务以对应异常完成。
+     * 启用WAL时future在刷盘线程上完成：依赖阶段应当轻量，或使用commitAsync(Executor)
+     */
+    public CompletableFuture<CommitInfo> commitAsync() {
+        return submit();
+    }
+
+    /**
+     * 异步提交，future在executor上完成，依赖阶段不占用刷盘线程
+     */
+    public CompletableFuture<CommitInfo> commitAsync(Executor executor) {
+        CompletableFuture<CommitInfo> result = submit();
+        return result.isDone() ? result : result.whenCompleteAsync((info, error) -> { }, executor);
+    }
+
+    private CompletableFuture<CommitInfo> submit() {
+        if (!isActive()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Transaction is not active"));
+        }
         try {
             checkTimeout();
-            
-            // 持久化所有更改
-            for (Map.Entry<String, CDOResource> entry : localChanges.entrySet()) {
-                manager.saveResource(entry.getKey(), entry.getValue());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // 进入提交后时间轮不再回滚本事务
+        if (!state.compareAndSet(ACTIVE, COMMITTING)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Transaction is not active"));
+        }
+
+        try {
+            Map<String, CDOResource> writes = collectWrites();
+            if (writes.isEmpty()) {
+                manager.transactionCommitted(this);
+                return CompletableFuture.completedFuture(CommitInfo.empty(startVersion));
             }
-            
-            active = false;
-            return true;
-        } catch (Exception e) {
-            rollback();
-            return false;
+            manager.checkLockConflicts(this, writes.keySet());
+            CompletableFuture<CommitInfo> durable = manager.commitAsync(startVersion, writes);
+            return durable.whenComplete((info, error) -> {
+                if (info != null) {
+                    commitVersion = info.getVersion();
+                    manager.transactionCommitted(this);
+                }
+            });
+        } catch (CommitConflictException e) {
+            conflict = e;
+            return CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            state.set(ENDED);
+            release();
+            discardLocal();
         }
     }
-    
+
     /**
      * 回滚事务
      */
     public boolean rollback() {
-        if (!active) {
+        if (!state.compareAndSet(ACTIVE, ENDED)) {
+            if (isTimedOut()) {
+                discardLocal();
+            }
             return false;
         }
-        
-        // 清理本地更改，不持久化
+        // 丢弃本地更改，不持久化
+        release();
+        discardLocal();
+        manager.transactionRolledBack(this);
+        return true;
+    }
+
+    /**
+     * 时间轮回调：到期仍活跃时回滚。只释放共享资源，本地更改留给持有事务的线程丢弃
+     */
+    private void expire() {
+        if (state.compareAndSet(ACTIVE, TIMED_OUT)) {
+            release();
+            manager.transactionTimedOut(this);
+        }
+    }
+
+    /**
+     * 写集合：新建、删除以及有属性差异的资源（仅读取的资源不参与冲突检测）
+     */
+    private Map<String, CDOResource> collectWrites() {
+        Map<String, CDOResource> writes = new LinkedHashMap<>();
+        for (Map.Entry<String, CDOResource> entry : localChanges.entrySet()) {
+            if (createdResources.contains(entry.getKey()) || entry.getValue().isDirty()) {
+                writes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String path : deletedResources) {
+            if (manager.readResource(path, startVersion) != null) {
+                writes.put(path, null);
+            }
+        }
+        return writes;
+    }
+
+    private int indexOf(Savepoint savepoint) {
+        int position = savepoint.getTransaction() == this ? savepoints.lastIndexOf(savepoint) : -1;
+        if (position < 0) {
+            throw new IllegalArgumentException("Savepoint is not valid in this transaction: " + savepoint);
+        }
+        return position;
+    }
+
+    /**
+     * 修改本地更改表；存在保存点时记录撤销
+     */
+    private void putChange(String path, CDOResource resource) {
+        CDOResource previous = resource == null ? localChanges.remove(path) : localChanges.put(path, resource);
+        if (undoLog.isRecording()) {
+            undoLog.add(() -> {
+                if (previous == null) {
+                    localChanges.remove(path);
+                } else {
+                    localChanges.put(path, previous);
+                }
+            });
+        }
+    }
+
+    /**
+     * 加入或移出路径集合；存在保存点且集合确有变化时记录撤销
+     */
+    private void track(Set<String> paths, String path, boolean present) {
+        boolean changed = present ? paths.add(path) : paths.remove(path);
+        if (changed && undoLog.isRecording()) {
+            undoLog.add(() -> {
+                if (present) {
+                    paths.remove(path);
+                } else {
+                    paths.add(path);
+                }
+            });
+        }
+    }
+
+    /**
+     * 释放快照、超时登记、路径锁、缓存钉住与上下文
+     * 可能在时间轮线程上执行，只触及线程安全的共享状态
+     */
+    private void release() {
+        if (timeoutHandle != null) {
+            timeoutHandle.cancel();
+        }
+        manager.releaseSnapshot(startVersion);
+        Set<String> paths = lockedPaths;
+        if (paths != null) {
+            lockedPaths = null;
+            manager.unlockAll(this, paths);
+        }
+        Queue<String> pinned = pinnedPaths;
+        if (pinned != null) {
+            pinnedPaths = null;
+            manager.unpinResources(pinned);
+        }
+        context.clear();
+    }
+
+    /**
+     * 丢弃本地更改、保存点与撤销日志，只在持有事务的线程上调用
+     */
+    private void discardLocal() {
+        savepoints.clear();
+        undoLog.clear();
         localChanges.clear();
         createdResources.clear();
-        active = false;
-        return true;
+        deletedResources.clear();
     }
-    
+
     /**
-     * 检查超时
+     * 检查事务状态与超时
      */
     private void checkTimeout() {
-        if (System.currentTimeMillis() - startTime > timeout) {
-            rollback();
+        if (state.get() == ACTIVE && System.currentTimeMillis() - startTime > timeout) {
+            expire();
+        }
+        int current = state.get();
+        if (current == TIMED_OUT) {
+            discardLocal();
             throw new TransactionTimeoutException("Transaction timeout after " + timeout + "ms");
         }
+        if (current != ACTIVE) {
+            throw new IllegalStateException("Transaction is not active");
+        }
     }
-}
\ No newline at end of file
+}
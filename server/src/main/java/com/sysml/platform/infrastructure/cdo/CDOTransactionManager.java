@@ -1,64 +1,953 @@
 package com.sysml.platform.infrastructure.cdo;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * CDO事务管理器
  * 实现RQ-INFRA-TX-002: 事务边界管理
- * 
+ *
+ * 多版本并发控制：每个路径保存按版本倒序的版本链，事务读取开始时固定的快照版本，读取不加锁；
+ * 提交获得全局递增的版本号，快照之后已被他人提交的路径使提交失败（先提交者胜出）。
+ * 不再被任何活跃快照引用的旧版本在提交时裁剪
+ *
+ * 提交为流水线：冲突检测与定序在提交锁内完成，启用提交日志时组提交落盘后才按版本顺序发布，
+ * 发布后通知提交监听器；启动时从检查点与日志恢复
+ *
+ * 审计历史、分支、路径锁与有界资源缓存均为可选，未启用时不产生开销
+ * （见AuditHistory、CDOBranch、PathLockManager、ResourceCache）
+ *
  * @implements RQ-INFRA-TX-002
  */
 @Component
 public class CDOTransactionManager {
-    
-    private final Map<String, Object> resources = new ConcurrentHashMap<>();
-    private final ThreadLocal<CDOTransaction> currentTransaction = new ThreadLocal<>();
-    
+
+    private final Map<String, ResourceVersion> resources = new ConcurrentHashMap<>();
+    private final PathIndex index = new PathIndex();
+    private final ConcurrentSkipListMap<Long, Integer> activeSnapshots = new ConcurrentSkipListMap<>();
+    private final AtomicInteger activeTransactions = new AtomicInteger();
+    private final Object commitLock = new Object();
+    private final CommitLog commitLog;
+    private final AuditHistory audit;
+    private final boolean branchesEnabled;
+    private final PathLockManager locks;
+    private final ResourceStore store;
+    private final ResourceCache cache;
+    private final CDOTransactionManager parent;
+    private final long baseVersion;
+    private final long defaultTimeoutMillis;
+    private final CDOMetrics metrics;
+    private final CommitEventBus events = new CommitEventBus();
+    private long lastAssignedVersion;
+    private volatile long committedVersion;
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 纯内存模式（不持久化）
+     */
+    public CDOTransactionManager() {
+        this(null);
+    }
+
+    @Autowired
+    public CDOTransactionManager(
+            @Value("${cdo.wal.enabled:false}") boolean walEnabled,
+            @Value("${cdo.wal.directory:./data/cdo}") String walDirectory,
+            @Value("${cdo.wal.group-commit-delay:200}") long groupCommitDelayMicros,
+            @Value("${cdo.wal.max-batch:256}") int maxBatch,
+            @Value("${cdo.wal.checkpoint-interval:10000}") long checkpointInterval,
+            @Value("${performance.mutation.timeout:10000}") long defaultTimeoutMillis,
+            @Value("${cdo.lean.no-audits:true}") boolean noAudits,
+            @Value("${cdo.lean.no-branches:true}") boolean noBranches,
+            @Value("${cdo.lean.no-locks:true}") boolean noLocks,
+            @Value("${cdo.locks.timeout:5000}") long lockTimeoutMillis,
+            @Value("${cdo.locks.stripes:64}") int lockStripes,
+            @Value("${cdo.audit.keyframe-interval:16}") int keyframeInterval,
+            @Value("${cdo.audit.retention:604800000}") long retentionMillis,
+            @Value("${cdo.audit.max-versions:1000}") int maxVersions,
+            @Value("${cdo.audit.compaction-interval:60000}") long compactionIntervalMillis,
+            @Value("${cdo.cache.max-weight:0}") long cacheMaxWeight,
+            @Value("${cdo.cache.directory:./data/cdo/cache}") String cacheDirectory,
+            MeterRegistry registry) {
+        this(walEnabled
+            ? new CommitLog(Path.of(walDirectory), groupCommitDelayMicros, maxBatch, checkpointInterval)
+            : null,
+            noAudits ? null : new AuditHistory(keyframeInterval, retentionMillis, maxVersions, compactionIntervalMillis),
+            !noBranches, noLocks ? null : new PathLockManager(lockStripes, lockTimeoutMillis),
+            cacheMaxWeight > 0 ? new ResourceStore(Path.of(cacheDirectory)) : null, cacheMaxWeight,
+            defaultTimeoutMillis, registry);
+    }
+
+    CDOTransactionManager(CommitLog commitLog) {
+        this(commitLog, DEFAULT_TIMEOUT_MILLIS, new SimpleMeterRegistry());
+    }
+
+    CDOTransactionManager(CommitLog commitLog, long defaultTimeoutMillis, MeterRegistry registry) {
+        this(commitLog, null, false, defaultTimeoutMillis, registry);
+    }
+
+    CDOTransactionManager(CommitLog commitLog, AuditHistory audit, boolean branchesEnabled,
+                          long defaultTimeoutMillis, MeterRegistry registry) {
+        this(commitLog, audit, branchesEnabled, null, defaultTimeoutMillis, registry);
+    }
+
+    CDOTransactionManager(CommitLog commitLog, AuditHistory audit, boolean branchesEnabled, PathLockManager locks,
+                          long defaultTimeoutMillis, MeterRegistry registry) {
+        this(commitLog, audit, branchesEnabled, locks, null, 0, null, 0, defaultTimeoutMillis, registry);
+    }
+
+    /**
+     * 启用有界资源缓存：store为淘汰资源的存放区，cacheMaxWeight为常驻已提交状态的权重上限（估算字节）
+     */
+    CDOTransactionManager(CommitLog commitLog, AuditHistory audit, boolean branchesEnabled, PathLockManager locks,
+                          ResourceStore store, long cacheMaxWeight, long defaultTimeoutMillis, MeterRegistry registry) {
+        this(commitLog, audit, branchesEnabled, locks, store, cacheMaxWeight, null, 0, defaultTimeoutMillis, registry);
+    }
+
+    /**
+     * 分支：未在分支中写入过的路径读取父仓库在baseVersion的状态（调用方已固定该快照）
+     */
+    CDOTransactionManager(CDOTransactionManager parent, long baseVersion) {
+        this(null, null, true, null, null, 0, parent, baseVersion, parent.defaultTimeoutMillis, new SimpleMeterRegistry());
+    }
+
+    private CDOTransactionManager(CommitLog commitLog, AuditHistory audit, boolean branchesEnabled,
+                                  PathLockManager locks, ResourceStore store, long cacheMaxWeight,
+                                  CDOTransactionManager parent, long baseVersion,
+                                  long defaultTimeoutMillis, MeterRegistry registry) {
+        this.commitLog = commitLog;
+        this.audit = audit;
+        this.branchesEnabled = branchesEnabled;
+        this.locks = locks;
+        this.store = store;
+        this.cache = store == null ? null : new ResourceCache(cacheMaxWeight, this::evict);
+        this.parent = parent;
+        this.baseVersion = baseVersion;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        if (commitLog != null) {
+            long recovered = commitLog.recover(this::replay);
+            lastAssignedVersion = recovered;
+            committedVersion = recovered;
+            commitLog.start(this::publish, new CommitLog.CheckpointSource() {
+                @Override
+                public long pin() {
+                    return pinSnapshot();
+                }
+
+                @Override
+                public void unpin(long version) {
+                    unpinSnapshot(version);
+                }
+
+                @Override
+                public Map<String, CDOResource> state(long version) {
+                    return committedState(version);
+                }
+            });
+        }
+        this.metrics = new CDOMetrics(registry, this);
+    }
+
+    /**
+     * 刷出排队中的提交并关闭提交日志
+     */
+    @PreDestroy
+    public void close() {
+        if (commitLog != null) {
+            commitLog.close();
+        }
+        if (audit != null) {
+            audit.close();
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
     /**
-     * 开始新事务
+     * 开始新事务（默认超时）
      */
     public CDOTransaction beginTransaction() {
-        CDOTransaction transaction = new CDOTransaction(this);
-        currentTransaction.set(transaction);
-        return transaction;
+        return beginTransaction(defaultTimeoutMillis);
     }
-    
+
     /**
      * 开始带超时的事务
+     * 事务不绑定到当前线程；需要隐式访问时通过getContext()在作用域内绑定
      */
     public CDOTransaction beginTransaction(long timeoutMillis) {
-        CDOTransaction transaction = new CDOTransaction(this, timeoutMillis);
-        currentTransaction.set(transaction);
-        return transaction;
+        return new CDOTransaction(this, timeoutMillis);
+    }
+
+    /**
+     * 开始只读事务：固定快照版本，不分配更改跟踪、不登记超时，拒绝写入
+     */
+    public CDOReadOnlyTransaction beginReadOnlyTransaction() {
+        return new CDOReadOnlyTransaction(this);
+    }
+
+    /**
+     * 注册同步提交监听器：在发布线程上按版本顺序回调，应尽快返回
+     */
+    public void addCommitListener(CommitListener listener) {
+        events.subscribe(listener, null);
+    }
+
+    /**
+     * 注册异步提交监听器：在给定执行器上串行回调，积压的提交合并为一批，按版本顺序送达
+     */
+    public void addCommitListener(CommitListener listener, Executor executor) {
+        events.subscribe(listener, executor);
+    }
+
+    public boolean removeCommitListener(CommitListener listener) {
+        return events.unsubscribe(listener);
+    }
+
+    /**
+     * 创建分支，O(1)：固定当前已提交版本为分支基础，分支与父仓库共享未修改的资源。
+     * 分支上的事务与读取只看到基础版本加分支内的提交；需要cdo.lean.no-branches=false
+     */
+    public CDOBranch createBranch(String name) {
+        if (!branchesEnabled) {
+            throw new IllegalStateException("Branching is disabled (cdo.lean.no-branches)");
+        }
+        return new CDOBranch(name, this, pinSnapshot());
+    }
+
+    /**
+     * 开始事务并在绑定其上下文的情况下执行操作：操作正常返回则提交，抛出异常或提交冲突时回滚
+     *
+     * @throws CommitConflictException 提交时发生写写冲突
+     */
+    public <T> T inTransaction(Function<CDOTransaction, T> operation) {
+        CDOTransaction transaction = beginTransaction();
+        try {
+            T result = transaction.getContext().call(() -> operation.apply(transaction));
+            if (!transaction.commit()) {
+                if (transaction.getConflict() != null) {
+                    throw transaction.getConflict();
+                }
+                throw new IllegalStateException("Transaction commit failed");
+            }
+            return result;
+        } finally {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * 当前线程作用域内绑定的活跃事务
+     */
+    public Optional<CDOTransaction> currentTransaction() {
+        return TransactionContext.current();
+    }
+
+    /**
+     * 事务默认超时毫秒数
+     */
+    public long getDefaultTimeout() {
+        return defaultTimeoutMillis;
     }
-    
+
+    /**
+     * 持有快照的活跃事务数
+     */
+    public int getActiveTransactionCount() {
+        return activeTransactions.get();
+    }
+
+    /**
+     * 存储中的路径数（含仍对活跃快照可见的删除标记）
+     */
+    public int getStoredPathCount() {
+        return index.size();
+    }
+
+    /**
+     * 是否启用有界资源缓存（cdo.cache.max-weight>0）
+     */
+    public boolean isCacheEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * 常驻内存的已提交状态权重（估算字节），未启用缓存时为0
+     */
+    public long getCacheWeight() {
+        return cache == null ? 0 : cache.weightedSize();
+    }
+
+    /**
+     * 版本链常驻内存的路径数
+     */
+    public int getResidentPathCount() {
+        return resources.size();
+    }
+
+    /**
+     * 磁盘存放区中有记录的路径数（含装回内存后未再修改的路径）
+     */
+    public int getSpilledPathCount() {
+        return store == null ? 0 : store.size();
+    }
+
+    /**
+     * 被缓存淘汰的次数
+     */
+    public long getCacheEvictionCount() {
+        return cache == null ? 0 : cache.evictionCount();
+    }
+
+    /**
+     * 是否启用提交日志持久化
+     */
+    public boolean isPersistent() {
+        return commitLog != null;
+    }
+
+    /**
+     * 提交日志的失败原因；未启用日志或日志正常时为null
+     */
+    public Throwable getStoreFailure() {
+        return commitLog == null ? null : commitLog.getFailure();
+    }
+
+    /**
+     * 最近一次提交的版本号
+     */
+    public long getCommittedVersion() {
+        return committedVersion;
+    }
+
     /**
-     * 检查资源是否存在
+     * 检查资源是否存在（最新提交版本）
      */
     public boolean resourceExists(String path) {
-        return resources.containsKey(path);
+        return readResource(path, committedVersion) != null;
     }
-    
+
     /**
-     * 获取资源
+     * 获取资源（最新提交版本的副本）
      */
     public CDOResource getResource(String path) {
-        return (CDOResource) resources.get(path);
+        CDOResource committed = readResource(path, committedVersion);
+        return committed == null ? null : committed.overlay();
+    }
+
+    /**
+     * 是否启用路径锁（cdo.lean.no-locks=false）
+     */
+    public boolean isLockingEnabled() {
+        return locks != null;
+    }
+
+    /**
+     * 路径当前是否被任何事务加锁
+     */
+    public boolean isLocked(String path) {
+        return locks != null && !locks.holders(path, null).isEmpty();
+    }
+
+    /**
+     * 是否启用审计历史（cdo.lean.no-audits=false）
+     */
+    public boolean isAuditEnabled() {
+        return audit != null;
+    }
+
+    /**
+     * 读取资源在指定版本提交后的状态（只读视图），需启用审计历史
+     * 版本超过最新提交版本时按最新版本读取；不存在、已删除或早于保留窗口时返回null
+     */
+    public CDOResource getResource(String path, long version) {
+        if (audit == null) {
+            throw new IllegalStateException("Audit history is disabled (cdo.lean.no-audits)");
+        }
+        Map<String, Object> attributes = audit.attributesAt(path, Math.min(version, committedVersion));
+        return attributes == null ? null : CDOResource.of(path, attributes).readOnlyView();
+    }
+
+    /**
+     * 读取资源在指定时刻的状态（只读视图），需启用审计历史
+     */
+    public CDOResource getResource(String path, Instant timestamp) {
+        if (audit == null) {
+            throw new IllegalStateException("Audit history is disabled (cdo.lean.no-audits)");
+        }
+        long version = audit.versionAt(timestamp.toEpochMilli());
+        return version < 0 ? null : getResource(path, version);
     }
-    
+
     /**
-     * 内部方法：保存资源
+     * 列举前缀子树中的资源路径（含前缀本身，按字典序），O(子树)
      */
-    void saveResource(String path, CDOResource resource) {
-        resources.put(path, resource);
+    public List<String> listResources(String prefix) {
+        return listVisible(prefix, committedVersion);
     }
-    
+
+    /**
+     * 列举前缀下一级的子路径：子树中存在资源的直接子节点（子节点本身不一定是资源）
+     */
+    public List<String> listChildren(String prefix) {
+        // "a-x"在"a"与"a/b"之间排序，同一子节点的路径不一定连续
+        Set<String> children = new TreeSet<>();
+        long version = committedVersion;
+        for (String path : candidatePaths(prefix)) {
+            String child = PathIndex.childOf(path, prefix);
+            if (child != null && !children.contains(child) && readResource(path, version) != null) {
+                children.add(child);
+            }
+        }
+        return new ArrayList<>(children);
+    }
+
+    /**
+     * 前缀子树中的资源数量（含前缀本身）
+     */
+    public int countResources(String prefix) {
+        int count = 0;
+        long version = committedVersion;
+        for (String path : candidatePaths(prefix)) {
+            if (readResource(path, version) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 内部方法：快照版本可见的子树路径
+     */
+    List<String> listVisible(String prefix, long snapshotVersion) {
+        List<String> paths = new ArrayList<>();
+        for (String path : candidatePaths(prefix)) {
+            if (readResource(path, snapshotVersion) != null) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 子树中可能可见的路径（按字典序）：本仓库索引，分支另加父仓库在基础版本可见的路径
+     */
+    private Iterable<String> candidatePaths(String prefix) {
+        if (parent == null) {
+            return index.subtree(prefix);
+        }
+        Set<String> paths = new TreeSet<>(parent.listVisible(prefix, baseVersion));
+        index.subtree(prefix).forEach(paths::add);
+        return paths;
+    }
+
+    /**
+     * 内部方法：读取快照版本可见的已提交状态（共享实例，调用方不得修改）
+     * 分支中没有该快照可见的记录时读取父仓库的基础版本；分支中的删除标记不会回落到父仓库
+     */
+    CDOResource readResource(String path, long snapshotVersion) {
+        ResourceVersion head = resources.get(path);
+        if (cache != null) {
+            if (head == null) {
+                head = loadCold(path);
+            } else {
+                cache.touch(path);
+            }
+        }
+        ResourceVersion visible = head == null ? null : head.visibleAt(snapshotVersion);
+        if (visible != null) {
+            return visible.getState();
+        }
+        return parent == null ? null : parent.readResource(path, baseVersion);
+    }
+
+    /**
+     * 内部方法：分支在本仓库写入过的路径及其在分支最新版本的状态（null表示删除）
+     */
+    Map<String, CDOResource> localChanges() {
+        Map<String, CDOResource> changes = new LinkedHashMap<>();
+        long version = committedVersion;
+        for (String path : index.subtree("")) {
+            ResourceVersion head = resources.get(path);
+            ResourceVersion visible = head == null ? null : head.visibleAt(version);
+            if (visible != null) {
+                changes.put(path, visible.getState());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 内部方法：路径在给定版本之后是否被本仓库提交过
+     */
+    boolean changedSince(String path, long version) {
+        ResourceVersion head = resources.get(path);
+        return head != null && head.getVersion() > version;
+    }
+
+    CDOTransactionManager getParent() {
+        return parent;
+    }
+
+    /**
+     * 分支创建时父仓库的版本，非分支为0
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * 内部方法：固定快照版本（不计入活跃事务），登记后复核提交版本，保证并发提交的版本裁剪能看到该快照
+     */
+    long pinSnapshot() {
+        while (true) {
+            long version = committedVersion;
+            activeSnapshots.merge(version, 1, Integer::sum);
+            if (version == committedVersion) {
+                return version;
+            }
+            unregisterSnapshot(version);
+        }
+    }
+
+    void unpinSnapshot(long version) {
+        unregisterSnapshot(version);
+    }
+
+    /**
+     * 内部方法：为事务登记快照版本
+     */
+    long openSnapshot() {
+        long version = pinSnapshot();
+        activeTransactions.incrementAndGet();
+        metrics.transactionBegun();
+        return version;
+    }
+
+    /**
+     * 内部方法：释放快照版本
+     */
+    void releaseSnapshot(long version) {
+        activeTransactions.decrementAndGet();
+        unregisterSnapshot(version);
+    }
+
+    private void unregisterSnapshot(long version) {
+        activeSnapshots.computeIfPresent(version, (v, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * 内部方法：事务因超时被回滚
+     */
+    void transactionTimedOut(CDOTransaction transaction) {
+        metrics.transactionTimedOut();
+    }
+
+    /**
+     * 内部方法：事务被显式回滚
+     */
+    void transactionRolledBack(CDOTransaction transaction) {
+        metrics.transactionRolledBack();
+    }
+
+    /**
+     * 内部方法：事务提交完成（含无写入的提交）
+     */
+    void transactionCommitted(CDOTransaction transaction) {
+        metrics.transactionCommitted();
+    }
+
+    /**
+     * 内部方法：为事务获取路径锁，失败计入指标
+     */
+    void lock(CDOTransaction owner, String path, boolean exclusive, long timeoutMillis) {
+        if (locks == null) {
+            throw new IllegalStateException("Path locking is disabled (cdo.lean.no-locks)");
+        }
+        try {
+            locks.acquire(owner, path, exclusive, timeoutMillis);
+        } catch (DeadlockException e) {
+            metrics.lockDeadlock();
+            throw e;
+        } catch (LockTimeoutException e) {
+            metrics.lockTimeout();
+            throw e;
+        }
+    }
+
+    void unlockAll(CDOTransaction owner, Collection<String> paths) {
+        locks.releaseAll(owner, paths);
+    }
+
+    long getLockTimeout() {
+        return locks == null ? 0 : locks.getDefaultTimeout();
+    }
+
+    /**
+     * 内部方法：写入被其他事务锁定的路径时提交失败；未启用锁时无操作
+     * owner为null时任何持有者都构成冲突
+     */
+    void checkLockConflicts(CDOTransaction owner, Set<String> paths) {
+        if (locks == null) {
+            return;
+        }
+        Set<String> locked = new LinkedHashSet<>();
+        for (String path : paths) {
+            if (!locks.holders(path, owner).isEmpty()) {
+                locked.add(path);
+            }
+        }
+        if (!locked.isEmpty()) {
+            metrics.commitConflict();
+            throw new CommitConflictException(locked);
+        }
+    }
+
+    CDOMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * 内部方法：事务取得路径的工作副本，提交或回滚前不淘汰；未启用缓存时返回false
+     */
+    boolean pinResource(String path) {
+        if (cache == null) {
+            return false;
+        }
+        cache.pin(path);
+        return true;
+    }
+
+    void unpinResources(Collection<String> paths) {
+        cache.unpinAll(paths);
+    }
+
+    /**
+     * 内部方法：校验并发布事务的写集合，启用日志时在落盘并发布后返回
+     *
+     * @return 新提交的版本号
+     * @throws CommitConflictException 快照之后已有其他事务提交了同一路径
+     */
+    long commit(long startVersion, Map<String, CDOResource> writes) {
+        return commitAsync(startVersion, writes).join().getVersion();
+    }
+
+    /**
+     * 内部方法：提交流水线
+     * writes中值为事务的工作资源（只应用其属性差异），null表示删除。
+     * 1. 校验与序列化：在调用线程上进行，不持有提交锁
+     * 2. 冲突检测与定序：提交锁内只做内存操作，分配版本号并在版本链上占位，按版本顺序进入日志队列
+     * 3. 日志追加：刷盘线程组提交，不同事务的落盘相互重叠
+     * 4. 发布：落盘后按版本顺序发布并完成返回的future（在刷盘线程上完成，未启用日志时立即完成）
+     * 冲突在调用线程上同步抛出，此时事务的工作资源可以立即丢弃
+     *
+     * @throws CommitConflictException 快照之后已有其他事务提交了同一路径
+     */
+    CompletableFuture<CommitInfo> commitAsync(long startVersion, Map<String, CDOResource> writes) {
+        long start = System.nanoTime();
+        byte[] record = commitLog == null ? null : CommitLog.encode(writes);
+        List<CommitEvent.Change> changes = events.hasListeners() ? describe(writes) : null;
+        long validated = System.nanoTime();
+        metrics.commitValidated(validated - start);
+        CompletableFuture<Void> durable = null;
+        Map<String, CDOResource> committed = audit == null && cache == null ? null : new HashMap<>();
+        long version;
+        synchronized (commitLock) {
+            if (commitLog != null) {
+                commitLog.ensureWritable();
+            }
+            Set<String> conflicts = new LinkedHashSet<>();
+            for (String path : writes.keySet()) {
+                ResourceVersion head = head(path);
+                if (head != null && head.getVersion() > startVersion) {
+                    conflicts.add(path);
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                metrics.commitConflict();
+                throw new CommitConflictException(conflicts);
+            }
+
+            version = ++lastAssignedVersion;
+            for (Map.Entry<String, CDOResource> write : writes.entrySet()) {
+                CDOResource state = write.getValue() == null ? null : write.getValue().toCommitted();
+                index.add(write.getKey());
+                resources.put(write.getKey(), new ResourceVersion(version, state, head(write.getKey())));
+                if (store != null) {
+                    // 版本链已装回内存并追加新版本，存放区中的记录作废
+                    store.remove(write.getKey());
+                }
+                if (committed != null) {
+                    committed.put(write.getKey(), state);
+                }
+            }
+            if (audit != null) {
+                audit.record(version, System.currentTimeMillis(), committed);
+            }
+            if (changes != null) {
+                events.enqueue(new CommitEvent(version, changes));
+            }
+            // 版本链全部就绪后再发布版本号，新快照不会看到半个提交
+            if (commitLog == null) {
+                committedVersion = version;
+            } else {
+                durable = commitLog.append(version, record);
+            }
+            pruneVersions(writes.keySet());
+        }
+        if (cache != null) {
+            // 计量与淘汰在提交锁外进行
+            committed.forEach((path, state) -> {
+                if (state == null) {
+                    cache.invalidate(path);
+                } else {
+                    cache.record(path, ResourceCache.weigh(state));
+                }
+            });
+        }
+        long sequenced = System.nanoTime();
+        metrics.commitSequenced(sequenced - validated, writes.size());
+        CommitInfo info = new CommitInfo(version, startVersion, new LinkedHashSet<>(writes.keySet()));
+        if (durable == null) {
+            events.dispatch(version);
+            metrics.commitCompleted(-1, sequenced - start);
+            return CompletableFuture.completedFuture(info);
+        }
+        return durable.thenApply(ignored -> {
+            long published = System.nanoTime();
+            metrics.commitCompleted(published - sequenced, published - start);
+            return info;
+        });
+    }
+
+    /**
+     * 刷盘线程回调：一批提交落盘后发布其中最大的版本号
+     */
+    private void publish(long version) {
+        committedVersion = version;
+        events.dispatch(version);
+    }
+
+    /**
+     * 提交事件中的变更描述：删除、新建（全部属性）或属性差异
+     */
+    private static List<CommitEvent.Change> describe(Map<String, CDOResource> writes) {
+        List<CommitEvent.Change> changes = new ArrayList<>(writes.size());
+        writes.forEach((path, resource) -> {
+            if (resource == null) {
+                changes.add(new CommitEvent.Change(path, CommitEvent.ChangeKind.DELETED, List.of()));
+            } else {
+                CommitEvent.ChangeKind kind = resource.isOverlay()
+                    ? CommitEvent.ChangeKind.MODIFIED
+                    : CommitEvent.ChangeKind.CREATED;
+                changes.add(new CommitEvent.Change(path, kind, resource.getDeltas()));
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * 指定已发布版本的完整状态，用于写检查点
+     * 在检查点线程上调用，调用方已固定该版本，裁剪与淘汰保留该版本可见的节点；
+     * 之后的提交由恢复时重放日志覆盖。
+     * 返回惰性视图：写出时逐个路径合并状态（已淘汰的路径从存放区读取，不装入缓存），
+     * 写检查点的常驻内存与仓库规模无关；该版本不可见的路径值为null，恢复时按删除处理
+     */
+    private Map<String, CDOResource> committedState(long version) {
+        List<String> paths = new ArrayList<>();
+        index.subtree("").forEach(paths::add);
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, CDOResource>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, CDOResource>> iterator() {
+                        Iterator<String> iterator = paths.iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, CDOResource> next() {
+                                String path = iterator.next();
+                                CDOResource committed = peekResource(path, version);
+                                return new SimpleImmutableEntry<>(path, committed == null ? null : committed.flattened());
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return paths.size();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * 读取快照版本可见的已提交状态，已淘汰的路径直接从存放区读取而不装入缓存
+     */
+    private CDOResource peekResource(String path, long snapshotVersion) {
+        while (true) {
+            ResourceVersion head = resources.get(path);
+            if (head != null) {
+                ResourceVersion visible = head.visibleAt(snapshotVersion);
+                return visible == null ? null : visible.getState();
+            }
+            ResourceStore.Entry entry = store == null ? null : store.read(path);
+            if (entry != null) {
+                // 淘汰的版本链只有一个节点：版本晚于快照时该路径在快照中不存在
+                return entry.getVersion() > snapshotVersion ? null : entry.getState();
+            }
+            // 读取期间并发提交可能已把该路径装回内存并作废记录
+            if (resources.get(path) == null) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 恢复回调：按版本顺序应用检查点与日志记录
+     */
+    private void replay(long version, Map<String, CDOResource> writes) {
+        // 恢复期间没有并发访问，逐条推进已发布版本，启用缓存时已恢复的资源可以被淘汰
+        committedVersion = version;
+        writes.forEach((path, state) -> {
+            if (state == null) {
+                resources.remove(path);
+                index.remove(path);
+                if (cache != null) {
+                    store.remove(path);
+                    cache.invalidate(path);
+                }
+            } else {
+                index.add(path);
+                ResourceVersion current = head(path);
+                CDOResource base = current == null ? null : current.getState();
+                CDOResource restored = state.isOverlay() ? state.rebase(base) : state;
+                resources.put(path, new ResourceVersion(version, restored, null));
+                if (cache != null) {
+                    store.remove(path);
+                    cache.record(path, ResourceCache.weigh(restored));
+                }
+            }
+        });
+    }
+
+    /**
+     * 路径的版本链，已淘汰时从存放区装回
+     */
+    private ResourceVersion head(String path) {
+        ResourceVersion head = resources.get(path);
+        return head == null && cache != null ? loadCold(path) : head;
+    }
+
+    /**
+     * 缓存未命中：从存放区装回版本链并登记到缓存；路径不存在时返回null
+     */
+    private ResourceVersion loadCold(String path) {
+        while (true) {
+            ResourceStore.Entry entry = store.read(path);
+            if (entry == null) {
+                // 读取期间并发提交可能已把该路径装回内存并作废记录
+                ResourceVersion head = resources.get(path);
+                if (head != null || !store.contains(path)) {
+                    return head;
+                }
+                continue;
+            }
+            ResourceVersion loaded = new ResourceVersion(entry.getVersion(), entry.getState(), null);
+            ResourceVersion existing = resources.putIfAbsent(path, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            cache.record(path, ResourceCache.weigh(entry.getState()));
+            return loaded;
+        }
+    }
+
+    /**
+     * 缓存淘汰回调（持有缓存锁，不取提交锁）：先写入存放区再按身份移除版本链，
+     * 与并发提交竞争失败时作废刚写入的记录。只淘汰裁剪后没有旧版本、已发布且未删除的版本链
+     */
+    private boolean evict(String path) {
+        ResourceVersion head = resources.get(path);
+        if (head == null) {
+            return true;
+        }
+        if (head.isDeleted() || head.getVersion() > committedVersion) {
+            return false;
+        }
+        head.prune(oldestSnapshot());
+        if (head.hasPrevious()) {
+            return false;
+        }
+        // 装回后未修改的版本链在存放区中已有相同版本的记录
+        if (store.version(path) != head.getVersion() && !store.write(path, head.getVersion(), head.getState())) {
+            return false;
+        }
+        if (!resources.remove(path, head)) {
+            store.remove(path, head.getVersion());
+            return false;
+        }
+        return true;
+    }
+
+    private long oldestSnapshot() {
+        Map.Entry<Long, Integer> oldest = activeSnapshots.firstEntry();
+        return oldest == null ? committedVersion : oldest.getKey();
+    }
+
     /**
-     * 内部方法：删除资源
+     * 裁剪最老活跃快照之前的版本；对所有快照都已不可见的删除标记直接移除
      */
-    void removeResource(String path) {
-        resources.remove(path);
+    private void pruneVersions(Set<String> paths) {
+        long oldestSnapshot = oldestSnapshot();
+        for (String path : paths) {
+            ResourceVersion head = resources.get(path);
+            if (head == null) {
+                continue;
+            }
+            // 分支中的删除标记遮盖父仓库的资源，不能移除
+            if (parent == null && head.isDeleted() && head.getVersion() <= oldestSnapshot) {
+                if (resources.remove(path, head)) {
+                    index.remove(path);
+                    if (cache != null) {
+                        cache.invalidate(path);
+                    }
+                }
+            } else {
+                head.prune(oldestSnapshot);
+            }
+        }
     }
-}
\ No newline at end of file
+}
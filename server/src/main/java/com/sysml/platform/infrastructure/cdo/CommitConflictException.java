@@ -0,0 +1,23 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Set;
+
+/**
+ * 提交冲突异常
+ * 事务快照之后，其写入的资源已被其他事务提交修改（先提交者胜出）
+ */
+public class CommitConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Set<String> conflictingPaths;
+
+    public CommitConflictException(Set<String> conflictingPaths) {
+        super("Write-write conflict on " + conflictingPaths);
+        this.conflictingPaths = Set.copyOf(conflictingPaths);
+    }
+
+    public Set<String> getConflictingPaths() {
+        return conflictingPaths;
+    }
+}
@@ -0,0 +1,78 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 提交事件
+ * 一次提交发布后的版本号与变更：每个写入路径的变更类型与属性级差异（新建为全部属性，删除无差异）
+ */
+public final class CommitEvent {
+
+    public enum ChangeKind { CREATED, MODIFIED, DELETED }
+
+    /**
+     * 单个路径的变更
+     */
+    public static final class Change {
+        private final String path;
+        private final ChangeKind kind;
+        private final List<AttributeDelta> deltas;
+
+        Change(String path, ChangeKind kind, List<AttributeDelta> deltas) {
+            this.path = path;
+            this.kind = kind;
+            this.deltas = Collections.unmodifiableList(deltas);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public ChangeKind getKind() {
+            return kind;
+        }
+
+        public List<AttributeDelta> getDeltas() {
+            return deltas;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + path + (deltas.isEmpty() ? "" : " " + deltas);
+        }
+    }
+
+    private final long version;
+    private final List<Change> changes;
+    private final long timestamp;
+
+    CommitEvent(long version, List<Change> changes) {
+        this.version = version;
+        this.changes = Collections.unmodifiableList(changes);
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 按写入顺序排列的变更
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * 提交定序的时间
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitEvent[version=" + version + ", changes=" + changes + "]";
+    }
+}
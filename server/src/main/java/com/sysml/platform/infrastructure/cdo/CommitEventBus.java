@@ -0,0 +1,138 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 提交事件总线
+ * 实现RQ-INFRA-TX-002: 提交通知
+ *
+ * - 提交在定序时（提交锁内，按版本顺序）登记事件，版本发布后才分发，监听器只看到已可见的提交
+ * - 分发串行进行，每轮把已发布的全部事件作为一批交给监听器
+ * - 同步监听器在发布线程上执行（启用日志时为刷盘线程，应尽快返回）
+ * - 异步监听器各自排队，在其执行器上串行消费，积压的事件合并为一批，保证每个监听器按版本顺序收到
+ * - 监听器异常只记录日志，不影响提交与其他监听器
+ * - 没有监听器时不构造事件
+ */
+final class CommitEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitEventBus.class);
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Queue<CommitEvent> unpublished = new ConcurrentLinkedQueue<>();
+    private final Object dispatchLock = new Object();
+
+    boolean hasListeners() {
+        return !subscribers.isEmpty();
+    }
+
+    void subscribe(CommitListener listener, Executor executor) {
+        subscribers.add(executor == null ? new Subscriber(listener) : new AsyncSubscriber(listener, executor));
+    }
+
+    boolean unsubscribe(CommitListener listener) {
+        return subscribers.removeIf(subscriber -> subscriber.listener == listener);
+    }
+
+    /**
+     * 登记已定序的提交；调用方保证按版本顺序调用
+     */
+    void enqueue(CommitEvent event) {
+        unpublished.add(event);
+    }
+
+    /**
+     * 分发版本号不超过published的全部事件
+     */
+    void dispatch(long published) {
+        synchronized (dispatchLock) {
+            List<CommitEvent> batch = new ArrayList<>();
+            CommitEvent event;
+            while ((event = unpublished.peek()) != null && event.getVersion() <= published) {
+                batch.add(unpublished.poll());
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CommitEvent> events = List.copyOf(batch);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.deliver(events);
+            }
+        }
+    }
+
+    private static class Subscriber {
+        final CommitListener listener;
+
+        Subscriber(CommitListener listener) {
+            this.listener = listener;
+        }
+
+        void deliver(List<CommitEvent> events) {
+            notify(events);
+        }
+
+        void notify(List<CommitEvent> events) {
+            try {
+                listener.onCommits(events);
+            } catch (RuntimeException e) {
+                logger.warn("Commit listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private static final class AsyncSubscriber extends Subscriber {
+        private final Executor executor;
+        private final Queue<List<CommitEvent>> backlog = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        AsyncSubscriber(CommitListener listener, Executor executor) {
+            super(listener);
+            this.executor = executor;
+        }
+
+        @Override
+        void deliver(List<CommitEvent> events) {
+            backlog.add(events);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    logger.warn("Commit listener {} could not be scheduled", listener, e);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                List<CommitEvent> merged = new ArrayList<>();
+                List<CommitEvent> events;
+                while ((events = backlog.poll()) != null) {
+                    merged.addAll(events);
+                }
+                if (!merged.isEmpty()) {
+                    notify(merged);
+                }
+            } finally {
+                scheduled.set(false);
+                // 消费期间到达的事件由下一轮处理
+                if (!backlog.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
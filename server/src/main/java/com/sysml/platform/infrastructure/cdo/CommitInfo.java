@@ -0,0 +1,55 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 提交结果
+ * 记录提交得到的版本号、事务的快照版本与写入的路径；无写入的提交版本号为-1
+ */
+public final class CommitInfo {
+
+    private final long version;
+    private final long startVersion;
+    private final Set<String> changedPaths;
+    private final long timestamp;
+
+    CommitInfo(long version, long startVersion, Set<String> changedPaths) {
+        this.version = version;
+        this.startVersion = startVersion;
+        this.changedPaths = Collections.unmodifiableSet(changedPaths);
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    static CommitInfo empty(long startVersion) {
+        return new CommitInfo(-1, startVersion, Collections.emptySet());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getStartVersion() {
+        return startVersion;
+    }
+
+    /**
+     * 新建、修改或删除的路径（按写入顺序）
+     */
+    public Set<String> getChangedPaths() {
+        return changedPaths;
+    }
+
+    /**
+     * 提交完成（启用日志时为落盘发布）的时间
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitInfo[version=" + version + ", startVersion=" + startVersion
+            + ", changedPaths=" + changedPaths + "]";
+    }
+}
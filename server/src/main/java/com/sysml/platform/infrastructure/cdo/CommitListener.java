@@ -0,0 +1,13 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.List;
+
+/**
+ * 提交监听器
+ * 按版本顺序接收已发布的提交；负载高时一次回调包含多个连续的提交
+ */
+@FunctionalInterface
+public interface CommitListener {
+
+    void onCommits(List<CommitEvent> events);
+}
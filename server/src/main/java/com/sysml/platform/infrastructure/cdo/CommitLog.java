@@ -0,0 +1,529 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * CDO提交日志（预写日志）
+ * 实现RQ-INFRA-TX-002: 提交持久化与恢复
+ *
+ * - 记录格式：[int 长度][int CRC32][long 版本][写集合]，写集合按路径记录删除、完整属性（新建）
+ *   或属性差异（设置的值与删除的属性名）
+ * - 组提交：单个刷盘线程收集等待中的提交，一次写入一次fsync；groupCommitDelay控制首条记录到达后
+ *   继续等待后续提交的时长（越长吞吐越高、单次提交延迟越大，0表示不等待）
+ * - 检查点：每checkpointInterval次提交，刷盘线程把日志轮转为旧段并固定当前已发布版本，
+ *   由检查点线程把该版本的状态写入检查点文件（临时文件+原子重命名）后删除旧段；组提交与发布不等待检查点，
+ *   恢复时间与日志长度无关。检查点按CHECKPOINT_BATCH条分批写出与重放，读写过程不在内存中保留整个状态
+ * - 检查点失败只记录日志并保留旧段，下一个间隔重试，不影响提交
+ * - 恢复：加载检查点后按版本顺序重放旧段与当前日志（跳过检查点已包含的记录），遇到不完整或校验失败的尾部记录时截断
+ * - 任一次日志写盘失败后日志进入失败状态，此后的提交全部失败（fail-stop）
+ * - 目录独占：恢复前对目录中的锁文件加排他锁，同一目录不能被两个实例（进程或同一JVM中的两个上下文）同时使用
+ */
+final class CommitLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitLog.class);
+
+    static final String LOG_FILE = "commit.log";
+    static final String ROTATED_LOG_FILE = "commit.log.old";
+    static final String CHECKPOINT_FILE = "checkpoint.dat";
+    static final String LOCK_FILE = "commit.lock";
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final int CHECKPOINT_BATCH = 1024;
+
+    /**
+     * 重放回调：按版本顺序接收每个已持久化提交的写集合（值为null表示删除）
+     */
+    interface Replay {
+        void apply(long version, Map<String, CDOResource> writes);
+    }
+
+    /**
+     * 检查点数据源：固定已发布版本，读取该版本的完整资源状态
+     */
+    interface CheckpointSource {
+        /**
+         * 固定当前已发布版本并返回，固定期间该版本可见的状态不被裁剪或淘汰
+         */
+        long pin();
+
+        void unpin(long version);
+
+        /**
+         * 指定已固定版本的完整资源状态，值为null表示该版本不可见
+         */
+        Map<String, CDOResource> state(long version);
+    }
+
+    private final Path directory;
+    private final long groupCommitDelayNanos;
+    private final int maxBatch;
+    private final long checkpointInterval;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Pending shutdown = new Pending(-1, null);
+
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private Thread flusher;
+    private ExecutorService checkpointer;
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+    private volatile Throwable failure;
+    private volatile long syncCount;
+    private volatile long lastCheckpointVersion;
+    private long commitsSinceCheckpoint;
+
+    CommitLog(Path directory, long groupCommitDelayMicros, int maxBatch, long checkpointInterval) {
+        this.directory = directory;
+        this.groupCommitDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, groupCommitDelayMicros));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+    }
+
+    /**
+     * 加载检查点并重放日志，返回恢复到的版本号
+     */
+    long recover(Replay replay) {
+        try {
+            Files.createDirectories(directory);
+            lockDirectory();
+            long version = loadCheckpoint(replay);
+            lastCheckpointVersion = version;
+            // 上次检查点未完成时旧段仍在，其中的记录先于当前日志
+            Path rotated = directory.resolve(ROTATED_LOG_FILE);
+            if (Files.exists(rotated)) {
+                try (FileChannel old = FileChannel.open(rotated, StandardOpenOption.READ)) {
+                    version = replayLog(old, version, replay);
+                }
+            }
+            channel = openLog();
+            version = replayLog(channel, version, replay);
+            channel.position(channel.size());
+            return version;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover commit log in " + directory, e);
+        }
+    }
+
+    /**
+     * 启动刷盘线程与检查点线程
+     *
+     * @param publisher 一批提交落盘后以其中最大版本号回调，用于发布可见性
+     * @param checkpointSource 检查点固定的版本与其完整资源状态
+     */
+    void start(LongConsumer publisher, CheckpointSource checkpointSource) {
+        checkpointer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "cdo-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher = new Thread(() -> flushLoop(publisher, checkpointSource), "cdo-commit-log");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 序列化写集合；属性值必须可序列化，否则提交在取得版本号之前失败
+     */
+    static byte[] encode(Map<String, CDOResource> writes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            writeResources(out, writes);
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("Resource attribute is not serializable: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 写盘失败或已关闭时的原因，正常时为null
+     */
+    Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * 提交前检查日志是否可用
+     */
+    void ensureWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("Commit log failed", failure);
+        }
+    }
+
+    /**
+     * 追加一条提交记录（调用方保证按版本顺序追加），返回在该记录落盘并发布后完成的Future
+     */
+    CompletableFuture<Void> append(long version, byte[] record) {
+        ensureWritable();
+        Pending pending = new Pending(version, record);
+        queue.add(pending);
+        // 与日志失败/关闭竞争时，刷盘线程可能已不再消费队列
+        if (failure != null && queue.remove(pending)) {
+            pending.durable.completeExceptionally(failure);
+        }
+        return pending.durable;
+    }
+
+    long getSyncCount() {
+        return syncCount;
+    }
+
+    long getLastCheckpointVersion() {
+        return lastCheckpointVersion;
+    }
+
+    boolean isCheckpointing() {
+        return checkpointing.get();
+    }
+
+    /**
+     * 刷出已排队的提交后停止刷盘线程，等待进行中的检查点完成并关闭日志文件
+     */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            queue.add(shutdown);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+                checkpointer.shutdown();
+                if (!checkpointer.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("Checkpoint still running after close, the rotated log is kept for recovery");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (lockChannel != null) {
+                // 关闭通道即释放目录锁
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close commit log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 独占日志目录；已被其他实例持有时失败，不读取也不改写其中的文件
+     */
+    private void lockDirectory() throws IOException {
+        FileChannel lockFile = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockFile.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同一JVM中的另一个实例持有该锁
+            lock = null;
+        }
+        if (lock == null) {
+            lockFile.close();
+            throw new IllegalStateException("Commit log directory is in use by another instance: " + directory);
+        }
+        lockChannel = lockFile;
+    }
+
+    private void flushLoop(LongConsumer publisher, CheckpointSource checkpointSource) {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        boolean running = true;
+        while (running) {
+            try {
+                Pending first = queue.take();
+                running = first != shutdown && collectBatch(first, batch);
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    long version = batch.get(batch.size() - 1).version;
+                    publisher.accept(version);
+                    batch.forEach(pending -> pending.durable.complete(null));
+                    commitsSinceCheckpoint += batch.size();
+                    if (commitsSinceCheckpoint >= checkpointInterval && checkpointing.compareAndSet(false, true)) {
+                        commitsSinceCheckpoint = 0;
+                        scheduleCheckpoint(checkpointSource);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                fail(batch, e);
+            } catch (Throwable e) {
+                logger.error("Commit log write failed, further commits are rejected", e);
+                running = false;
+                fail(batch, e);
+            }
+            batch.clear();
+        }
+        if (failure == null) {
+            fail(batch, new IllegalStateException("Commit log closed"));
+        }
+    }
+
+    /**
+     * 首条记录之后最多等待groupCommitDelay收集同批提交；遇到关闭标记时返回false
+     */
+    private boolean collectBatch(Pending first, List<Pending> batch) throws InterruptedException {
+        batch.add(first);
+        long deadline = System.nanoTime() + groupCommitDelayNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            if (next == shutdown) {
+                return false;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        int size = 0;
+        for (Pending pending : batch) {
+            size += HEADER_BYTES + pending.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (Pending pending : batch) {
+            crc.reset();
+            crc.update(longBytes(pending.version));
+            crc.update(pending.record);
+            buffer.putInt(Long.BYTES + pending.record.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.putLong(pending.version);
+            buffer.put(pending.record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        syncCount++;
+    }
+
+    private void fail(List<Pending> batch, Throwable error) {
+        failure = error;
+        List<Pending> abandoned = new ArrayList<>(batch);
+        queue.drainTo(abandoned);
+        for (Pending pending : abandoned) {
+            if (pending.durable != null) {
+                pending.durable.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * 在刷盘线程上调用：轮转日志并固定当前已发布版本（刷盘线程是唯一写者，旧段中的记录都不超过该版本），
+     * 检查点在检查点线程上写出。上次失败留下的旧段尚未删除时不轮转，新的检查点同样覆盖其中的记录
+     */
+    private void scheduleCheckpoint(CheckpointSource source) throws IOException {
+        Path rotated = directory.resolve(ROTATED_LOG_FILE);
+        if (!Files.exists(rotated)) {
+            channel.close();
+            Files.move(directory.resolve(LOG_FILE), rotated, StandardCopyOption.ATOMIC_MOVE);
+            channel = openLog();
+        }
+        long version = source.pin();
+        checkpointer.execute(() -> {
+            try {
+                checkpoint(version, source.state(version));
+                Files.deleteIfExists(rotated);
+                lastCheckpointVersion = version;
+            } catch (IOException | RuntimeException e) {
+                // 日志本身完好，提交继续；旧段保留到下一次成功的检查点
+                logger.warn("Checkpoint at version {} failed, retrying after {} commits", version, checkpointInterval, e);
+            } finally {
+                source.unpin(version);
+                checkpointing.set(false);
+            }
+        });
+    }
+
+    private FileChannel openLog() throws IOException {
+        return FileChannel.open(directory.resolve(LOG_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void checkpoint(long version, Map<String, CDOResource> state) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ObjectOutputStream out = new ObjectOutputStream(
+                 new BufferedOutputStream(Channels.newOutputStream(file)))) {
+            out.writeLong(version);
+            out.writeInt(state.size());
+            int written = 0;
+            for (Map.Entry<String, CDOResource> entry : state.entrySet()) {
+                writeResource(out, entry.getKey(), entry.getValue());
+                // 清空序列化句柄表，否则已写出的属性值在写完前一直被引用
+                if (++written % CHECKPOINT_BATCH == 0) {
+                    out.reset();
+                }
+            }
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private long loadCheckpoint(Replay replay) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            long version = in.readLong();
+            int count = in.readInt();
+            Map<String, CDOResource> batch = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                readResource(in, batch);
+                if (batch.size() == CHECKPOINT_BATCH) {
+                    replay.apply(version, batch);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            replay.apply(version, batch);
+            return version;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Corrupt checkpoint " + checkpoint, e);
+        }
+    }
+
+    /**
+     * 重放一个日志文件中版本大于version的记录；以写方式打开的文件截断不完整的尾部
+     */
+    private long replayLog(FileChannel channel, long version, Replay replay) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        long validBytes = 0;
+        long fileSize = channel.size();
+        CRC32 crc = new CRC32();
+        while (validBytes + HEADER_BYTES <= fileSize) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < Long.BYTES || validBytes + Integer.BYTES * 2 + length > fileSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            long recordVersion = ByteBuffer.wrap(payload).getLong();
+            // 检查点进行期间写入当前日志、或检查点完成后删除旧段前崩溃时，日志中会有检查点已包含的记录
+            if (recordVersion > version) {
+                try (ObjectInputStream record = new ObjectInputStream(
+                        new ByteArrayInputStream(payload, Long.BYTES, length - Long.BYTES))) {
+                    replay.apply(recordVersion, readResources(record));
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Corrupt commit log record at version " + recordVersion, e);
+                }
+                version = recordVersion;
+            }
+            validBytes += Integer.BYTES * 2 + length;
+        }
+        if (validBytes < fileSize && channel == this.channel) {
+            logger.warn("Truncating {} bytes of incomplete commit log tail", fileSize - validBytes);
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        return version;
+    }
+
+    private static void writeResources(ObjectOutputStream out, Map<String, CDOResource> resources) throws IOException {
+        out.writeInt(resources.size());
+        for (Map.Entry<String, CDOResource> entry : resources.entrySet()) {
+            writeResource(out, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void writeResource(ObjectOutputStream out, String path, CDOResource resource) throws IOException {
+        out.writeUTF(path);
+        out.writeBoolean(resource == null);
+        if (resource != null) {
+            HashMap<String, Object> values = new HashMap<>();
+            ArrayList<String> unset = new ArrayList<>();
+            resource.localAttributes().forEach((name, value) -> {
+                if (CDOResource.isUnset(value)) {
+                    unset.add(name);
+                } else {
+                    values.put(name, value);
+                }
+            });
+            out.writeBoolean(resource.isOverlay());
+            out.writeObject(values);
+            out.writeObject(unset);
+        }
+    }
+
+    private static Map<String, CDOResource> readResources(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        int count = in.readInt();
+        Map<String, CDOResource> resources = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            readResource(in, resources);
+        }
+        return resources;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readResource(ObjectInputStream in, Map<String, CDOResource> resources)
+            throws IOException, ClassNotFoundException {
+        String path = in.readUTF();
+        if (in.readBoolean()) {
+            resources.put(path, null);
+            return;
+        }
+        boolean overlay = in.readBoolean();
+        Map<String, Object> values = (Map<String, Object>) in.readObject();
+        List<String> unset = (List<String>) in.readObject();
+        if (overlay) {
+            resources.put(path, CDOResource.delta(path, values, unset));
+        } else {
+            CDOResource resource = new CDOResource(path);
+            values.forEach(resource::setAttribute);
+            resources.put(path, resource);
+        }
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static final class Pending {
+        private final long version;
+        private final byte[] record;
+        private final CompletableFuture<Void> durable;
+
+        private Pending(long version, byte[] record) {
+            this.version = version;
+            this.record = record;
+            this.durable = record == null ? null : new CompletableFuture<>();
+        }
+    }
+}
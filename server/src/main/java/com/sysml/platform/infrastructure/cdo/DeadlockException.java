@@ -0,0 +1,14 @@
+package com.sysml.platform.infrastructure.cdo;
+
+/**
+ * 死锁异常
+ * 等待路径锁会与其他事务构成循环等待时，请求方作为牺牲者收到该异常，已持有的锁不变
+ */
+public class DeadlockException extends LockTimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlockException(String path, String message) {
+        super(path, message);
+    }
+}
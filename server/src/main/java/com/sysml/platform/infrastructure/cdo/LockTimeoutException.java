@@ -0,0 +1,20 @@
+package com.sysml.platform.infrastructure.cdo;
+
+/**
+ * 路径锁等待超时异常
+ */
+public class LockTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String path;
+
+    public LockTimeoutException(String path, String message) {
+        super(message);
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,97 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 资源路径索引
+ * 实现RQ-INFRA-TX-002: 层级资源列举
+ *
+ * 有序并发集合，包含版本链中存在的全部路径（含仍对某些快照可见的删除标记），
+ * 子树 = 路径本身 + 以"路径/"开头的路径，为连续区间，按前缀列举、计数与删除的开销与子树大小成正比。
+ * 调用方按快照版本过滤可见性：写入时先登记索引再发布版本链，移除版本链后再移除索引，读者不会漏掉可见资源
+ */
+final class PathIndex {
+
+    private static final char SEPARATOR = '/';
+    // '/'之后的下一个字符，作为子树区间的上界
+    private static final String UPPER_BOUND = String.valueOf((char) (SEPARATOR + 1));
+
+    private final ConcurrentSkipListSet<String> paths = new ConcurrentSkipListSet<>();
+
+    void add(String path) {
+        paths.add(path);
+    }
+
+    void remove(String path) {
+        paths.remove(path);
+    }
+
+    int size() {
+        return paths.size();
+    }
+
+    /**
+     * 子树中的全部路径（按字典序）；前缀为空或"/"时为全部路径
+     */
+    Iterable<String> subtree(String prefix) {
+        String root = normalize(prefix);
+        if (root.isEmpty()) {
+            return paths;
+        }
+        NavigableSet<String> descendants = paths.subSet(root + SEPARATOR, true, root + UPPER_BOUND, false);
+        return () -> new Iterator<>() {
+            private boolean rootPending = paths.contains(root);
+            private final Iterator<String> rest = descendants.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return rootPending || rest.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (rootPending) {
+                    rootPending = false;
+                    return root;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    /**
+     * 路径是否位于前缀的子树中
+     */
+    static boolean inSubtree(String path, String prefix) {
+        String root = normalize(prefix);
+        return root.isEmpty()
+            || path.equals(root)
+            || (path.startsWith(root) && path.charAt(root.length()) == SEPARATOR);
+    }
+
+    /**
+     * 子树中路径的直接子路径（前缀下一级），调用方负责可见性过滤后再去重
+     */
+    static String childOf(String path, String prefix) {
+        String root = normalize(prefix);
+        int start = root.length() + 1;
+        if (path.length() < start) {
+            return null;
+        }
+        int end = path.indexOf(SEPARATOR, start);
+        return end < 0 ? path : path.substring(0, end);
+    }
+
+    private static String normalize(String prefix) {
+        if (prefix == null) {
+            return "";
+        }
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == SEPARATOR) {
+            end--;
+        }
+        return prefix.substring(0, end);
+    }
+}
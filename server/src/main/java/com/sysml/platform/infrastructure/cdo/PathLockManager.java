@@ -0,0 +1,191 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源路径读写锁
+ * 实现RQ-INFRA-TX-002: 悲观锁与死锁检测
+ *
+ * - 锁表按路径哈希分段，每段一个监视器保护该段的锁与等待者，不同段的加锁互不阻塞
+ * - 读锁共享、写锁独占，同一持有者可重入，唯一读者可升级为写锁；持有者为事务，随事务结束一次释放
+ * - 需要等待时登记等待图（请求方 -> 当前持有者），沿图搜索到请求方自身即为死锁，请求方作为牺牲者失败
+ * - 等待超过超时时间时失败，已持有的锁不变
+ * 监视器顺序固定为先分段后等待图，内部不会相互等待
+ */
+final class PathLockManager {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long defaultTimeoutMillis;
+    private final Map<Object, Set<Object>> waitsFor = new HashMap<>();
+
+    PathLockManager(int stripeCount, long defaultTimeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    long getDefaultTimeout() {
+        return defaultTimeoutMillis;
+    }
+
+    /**
+     * 为持有者获取路径锁，必要时等待
+     *
+     * @throws DeadlockException 等待会构成循环等待
+     * @throws LockTimeoutException 超时仍未获得
+     */
+    void acquire(Object owner, String path, boolean exclusive, long timeoutMillis) {
+        Stripe stripe = stripeFor(path);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (stripe) {
+            try {
+                while (true) {
+                    PathLock lock = stripe.locks.computeIfAbsent(path, p -> new PathLock());
+                    Set<Object> blockers = lock.blockers(owner, exclusive);
+                    if (blockers.isEmpty()) {
+                        lock.grant(owner, exclusive);
+                        return;
+                    }
+                    if (waitWouldDeadlock(owner, blockers)) {
+                        stripe.discardIfFree(path, lock);
+                        throw new DeadlockException(path, "Deadlock detected waiting for lock on " + path);
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        stripe.discardIfFree(path, lock);
+                        throw new LockTimeoutException(path, "Lock on " + path + " not acquired within " + timeoutMillis + "ms");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(stripe, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LockTimeoutException(path, "Interrupted waiting for lock on " + path);
+            } finally {
+                clearWait(owner);
+            }
+        }
+    }
+
+    /**
+     * 释放持有者在这些路径上的全部锁并唤醒等待者
+     */
+    void releaseAll(Object owner, Collection<String> paths) {
+        for (String path : paths) {
+            Stripe stripe = stripeFor(path);
+            synchronized (stripe) {
+                PathLock lock = stripe.locks.get(path);
+                if (lock != null) {
+                    lock.release(owner);
+                    stripe.discardIfFree(path, lock);
+                    stripe.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 路径上除owner以外的持有者
+     */
+    Set<Object> holders(String path, Object owner) {
+        Stripe stripe = stripeFor(path);
+        synchronized (stripe) {
+            PathLock lock = stripe.locks.get(path);
+            return lock == null ? Set.of() : lock.blockers(owner, true);
+        }
+    }
+
+    private Stripe stripeFor(String path) {
+        int hash = path.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * 登记等待边并检测从持有者出发能否回到请求方
+     */
+    private boolean waitWouldDeadlock(Object owner, Set<Object> blockers) {
+        synchronized (waitsFor) {
+            waitsFor.put(owner, blockers);
+            Set<Object> visited = new HashSet<>();
+            Deque<Object> pending = new ArrayDeque<>(blockers);
+            while (!pending.isEmpty()) {
+                Object current = pending.pop();
+                if (current == owner) {
+                    waitsFor.remove(owner);
+                    return true;
+                }
+                if (visited.add(current)) {
+                    pending.addAll(waitsFor.getOrDefault(current, Set.of()));
+                }
+            }
+            return false;
+        }
+    }
+
+    private void clearWait(Object owner) {
+        synchronized (waitsFor) {
+            waitsFor.remove(owner);
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<String, PathLock> locks = new HashMap<>();
+
+        private void discardIfFree(String path, PathLock lock) {
+            if (lock.isFree()) {
+                locks.remove(path, lock);
+            }
+        }
+    }
+
+    private static final class PathLock {
+        private Object writer;
+        private final Set<Object> readers = new HashSet<>(2);
+
+        private Set<Object> blockers(Object owner, boolean exclusive) {
+            Set<Object> blockers = new LinkedHashSet<>();
+            if (writer != null && writer != owner) {
+                blockers.add(writer);
+            }
+            if (exclusive) {
+                for (Object reader : readers) {
+                    if (reader != owner) {
+                        blockers.add(reader);
+                    }
+                }
+            }
+            return blockers;
+        }
+
+        private void grant(Object owner, boolean exclusive) {
+            if (exclusive) {
+                writer = owner;
+            } else if (writer != owner) {
+                readers.add(owner);
+            }
+        }
+
+        private void release(Object owner) {
+            if (writer == owner) {
+                writer = null;
+            }
+            readers.remove(owner);
+        }
+
+        private boolean isFree() {
+            return writer == null && readers.isEmpty();
+        }
+    }
+}
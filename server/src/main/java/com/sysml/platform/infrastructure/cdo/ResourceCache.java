@@ -0,0 +1,390 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已提交资源的有界缓存策略（W-TinyLFU）
+ * 实现RQ-INFRA-TX-002: 常驻内存有界
+ *
+ * - 只管理准入与淘汰，资源本身仍在管理器的版本链中；按属性负载估算的权重计量，总权重不超过maxWeight
+ * - 窗口区（约1%）为LRU，吸收突发的新访问；主区为分段LRU（试用区+保护区80%），试用区命中晋升保护区
+ * - 窗口溢出的候选进入试用区，主区超限时用计数草图比较候选与试用区末尾的访问频率，频率高者留下
+ * - 计数草图为4位计数的Count-Min，累计增量达到样本数后全部减半（老化），历史热点不会永久占据缓存
+ * - 被钉住的路径（事务持有其工作副本）与淘汰回调拒绝的路径（仍被旧快照引用的版本链等）暂不淘汰，
+ *   移到保护区末尾；全部不可淘汰时允许暂时超限
+ * - 读命中只尝试加锁，竞争时丢弃这次访问记录（有损但不阻塞读者）
+ */
+final class ResourceCache {
+
+    /**
+     * 淘汰回调：把路径的已提交状态移出内存，不可淘汰时返回false
+     */
+    interface Evictor {
+        boolean evict(String path);
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int MAX_EVICTION_ATTEMPTS = 64;
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final Evictor evictor;
+    private final FrequencySketch sketch;
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<String, Integer> pins = new HashMap<>();
+    private final Segment[] segments = {new Segment(WINDOW), new Segment(PROBATION), new Segment(PROTECTED)};
+    private final ReentrantLock lock = new ReentrantLock();
+    private long evictions;
+
+    ResourceCache(long maxWeight, Evictor evictor) {
+        this.maxWeight = Math.max(1, maxWeight);
+        this.windowMaxWeight = Math.max(1, this.maxWeight / 100);
+        this.protectedMaxWeight = (this.maxWeight - windowMaxWeight) * 8 / 10;
+        this.evictor = evictor;
+        // 按每个资源约256字节估算条目数
+        this.sketch = new FrequencySketch(this.maxWeight / 256);
+    }
+
+    /**
+     * 读命中：记录访问频率并调整位置；锁被占用时放弃记录
+     */
+    void touch(String path) {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(path);
+            Node node = nodes.get(path);
+            if (node != null) {
+                onHit(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加载或提交后登记路径的权重，超出上限时按策略淘汰
+     */
+    void record(String path, long weight) {
+        lock.lock();
+        try {
+            sketch.increment(path);
+            Node node = nodes.get(path);
+            if (node == null) {
+                node = new Node(path, weight);
+                nodes.put(path, node);
+                segments[WINDOW].addLast(node);
+            } else {
+                segments[node.segment].weight += weight - node.weight;
+                node.weight = weight;
+                onHit(node);
+            }
+            evictIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 路径已从内存移除（删除标记裁剪等），不再计量
+     */
+    void invalidate(String path) {
+        lock.lock();
+        try {
+            Node node = nodes.remove(path);
+            if (node != null) {
+                segments[node.segment].remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 钉住路径：事务持有工作副本期间不淘汰
+     */
+    void pin(String path) {
+        lock.lock();
+        try {
+            pins.merge(path, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void unpinAll(Collection<String> paths) {
+        lock.lock();
+        try {
+            for (String path : paths) {
+                pins.computeIfPresent(path, (p, count) -> count <= 1 ? null : count - 1);
+            }
+            evictIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long weightedSize() {
+        lock.lock();
+        try {
+            return segments[WINDOW].weight + segments[PROBATION].weight + segments[PROTECTED].weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long evictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * 估算已提交状态的属性负载（字节），用作缓存权重
+     */
+    static long weigh(CDOResource state) {
+        if (state == null) {
+            return 64;
+        }
+        long weight = 64 + state.getPath().length() * 2L;
+        for (Map.Entry<String, Object> attribute : state.getAttributes().entrySet()) {
+            weight += 48 + attribute.getKey().length() * 2L + weighValue(attribute.getValue(), 0);
+        }
+        return weight;
+    }
+
+    private static long weighValue(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + text.length() * 2L;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        }
+        if (depth < 4 && value instanceof Collection<?> collection) {
+            long weight = 32;
+            for (Object element : collection) {
+                weight += 8 + weighValue(element, depth + 1);
+            }
+            return weight;
+        }
+        if (depth < 4 && value instanceof Map<?, ?> map) {
+            long weight = 48;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                weight += 32 + weighValue(entry.getKey(), depth + 1) + weighValue(entry.getValue(), depth + 1);
+            }
+            return weight;
+        }
+        return 32;
+    }
+
+    private void onHit(Node node) {
+        if (node.segment == PROBATION) {
+            segments[PROBATION].remove(node);
+            segments[PROTECTED].addLast(node);
+            // 保护区超限时把最久未访问的降级回试用区
+            while (segments[PROTECTED].weight > protectedMaxWeight && segments[PROTECTED].head != node) {
+                Node demoted = segments[PROTECTED].head;
+                segments[PROTECTED].remove(demoted);
+                segments[PROBATION].addLast(demoted);
+            }
+        } else {
+            segments[node.segment].moveToLast(node);
+        }
+    }
+
+    private void evictIfNeeded() {
+        Segment window = segments[WINDOW];
+        Segment probation = segments[PROBATION];
+        while (window.weight > windowMaxWeight && window.head != null) {
+            Node candidate = window.head;
+            window.remove(candidate);
+            probation.addLast(candidate);
+        }
+        // 单次淘汰的尝试次数有上界，全部不可淘汰时暂时超限，留待之后的登记或解除钉住时继续
+        int attempts = Math.min(nodes.size(), MAX_EVICTION_ATTEMPTS);
+        while (window.weight + probation.weight + segments[PROTECTED].weight > maxWeight && attempts-- > 0) {
+            Node victim = probation.head;
+            if (victim == null) {
+                victim = segments[PROTECTED].head != null ? segments[PROTECTED].head : window.head;
+            }
+            if (victim == null) {
+                return;
+            }
+            Node candidate = probation.tail;
+            Node evicted = victim;
+            if (candidate != null && candidate != victim
+                    && sketch.frequency(candidate.path) <= sketch.frequency(victim.path)) {
+                evicted = candidate;
+            }
+            if (!tryEvict(evicted)) {
+                segments[evicted.segment].remove(evicted);
+                segments[PROTECTED].addLast(evicted);
+            }
+        }
+    }
+
+    private boolean tryEvict(Node node) {
+        if (pins.containsKey(node.path) || !evictor.evict(node.path)) {
+            return false;
+        }
+        nodes.remove(node.path);
+        segments[node.segment].remove(node);
+        evictions++;
+        return true;
+    }
+
+    private static final class Node {
+        private final String path;
+        private long weight;
+        private int segment;
+        private Node prev;
+        private Node next;
+
+        private Node(String path, long weight) {
+            this.path = path;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 窗口区、试用区或保护区：按访问先后排列的双向链表，head为最久未访问
+     */
+    private static final class Segment {
+        private final int id;
+        private Node head;
+        private Node tail;
+        private long weight;
+
+        private Segment(int id) {
+            this.id = id;
+        }
+
+        private void addLast(Node node) {
+            node.segment = id;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        private void moveToLast(Node node) {
+            if (tail != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * 4位计数的Count-Min草图，每个long保存16个计数
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0x97cb3127L, 0xab5a7bd7L, 0x3d6e4da1L, 0xc2b2ae3dL};
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int counters = (int) Math.min(1 << 24, Math.max(1024, Long.highestOneBit(Math.max(1, expectedEntries)) << 2));
+            this.table = new long[counters / 16];
+            this.sampleSize = counters * 10 / 4;
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int counter = indexOf(hash, i);
+                frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int counter = indexOf(hash, i);
+                int slot = counter >>> 4;
+                int shift = (counter & 15) << 2;
+                if (((table[slot] >>> shift) & 0xfL) < 15) {
+                    table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        /**
+         * 老化：所有计数减半
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int) h & (table.length * 16 - 1);
+        }
+
+        private static int spread(int hash) {
+            hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            return (hash >>> 16) ^ hash;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 被淘汰资源的磁盘存放区
+ * 实现RQ-INFRA-TX-002: 常驻内存有界
+ *
+ * - 追加写入的数据文件，每条记录为[long 版本][序列化的完整属性]；内存中只保留路径到(偏移, 长度, 版本)的索引
+ * - 同一路径再次写入或路径被重新提交后旧记录成为垃圾，垃圾超过存活数据且文件足够大时压缩为新文件
+ * - 只是内存的延伸而不是持久化手段：崩溃后由检查点与提交日志恢复
+ * - 每个实例在配置目录下使用独立的子目录并持有其中锁文件的排他锁，多个进程或上下文共用同一配置目录时互不干扰；
+ *   启动时清理锁已无人持有的子目录（崩溃遗留），关闭时删除自己的子目录
+ * - 读取为定位读，与追加并发；记录写完后才登记到索引；压缩期间读写等待
+ */
+final class ResourceStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceStore.class);
+
+    static final String DATA_FILE = "resources.dat";
+    private static final String LOCK_FILE = "store.lock";
+    private static final String INSTANCE_PREFIX = "store-";
+    private static final long MIN_COMPACTION_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * 存放区中的资源状态及其版本
+     */
+    static final class Entry {
+        private final long version;
+        private final CDOResource state;
+
+        private Entry(long version, CDOResource state) {
+            this.version = version;
+            this.state = state;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        CDOResource getState() {
+            return state;
+        }
+    }
+
+    private static final class Slot {
+        private final long offset;
+        private final int length;
+        private final long version;
+
+        private Slot(long offset, int length, long version) {
+            this.offset = offset;
+            this.length = length;
+            this.version = version;
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ReadWriteLock compaction = new ReentrantReadWriteLock();
+    private final FileChannel lockChannel;
+    private FileChannel channel;
+    private long fileSize;
+    private long liveBytes;
+
+    ResourceStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            removeAbandoned(directory);
+            this.directory = Files.createTempDirectory(directory, INSTANCE_PREFIX);
+            lockChannel = FileChannel.open(this.directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lockChannel.lock();
+            channel = FileChannel.open(this.directory.resolve(DATA_FILE), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open resource store in " + directory, e);
+        }
+    }
+
+    /**
+     * 删除锁可以取得的实例子目录：持有者已退出；同一JVM中仍打开的实例取锁时抛出OverlappingFileLockException
+     */
+    private static void removeAbandoned(Path directory) throws IOException {
+        try (DirectoryStream<Path> instances = Files.newDirectoryStream(directory, INSTANCE_PREFIX + "*")) {
+            for (Path instance : instances) {
+                Path lockFile = instance.resolve(LOCK_FILE);
+                if (!Files.exists(lockFile)) {
+                    continue;
+                }
+                try (FileChannel lock = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+                    if (lock.tryLock() != null) {
+                        Files.deleteIfExists(instance.resolve(DATA_FILE));
+                        Files.deleteIfExists(instance.resolve(DATA_FILE + ".tmp"));
+                        Files.deleteIfExists(lockFile);
+                        Files.deleteIfExists(instance);
+                    }
+                } catch (OverlappingFileLockException | IOException e) {
+                    logger.debug("Skipping resource store directory {}: {}", instance, e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * 本实例的存放目录
+     */
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 写入路径在给定版本的状态，替换该路径原有的记录
+     *
+     * @return 属性不可序列化时返回false，此时存放区不变
+     */
+    boolean write(String path, long version, CDOResource state) {
+        byte[] record;
+        try {
+            record = encode(version, state);
+        } catch (NotSerializableException e) {
+            return false;
+        }
+        compaction.readLock().lock();
+        try {
+            long offset;
+            synchronized (this) {
+                offset = fileSize;
+                fileSize += record.length;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            // 数据写完后才登记，读者不会读到未写完的记录
+            synchronized (this) {
+                Slot previous = slots.put(path, new Slot(offset, record.length, version));
+                liveBytes += record.length - (previous == null ? 0 : previous.length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write resource store", e);
+        } finally {
+            compaction.readLock().unlock();
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * 读取路径的记录；不在存放区中时返回null
+     */
+    Entry read(String path) {
+        compaction.readLock().lock();
+        try {
+            Slot slot = slots.get(path);
+            if (slot == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(slot.length);
+            long position = slot.offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Truncated resource store record for " + path);
+                }
+                position += read;
+            }
+            return decode(path, buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read resource store", e);
+        } finally {
+            compaction.readLock().unlock();
+        }
+    }
+
+    /**
+     * 路径的记录版本，不在存放区中时返回-1
+     */
+    long version(String path) {
+        Slot slot = slots.get(path);
+        return slot == null ? -1 : slot.version;
+    }
+
+    boolean contains(String path) {
+        return slots.containsKey(path);
+    }
+
+    /**
+     * 丢弃路径的记录（路径已重新提交，内存中的版本链为准）
+     */
+    void remove(String path) {
+        compaction.readLock().lock();
+        try {
+            Slot slot = slots.remove(path);
+            if (slot != null) {
+                released(slot);
+            }
+        } finally {
+            compaction.readLock().unlock();
+        }
+    }
+
+    /**
+     * 只在记录仍为给定版本时丢弃
+     */
+    void remove(String path, long version) {
+        compaction.readLock().lock();
+        try {
+            Slot slot = slots.get(path);
+            if (slot != null && slot.version == version && slots.remove(path, slot)) {
+                released(slot);
+            }
+        } finally {
+            compaction.readLock().unlock();
+        }
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    synchronized long fileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() {
+        compaction.writeLock().lock();
+        try {
+            slots.clear();
+            channel.close();
+            Files.deleteIfExists(directory.resolve(DATA_FILE));
+            Files.deleteIfExists(directory.resolve(LOCK_FILE));
+            // 关闭通道即释放锁
+            lockChannel.close();
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.warn("Failed to close resource store", e);
+        } finally {
+            compaction.writeLock().unlock();
+        }
+    }
+
+    private synchronized void released(Slot slot) {
+        liveBytes -= slot.length;
+    }
+
+    private void compactIfNeeded() {
+        synchronized (this) {
+            if (fileSize < MIN_COMPACTION_BYTES || fileSize - liveBytes <= liveBytes) {
+                return;
+            }
+        }
+        compaction.writeLock().lock();
+        try {
+            synchronized (this) {
+                // 等待写锁期间可能已由其他线程压缩
+                if (fileSize < MIN_COMPACTION_BYTES || fileSize - liveBytes <= liveBytes) {
+                    return;
+                }
+            }
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact resource store", e);
+        } finally {
+            compaction.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 把存活记录复制到新文件并替换；持有写锁，期间没有并发读写
+     */
+    private void compact() throws IOException {
+        Path temp = directory.resolve(DATA_FILE + ".tmp");
+        Map<String, Slot> moved = new HashMap<>();
+        long position = 0;
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+                Slot slot = entry.getValue();
+                long copied = 0;
+                while (copied < slot.length) {
+                    copied += channel.transferTo(slot.offset + copied, slot.length - copied, target);
+                }
+                moved.put(entry.getKey(), new Slot(position, slot.length, slot.version));
+                position += slot.length;
+            }
+        }
+        channel.close();
+        Files.move(temp, directory.resolve(DATA_FILE),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slots.putAll(moved);
+        synchronized (this) {
+            logger.debug("Compacted resource store from {} to {} bytes", fileSize, position);
+            fileSize = position;
+            liveBytes = position;
+        }
+    }
+
+    private static byte[] encode(long version, CDOResource state) throws NotSerializableException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeLong(version);
+            out.writeObject(new HashMap<>(state.getAttributes()));
+        } catch (NotSerializableException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry decode(String path, byte[] record) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(record))) {
+            long version = in.readLong();
+            Map<String, Object> attributes = (Map<String, Object>) in.readObject();
+            return new Entry(version, CDOResource.of(path, attributes));
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Corrupt resource store record for " + path, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sysml.platform.infrastructure.cdo;
+
+/**
+ * 资源版本链节点
+ * 实现RQ-INFRA-TX-002: 快照隔离
+ *
+ * 每次提交为写入的路径追加一个节点，state为null表示该版本删除了资源。
+ * 节点内容在发布后不再修改（previous仅被裁剪为null），读者无需加锁即可沿链查找快照可见版本
+ */
+final class ResourceVersion {
+
+    private final long version;
+    private final CDOResource state;
+    private volatile ResourceVersion previous;
+
+    ResourceVersion(long version, CDOResource state, ResourceVersion previous) {
+        this.version = version;
+        this.state = state;
+        this.previous = previous;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    CDOResource getState() {
+        return state;
+    }
+
+    boolean isDeleted() {
+        return state == null;
+    }
+
+    boolean hasPrevious() {
+        return previous != null;
+    }
+
+    /**
+     * 返回快照版本可见的最新节点，快照早于链上所有版本时返回null
+     */
+    ResourceVersion visibleAt(long snapshotVersion) {
+        ResourceVersion node = this;
+        while (node != null && node.version > snapshotVersion) {
+            node = node.previous;
+        }
+        return node;
+    }
+
+    /**
+     * 保留对oldestSnapshot仍可见的节点，丢弃更早的版本
+     */
+    void prune(long oldestSnapshot) {
+        ResourceVersion visible = visibleAt(oldestSnapshot);
+        if (visible != null) {
+            visible.previous = null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.sysml.platform.infrastructure.cdo;
+
+/**
+ * 事务保存点
+ * 实现RQ-INFRA-TX-002: 保存点与嵌套事务
+ *
+ * 由CDOTransaction.setSavepoint创建，只对创建它的事务有效；
+ * 回滚到保存点后该保存点仍然有效，其后创建的保存点失效
+ */
+public final class Savepoint {
+
+    private final CDOTransaction transaction;
+    private final String name;
+    private final int mark;
+
+    Savepoint(CDOTransaction transaction, String name, int mark) {
+        this.transaction = transaction;
+        this.name = name;
+        this.mark = mark;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    CDOTransaction getTransaction() {
+        return transaction;
+    }
+
+    int getMark() {
+        return mark;
+    }
+
+    @Override
+    public String toString() {
+        return "Savepoint[" + name + "]";
+    }
+}
@@ -0,0 +1,128 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 可传播的事务上下文
+ * 实现RQ-INFRA-TX-002: 事务边界管理
+ *
+ * 事务不再常驻线程：上下文只在run/call/wrap的执行期间绑定到当前线程，结束时在finally中恢复原绑定，
+ * 池化线程与虚拟线程上不会残留。跨CompletableFuture阶段或执行器传播时显式传递上下文或使用wrap包装任务。
+ * 事务提交、回滚或超时后上下文立即清空，之后绑定的任务看不到已结束的事务
+ */
+public final class TransactionContext {
+
+    private static final ThreadLocal<TransactionContext> BOUND = new ThreadLocal<>();
+
+    private volatile CDOTransaction transaction;
+
+    TransactionContext(CDOTransaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * 当前线程绑定的活跃事务
+     */
+    public static Optional<CDOTransaction> current() {
+        TransactionContext context = BOUND.get();
+        return context == null ? Optional.empty() : context.transaction();
+    }
+
+    /**
+     * 上下文中的事务；事务已结束时为空
+     */
+    public Optional<CDOTransaction> transaction() {
+        CDOTransaction tx = transaction;
+        return tx != null && tx.isActive() ? Optional.of(tx) : Optional.empty();
+    }
+
+    /**
+     * 事务是否仍然活跃
+     */
+    public boolean isActive() {
+        return transaction().isPresent();
+    }
+
+    /**
+     * 在绑定本上下文的情况下执行操作，结束后恢复当前线程原来的绑定
+     */
+    public void run(Runnable operation) {
+        TransactionContext previous = bind();
+        try {
+            operation.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在绑定本上下文的情况下计算结果，结束后恢复当前线程原来的绑定
+     */
+    public <T> T call(Supplier<T> operation) {
+        TransactionContext previous = bind();
+        try {
+            return operation.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 包装任务，使其在任意线程上执行时都绑定本上下文
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> run(task);
+    }
+
+    /**
+     * 包装任务，使其在任意线程上执行时都绑定本上下文
+     */
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        return () -> call(task);
+    }
+
+    /**
+     * 包装执行器：提交的每个任务都绑定本上下文
+     */
+    public Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+
+    /**
+     * 在执行器上异步执行并传播本上下文
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+        return CompletableFuture.supplyAsync(wrap(task), executor);
+    }
+
+    /**
+     * 在执行器上异步执行并传播本上下文
+     */
+    public CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(wrap(task), executor);
+    }
+
+    /**
+     * 事务结束时调用：清空上下文，释放对事务的引用
+     */
+    void clear() {
+        transaction = null;
+    }
+
+    private TransactionContext bind() {
+        TransactionContext previous = BOUND.get();
+        BOUND.set(this);
+        return previous;
+    }
+
+    private static void restore(TransactionContext previous) {
+        if (previous == null) {
+            BOUND.remove();
+        } else {
+            BOUND.set(previous);
+        }
+    }
+}
@@ -5,6 +5,8 @@ package com.sysml.platform.infrastructure.cdo;
  */
 public class TransactionTimeoutException extends RuntimeException {
     
+    private static final long serialVersionUID = 1L;
+    
     public TransactionTimeoutException(String message) {
         super(message);
     }
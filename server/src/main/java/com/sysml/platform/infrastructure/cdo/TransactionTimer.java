@@ -0,0 +1,209 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 事务超时时间轮（hashed wheel timer）
+ * 实现RQ-INFRA-TX-002: 事务超时主动回收
+ *
+ * - 轮上每个槽是一个双向链表；登记与取消为O(1)，先进入无锁队列，由时间轮线程在下一个刻度转移
+ * - 每个刻度只处理当前槽：剩余轮数为0的到期执行，其余轮数减一；超时精度为一个刻度
+ * - 全部事务管理器共享一个守护线程，首次登记时启动
+ */
+final class TransactionTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionTimer.class);
+
+    static final TransactionTimer SHARED = new TransactionTimer(100, TimeUnit.MILLISECONDS, 512);
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private long tick;
+
+    TransactionTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 登记在delay之后执行的超时任务（在时间轮线程上执行，应尽快返回）
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (started.compareAndSet(false, true)) {
+            Thread worker = new Thread(this::run, "cdo-transaction-timer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(delay));
+        scheduled.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 已登记且尚未到期或取消的超时数量
+     */
+    int size() {
+        return scheduled.get();
+    }
+
+    private void run() {
+        while (true) {
+            waitForNextTick();
+            Timeout timeout;
+            while ((timeout = cancelled.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+            transferPending();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep <= 0) {
+                return;
+            }
+            LockSupport.parkNanos(sleep);
+        }
+    }
+
+    private void transferPending() {
+        // 每个刻度最多转移固定数量，避免登记风暴阻塞刻度
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.INIT) {
+                continue;
+            }
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            // 已经过期的超时放到当前槽，本刻度即执行
+            long slot = Math.max(ticks, tick);
+            wheel[(int) (slot & mask)].add(timeout);
+        }
+    }
+
+    static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TransactionTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(TransactionTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消超时，O(1)；已到期或已取消时返回false
+         */
+        boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            timer.scheduled.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            timer.scheduled.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                logger.warn("Transaction timeout task failed", e);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽：只由时间轮线程访问
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
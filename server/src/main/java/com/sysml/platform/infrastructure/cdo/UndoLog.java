@@ -0,0 +1,62 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 事务撤销日志
+ * 实现RQ-INFRA-TX-002: 保存点与嵌套事务
+ *
+ * 存在保存点时，事务与其工作资源的每次修改追加一条撤销记录（修改前的本地值）；
+ * 回滚到保存点时倒序执行该保存点之后的记录，开销与保存点之后的修改数成正比。
+ * 没有保存点时不记录，不增加普通事务的开销。只由事务所在线程访问
+ */
+final class UndoLog {
+
+    interface Entry {
+        void undo();
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private int savepoints;
+
+    boolean isRecording() {
+        return savepoints > 0;
+    }
+
+    void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    /**
+     * 开始一个保存点，返回其在日志中的位置
+     */
+    int mark() {
+        savepoints++;
+        return entries.size();
+    }
+
+    /**
+     * 倒序撤销位置之后的全部记录
+     */
+    void undoTo(int mark) {
+        for (int i = entries.size() - 1; i >= mark; i--) {
+            entries.remove(i).undo();
+        }
+    }
+
+    /**
+     * 结束若干保存点；全部结束后日志不再需要
+     */
+    void release(int count) {
+        savepoints -= count;
+        if (savepoints == 0) {
+            entries.clear();
+        }
+    }
+
+    void clear() {
+        savepoints = 0;
+        entries.clear();
+    }
+}
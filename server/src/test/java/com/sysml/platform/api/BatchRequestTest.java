@@ -0,0 +1,123 @@
+package com.sysml.platform.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.*;
+
+/**
+ * RQ-API-BATCH-007: 批量请求
+ * 验收条件：数组请求体按原顺序返回结果数组，单个操作失败不影响其余操作，超出上限拒绝，
+ * 在途操作数超出槽位时以503拒绝，无法解析的请求体返回400，错误以ErrorCode载荷返回，单个请求不受影响
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "performance.batch.parallelism=2")
+public class BatchRequestTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    @DisplayName("批量请求应该按原顺序返回每个操作的结果")
+    @SuppressWarnings("unchecked")
+    public void shouldExecuteBatchInOrder() {
+        List<Map<String, Object>> batch = List.of(
+            Map.of("query", "{ ok }"),
+            Map.of("query", "query Health($c: String) { health(component: $c) { status component } }",
+                "variables", Map.of("c", "api")),
+            Map.of("query", "{ requirements(page: 0, size: 1) { pageSize } }"),
+            Map.of("query", "{ unknownField }"));
+
+        ResponseEntity<List> response = post(batch, List.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        List<Map<String, Object>> results = response.getBody();
+        assertEquals(4, results.size());
+        assertEquals(true, ((Map<String, Object>) results.get(0).get("data")).get("ok"));
+        Map<String, Object> health = (Map<String, Object>) ((Map<String, Object>) results.get(1).get("data")).get("health");
+        assertEquals("api", health.get("component"));
+        Map<String, Object> page = (Map<String, Object>) ((Map<String, Object>) results.get(2).get("data")).get("requirements");
+        assertEquals(1, page.get("pageSize"));
+        // 校验失败的操作只影响自己的槽位
+        assertNotNull(results.get(3).get("errors"));
+    }
+
+    @Test
+    @DisplayName("超过操作数上限的批量请求应该被拒绝")
+    public void shouldRejectOversizedBatch() {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            batch.add(Map.of("query", "{ ok }"));
+        }
+
+        ResponseEntity<Map> response = post(batch, Map.class);
+
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals("BAD_REQUEST", errorCode(response.getBody()));
+    }
+
+    @Test
+    @DisplayName("超出在途槽位的批量请求应该以503拒绝，而不是在请求线程上执行")
+    public void shouldRejectBatchBeyondInFlightSlots() {
+        // parallelism=2时槽位为8
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            batch.add(Map.of("query", "{ ok }"));
+        }
+
+        ResponseEntity<Map> response = post(batch, Map.class);
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("SERVICE_UNAVAILABLE", errorCode(response.getBody()));
+        assertEquals(200, post(batch.subList(0, 8), List.class).getStatusCodeValue());
+    }
+
+    @Test
+    @DisplayName("单个操作请求体应该照常处理")
+    @SuppressWarnings("unchecked")
+    public void shouldPassThroughSingleOperation() {
+        ResponseEntity<Map> response = post(Map.of("query", "{ ok }"), Map.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(true, ((Map<String, Object>) response.getBody().get("data")).get("ok"));
+    }
+
+    @Test
+    @DisplayName("无法解析的请求体应该返回400")
+    public void shouldRejectMalformedBody() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<Map> single = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>("{\"query\": ", headers), Map.class);
+        ResponseEntity<Map> batch = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>("[{\"query\": ", headers), Map.class);
+
+        assertEquals(400, single.getStatusCodeValue());
+        assertEquals("BAD_REQUEST", errorCode(single.getBody()));
+        assertEquals(400, batch.getStatusCodeValue());
+        assertEquals("BAD_REQUEST", errorCode(batch.getBody()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object errorCode(Map<String, Object> body) {
+        Map<String, Object> error = ((List<Map<String, Object>>) body.get("errors")).get(0);
+        return ((Map<String, Object>) error.get("extensions")).get("code");
+    }
+
+    private <T> ResponseEntity<T> post(Object body, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.postForEntity("/graphql", new HttpEntity<>(body, headers), type);
+    }
+}
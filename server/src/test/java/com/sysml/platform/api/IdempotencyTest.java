@@ -0,0 +1,182 @@
+package com.sysml.platform.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import graphql.ExecutionResultImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RQ-API-DEDUP-009: 幂等键与读请求合并
+ * 验收条件：相同幂等键的重试返回首次结果且不重复执行，未执行的变更不缓存，批量操作按下标各自成键，键被不同请求复用时报错，并发的相同Query只执行一次
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class IdempotencyTest {
+
+    private static final String CREATE = "mutation Create($input: CreateRequirementInput!) { "
+        + "createRequirement(input: $input) { ok requirement { id reqId } error { code } } }";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    @DisplayName("相同幂等键的重试应该返回首次结果且不重复创建")
+    @SuppressWarnings("unchecked")
+    public void shouldReplayMutationWithSameKey() {
+        Map<String, Object> body = create("REQ-IDEM-001");
+
+        ResponseEntity<Map> first = post(body, "key-001");
+        ResponseEntity<Map> retry = post(body, "key-001");
+
+        Map<String, Object> created = payload(first.getBody());
+        Map<String, Object> replayed = payload(retry.getBody());
+        assertEquals(true, created.get("ok"));
+        // 若重复执行，第二次会因reqId重复而失败
+        assertEquals(created, replayed);
+        assertNull(first.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("幂等键用于不同请求时应该返回IDEMPOTENCY_KEY_REUSED")
+    @SuppressWarnings("unchecked")
+    public void shouldRejectKeyReuseWithDifferentRequest() {
+        post(create("REQ-IDEM-002"), "key-002");
+
+        ResponseEntity<Map> reused = post(create("REQ-IDEM-003"), "key-002");
+
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) reused.getBody().get("errors");
+        assertNotNull(errors);
+        assertEquals("IDEMPOTENCY_KEY_REUSED",
+            ((Map<String, Object>) errors.get(0).get("extensions")).get("code"));
+    }
+
+    @Test
+    @DisplayName("没有幂等键的变更应该每次都执行")
+    @SuppressWarnings("unchecked")
+    public void shouldExecuteWithoutKey() {
+        Map<String, Object> body = create("REQ-IDEM-004");
+
+        assertEquals(true, payload(post(body, null).getBody()).get("ok"));
+        Map<String, Object> second = payload(post(body, null).getBody());
+        assertEquals(false, second.get("ok"));
+    }
+
+    @Test
+    @DisplayName("未执行的变更（校验失败）不应该被缓存重放")
+    public void shouldNotReplayRejectedMutation() {
+        Map<String, Object> body = Map.of("query", "mutation { noSuchMutation }");
+
+        ResponseEntity<Map> first = post(body, "key-005");
+        ResponseEntity<Map> retry = post(body, "key-005");
+
+        assertNotNull(first.getBody().get("errors"));
+        assertNotNull(retry.getBody().get("errors"));
+        assertNull(retry.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("批量请求中共享幂等键的各个操作应该分别执行")
+    @SuppressWarnings("unchecked")
+    public void shouldScopeKeyPerBatchOperation() {
+        List<Map<String, Object>> batch = List.of(create("REQ-IDEM-006"), create("REQ-IDEM-007"));
+
+        ResponseEntity<List> response = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(batch, headers("key-006")), List.class);
+
+        List<Map<String, Object>> results = response.getBody();
+        assertEquals(2, results.size());
+        for (Map<String, Object> result : results) {
+            assertNull(result.get("errors"));
+            assertEquals(true, payload(result).get("ok"));
+        }
+    }
+
+    @Test
+    @DisplayName("并发的相同Query应该只执行一次，变更之后的Query重新执行")
+    public void shouldCoalesceConcurrentQueries() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReadCoalescingInterceptor interceptor = new ReadCoalescingInterceptor(
+            new OperationTypeResolver(), registry, true, "X-API-Key");
+        AtomicInteger executions = new AtomicInteger();
+        Sinks.One<WebGraphQlResponse> pending = Sinks.one();
+
+        WebGraphQlRequest query = request("{ requirements { totalElements } }");
+        Mono<WebGraphQlResponse> leader = interceptor.intercept(query, request -> {
+            executions.incrementAndGet();
+            return pending.asMono();
+        });
+        Mono<WebGraphQlResponse> follower = interceptor.intercept(request("{ requirements { totalElements } }"),
+            request -> {
+                executions.incrementAndGet();
+                return Mono.just(response(request, "follower"));
+            });
+
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        leader.subscribe(r -> results.add(r.getData()));
+        follower.subscribe(r -> results.add(r.getData()));
+        pending.tryEmitValue(response(query, "leader"));
+
+        assertEquals(1, executions.get());
+        assertEquals(List.of("leader", "leader"), results);
+        assertEquals(1.0, registry.counter(ReadCoalescingInterceptor.COALESCED_REQUESTS).count());
+
+        // 变更完成后数据版本递增，之后的Query不会复用变更前的结果
+        interceptor.intercept(request("mutation { ok }"), request -> Mono.just(response(request, "mutated"))).block();
+        WebGraphQlResponse after = interceptor.intercept(request("{ requirements { totalElements } }"),
+            request -> Mono.just(response(request, "fresh"))).block();
+        assertEquals("fresh", after.getData());
+    }
+
+    private ResponseEntity<Map> post(Map<String, Object> body, String idempotencyKey) {
+        return restTemplate.postForEntity("/graphql", new HttpEntity<>(body, headers(idempotencyKey)), Map.class);
+    }
+
+    private static HttpHeaders headers(String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            headers.set(IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return headers;
+    }
+
+    private static Map<String, Object> create(String reqId) {
+        return Map.of("query", CREATE, "variables", Map.of("input", Map.of(
+            "reqId", reqId, "name", "Requirement " + reqId, "kind", "FUNCTIONAL")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> payload(Map<String, Object> body) {
+        return (Map<String, Object>) ((Map<String, Object>) body.get("data")).get("createRequirement");
+    }
+
+    private static WebGraphQlRequest request(String document) {
+        return new WebGraphQlRequest(URI.create("http://localhost/graphql"), new HttpHeaders(),
+            new LinkedMultiValueMap<>(), Map.of(), Map.of("query", document), UUID.randomUUID().toString(),
+            Locale.ENGLISH);
+    }
+
+    private static WebGraphQlResponse response(WebGraphQlRequest request, Object data) {
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(),
+            ExecutionResultImpl.newExecutionResult().data(data).build()));
+    }
+}
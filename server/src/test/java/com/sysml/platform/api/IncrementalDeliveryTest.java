@@ -0,0 +1,193 @@
+package com.sysml.platform.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sysml.platform.domain.requirements.CreateRequirementInput;
+import com.sysml.platform.domain.requirements.RequirementKind;
+import com.sysml.platform.domain.requirements.RequirementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * RQ-API-INCREMENTAL-006: 增量交付
+ * 验收条件：multipart/mixed下首个载荷不含延迟数据、流式列表截断，且先于延迟数据单独执行；
+ * 后续分块由一次补充执行补齐；普通JSON请求不受影响
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class IncrementalDeliveryTest {
+
+    private static final String QUERY = """
+        query {
+            requirements(page: 0, size: 5) {
+                totalElements
+                content @stream(initialCount: 2, label: "rows") {
+                    id
+                    name
+                    ... @defer(label: "detail") {
+                        text
+                    }
+                }
+            }
+        }
+        """;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private RequirementService requirementService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 5; i++) {
+            requirementService.createRequirement(CreateRequirementInput.builder()
+                .reqId("REQ-INCR-" + UUID.randomUUID())
+                .name("Incremental " + i)
+                .text("Detail " + i)
+                .kind(RequirementKind.FUNCTIONAL)
+                .build());
+        }
+    }
+
+    @Test
+    @DisplayName("multipart/mixed请求应该先返回首屏再推送延迟与流式数据")
+    @SuppressWarnings("unchecked")
+    public void shouldDeliverIncrementally() throws Exception {
+        // When
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.ACCEPT, "multipart/mixed; deferSpec=20220824, application/json");
+        ResponseEntity<String> response = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(Map.of("query", QUERY), headers), String.class);
+
+        // Then: multipart响应
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(response.getHeaders().getContentType().toString().startsWith("multipart/mixed"));
+        List<Map<String, Object>> parts = parseParts(response.getBody());
+        assertTrue(parts.size() >= 3, "应该包含首个载荷与后续分块");
+
+        // 首个载荷：流式列表截断为2条，不含延迟字段
+        Map<String, Object> initial = parts.get(0);
+        assertEquals(true, initial.get("hasNext"));
+        Map<String, Object> page = (Map<String, Object>) ((Map<String, Object>) initial.get("data")).get("requirements");
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) page.get("content");
+        assertEquals(2, rows.size());
+        assertFalse(rows.get(0).containsKey("text"));
+
+        // 后续分块：延迟片段按首屏条目路径补齐，流式条目从下标2开始
+        List<Map<String, Object>> incremental = new ArrayList<>();
+        for (Map<String, Object> part : parts.subList(1, parts.size())) {
+            if (part.containsKey("incremental")) {
+                incremental.addAll((List<Map<String, Object>>) part.get("incremental"));
+            }
+        }
+        Map<String, Object> deferred = incremental.stream()
+            .filter(e -> "detail".equals(e.get("label"))).findFirst().orElseThrow();
+        assertEquals(List.of("requirements", "content", 0), deferred.get("path"));
+        assertTrue(((Map<String, Object>) deferred.get("data")).containsKey("text"));
+
+        Map<String, Object> streamed = incremental.stream()
+            .filter(e -> "rows".equals(e.get("label"))).findFirst().orElseThrow();
+        assertEquals(List.of("requirements", "content", 2), streamed.get("path"));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) streamed.get("items");
+        assertEquals(3, items.size());
+        assertTrue(items.get(0).containsKey("text"), "流式条目应完整返回");
+
+        assertEquals(false, parts.get(parts.size() - 1).get("hasNext"));
+    }
+
+    @Test
+    @DisplayName("首个载荷应该先于延迟数据单独执行，后续分块来自一次补充执行")
+    @SuppressWarnings("unchecked")
+    public void shouldExecuteInitialPartFirst() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.ACCEPT, "multipart/mixed; deferSpec=20220824, application/json");
+        String query = QUERY.replaceFirst("query \\{", "query IncrementalPhases {");
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(Map.of("query", query, "operationName", "IncrementalPhases"), headers), String.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(parseParts(response.getBody()).size() >= 3);
+        List<WebGraphQlResponse> executions = RecordingInterceptor.executions.stream()
+            .filter(r -> "IncrementalPhases".equals(r.getExecutionInput().getOperationName()))
+            .toList();
+        assertEquals(2, executions.size());
+
+        // 首次执行：不含延迟字段，流式列表在解析时即截断
+        WebGraphQlResponse initial = executions.get(0);
+        assertFalse(initial.getExecutionInput().getQuery().contains("text"));
+        Map<String, Object> page = (Map<String, Object>) ((Map<String, Object>) initial.getData()).get("requirements");
+        assertEquals(2, ((List<?>) page.get("content")).size());
+
+        // 补充执行：延迟片段与完整流式列表
+        WebGraphQlResponse remainder = executions.get(1);
+        assertTrue(remainder.getExecutionInput().getQuery().contains("text"));
+        page = (Map<String, Object>) ((Map<String, Object>) remainder.getData()).get("requirements");
+        assertEquals(5, ((List<?>) page.get("content")).size());
+    }
+
+    @Test
+    @DisplayName("普通JSON请求应该忽略@stream/@defer并完整返回")
+    @SuppressWarnings("unchecked")
+    public void shouldIgnoreDirectivesForJsonRequests() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Map> response = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(Map.of("query", QUERY), headers), Map.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        Map<String, Object> data = (Map<String, Object>) response.getBody().get("data");
+        Map<String, Object> page = (Map<String, Object>) data.get("requirements");
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) page.get("content");
+        assertEquals(5, rows.size());
+        assertTrue(rows.get(0).containsKey("text"));
+    }
+
+    /**
+     * 记录经过WebGraphQlHandler的每次执行
+     */
+    @TestConfiguration
+    static class RecordingInterceptor implements WebGraphQlInterceptor {
+
+        static final List<WebGraphQlResponse> executions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+            return chain.next(request).doOnNext(executions::add);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> parseParts(String body) throws Exception {
+        List<Map<String, Object>> parts = new ArrayList<>();
+        String content = body.substring(0, body.lastIndexOf("\r\n-----"));
+        for (String chunk : content.split("\r\n---\r\n")) {
+            int start = chunk.indexOf("\r\n\r\n");
+            if (start >= 0) {
+                parts.add(objectMapper.readValue(chunk.substring(start + 4), Map.class));
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sysml.platform.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * RQ-API-STREAMING-008: 流式序列化
+ * 验收条件：输出与toSpecification()序列化结果一致，大列表按字节阈值分块刷出
+ */
+public class StreamingResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("流式输出应该与规范Map序列化结果一致")
+    public void shouldMatchSpecificationSerialization() throws IOException {
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("content", rows(3));
+        page.put("totalElements", 3);
+        page.put("empty", null);
+        ExecutionResult result = ExecutionResultImpl.newExecutionResult()
+            .data(Map.of("requirements", page))
+            .addError(GraphqlErrorBuilder.newError().message("partial failure").build())
+            .extensions(Map.of("cost", 42))
+            .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamingResponseWriter(objectMapper, 65536).write(result, out);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(result.toSpecification())),
+            objectMapper.readTree(out.toByteArray()));
+        assertTrue(out.toString().startsWith("{\"errors\""), "errors应该按规范顺序在data之前");
+    }
+
+    @Test
+    @DisplayName("大列表应该按字节阈值分块刷出")
+    public void shouldFlushInChunks() throws IOException {
+        ExecutionResult result = ExecutionResultImpl.newExecutionResult()
+            .data(Map.of("requirements", Map.of("content", rows(10_000))))
+            .build();
+        FlushCountingStream out = new FlushCountingStream();
+
+        new StreamingResponseWriter(objectMapper, 16 * 1024).write(result, out);
+
+        int expectedChunks = out.size() / (16 * 1024);
+        assertTrue(out.flushes >= expectedChunks, "flushes=" + out.flushes + " size=" + out.size());
+        Map<?, ?> parsed = objectMapper.readValue(out.toByteArray(), Map.class);
+        List<?> content = (List<?>) ((Map<?, ?>) ((Map<?, ?>) parsed.get("data")).get("requirements")).get("content");
+        assertEquals(10_000, content.size());
+    }
+
+    @Test
+    @DisplayName("无数据的结果不应该输出data字段")
+    public void shouldOmitDataWhenAbsent() throws IOException {
+        ExecutionResult result = ExecutionResultImpl.newExecutionResult()
+            .addError(GraphqlErrorBuilder.newError().message("invalid").build())
+            .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamingResponseWriter(objectMapper, 65536).write(result, out);
+
+        Map<?, ?> parsed = objectMapper.readValue(out.toByteArray(), Map.class);
+        assertFalse(parsed.containsKey("data"));
+        assertEquals(1, ((List<?>) parsed.get("errors")).size());
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "id-" + i);
+            row.put("name", "Requirement " + i);
+            row.put("version", i);
+            row.put("draft", i % 2 == 0);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static class FlushCountingStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
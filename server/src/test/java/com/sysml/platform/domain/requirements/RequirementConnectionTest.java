@@ -0,0 +1,131 @@
+package com.sysml.platform.domain.requirements;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+
+/**
+ * RQ-REQ-QUERY-004: 游标分页
+ * 验收条件：游标翻页不重不漏、并发插入不使行在页间漂移、偏移分页保持兼容
+ */
+public class RequirementConnectionTest {
+    
+    private RequirementService service;
+    
+    @BeforeEach
+    public void setUp() {
+        service = new RequirementService();
+    }
+    
+    @Test
+    @DisplayName("按游标向后翻页应该不重不漏")
+    public void shouldPageForwardWithoutGapsOrDuplicates() {
+        // Given: 25条需求
+        for (int i = 0; i < 25; i++) {
+            createTestRequirement(String.format("REQ-%03d", i));
+        }
+        
+        // When: 每页10条翻到末尾
+        Set<String> seen = new HashSet<>();
+        String after = null;
+        int pages = 0;
+        RequirementDefinitionConnection page;
+        do {
+            page = service.queryRequirementConnection(
+                QueryRequirementConnectionInput.builder().first(10).after(after).build());
+            for (RequirementDefinitionEdge edge : page.getEdges()) {
+                assertTrue(seen.add(edge.getNode().getId()), "不应出现重复行");
+            }
+            assertEquals(pages > 0, page.getPageInfo().isHasPreviousPage());
+            after = page.getPageInfo().getEndCursor();
+            pages++;
+        } while (page.getPageInfo().isHasNextPage());
+        
+        // Then
+        assertEquals(25, seen.size());
+        assertEquals(3, pages);
+    }
+    
+    @Test
+    @DisplayName("翻页期间插入新需求不应使后续页发生偏移")
+    public void shouldNotShiftRowsOnConcurrentInsert() {
+        for (int i = 0; i < 10; i++) {
+            createTestRequirement(String.format("REQ-%03d", i));
+        }
+        RequirementDefinitionConnection firstPage = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(5).build());
+        RequirementDefinitionConnection expected = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(5)
+                .after(firstPage.getPageInfo().getEndCursor()).build());
+        
+        // When: 第一页之后插入新需求（排在最前面）
+        createTestRequirement("REQ-NEW");
+        RequirementDefinitionConnection secondPage = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(5)
+                .after(firstPage.getPageInfo().getEndCursor()).build());
+        
+        // Then: 第二页内容不变
+        assertEquals(ids(expected), ids(secondPage));
+    }
+    
+    @Test
+    @DisplayName("last/before应该向前翻页")
+    public void shouldPageBackward() {
+        for (int i = 0; i < 10; i++) {
+            createTestRequirement(String.format("REQ-%03d", i));
+        }
+        RequirementDefinitionConnection all = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(10).build());
+        String seventh = all.getEdges().get(6).getCursor();
+        
+        RequirementDefinitionConnection page = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().last(3).before(seventh).build());
+        
+        assertEquals(ids(all).subList(3, 6), ids(page));
+        assertTrue(page.getPageInfo().isHasPreviousPage());
+        assertTrue(page.getPageInfo().isHasNextPage());
+    }
+    
+    @Test
+    @DisplayName("偏移分页与游标分页顺序一致")
+    public void offsetPagingShouldMatchCursorOrder() {
+        for (int i = 0; i < 12; i++) {
+            createTestRequirement(String.format("REQ-%03d", i));
+        }
+        QueryRequirementsPayload offsetPage = service.queryRequirements(
+            QueryRequirementsInput.builder().page(1).size(5).build());
+        RequirementDefinitionConnection all = service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(12).build());
+        
+        assertEquals(12, offsetPage.getTotalElements());
+        assertEquals(3, offsetPage.getTotalPages());
+        List<String> offsetIds = new ArrayList<>();
+        offsetPage.getContent().forEach(r -> offsetIds.add(r.getId()));
+        assertEquals(ids(all).subList(5, 10), offsetIds);
+    }
+    
+    @Test
+    @DisplayName("非法游标应该被拒绝")
+    public void shouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.queryRequirementConnection(
+            QueryRequirementConnectionInput.builder().first(5).after("not-a-cursor").build()));
+    }
+    
+    private List<String> ids(RequirementDefinitionConnection connection) {
+        List<String> ids = new ArrayList<>();
+        connection.getEdges().forEach(e -> ids.add(e.getNode().getId()));
+        return ids;
+    }
+    
+    private void createTestRequirement(String reqId) {
+        service.createRequirement(
+            CreateRequirementInput.builder()
+                .reqId(reqId)
+                .name("Requirement " + reqId)
+                .kind(RequirementKind.FUNCTIONAL)
+                .build()
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package com.sysml.platform.domain.requirements;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+
+/**
+ * RQ-REQ-QUERY-004: 选择集投影
+ * 验收条件：未选择的文本/关系字段不复制，未选择统计时不扫描全部匹配项，全量投影行为不变
+ */
+public class RequirementProjectionTest {
+
+    private static final RequirementProjection ID_NAME_ONLY = RequirementProjection.builder().build();
+
+    private RequirementService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new RequirementService();
+        for (int i = 0; i < 30; i++) {
+            service.createRequirement(CreateRequirementInput.builder()
+                .reqId(String.format("REQ-%03d", i))
+                .name("Requirement " + i)
+                .text("User story " + i)
+                .kind(RequirementKind.FUNCTIONAL)
+                .build());
+        }
+    }
+
+    @Test
+    @DisplayName("未选择的text与关系字段不应出现在结果中")
+    public void shouldOmitUnselectedFields() {
+        QueryRequirementsPayload all = service.queryRequirements(
+            QueryRequirementsInput.builder().page(0).size(5).build());
+        String sourceId = all.getContent().get(0).getId();
+        service.deriveRequirement(sourceId, all.getContent().get(1).getId());
+
+        QueryRequirementsPayload projected = service.queryRequirements(
+            QueryRequirementsInput.builder().page(0).size(5).build(), ID_NAME_ONLY);
+
+        RequirementDefinition first = projected.getContent().get(0);
+        assertEquals(sourceId, first.getId());
+        assertNotNull(first.getName());
+        assertNull(first.getText());
+        assertNull(first.getDerivedFrom());
+
+        RequirementDefinition withText = service.queryRequirements(
+            QueryRequirementsInput.builder().page(0).size(5).build(),
+            RequirementProjection.builder().text(true).build()).getContent().get(0);
+        assertNotNull(withText.getText());
+        assertNull(withText.getDerivedFrom());
+    }
+
+    @Test
+    @DisplayName("未选择统计字段时关键字查询页满即停")
+    public void shouldSkipTotalsWhenNotSelected() {
+        QueryRequirementsInput input = QueryRequirementsInput.builder()
+            .keyword("user story")
+            .page(0)
+            .size(10)
+            .build();
+
+        QueryRequirementsPayload withTotals = service.queryRequirements(input);
+        QueryRequirementsPayload withoutTotals = service.queryRequirements(input, ID_NAME_ONLY);
+
+        assertEquals(30, withTotals.getTotalElements());
+        assertEquals(3, withTotals.getTotalPages());
+        assertEquals(0, withoutTotals.getTotalElements());
+        assertEquals(withTotals.getContent().size(), withoutTotals.getContent().size());
+        for (int i = 0; i < withTotals.getContent().size(); i++) {
+            assertEquals(withTotals.getContent().get(i).getId(), withoutTotals.getContent().get(i).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("游标分页未选择翻页标记时仍返回同一页节点")
+    public void shouldProjectConnectionNodes() {
+        QueryRequirementConnectionInput input = QueryRequirementConnectionInput.builder().first(10).build();
+
+        RequirementDefinitionConnection full = service.queryRequirementConnection(input);
+        RequirementDefinitionConnection projected = service.queryRequirementConnection(input, ID_NAME_ONLY);
+
+        assertTrue(full.getPageInfo().isHasNextPage());
+        assertFalse(projected.getPageInfo().isHasNextPage());
+        assertEquals(full.getPageInfo().getEndCursor(), projected.getPageInfo().getEndCursor());
+        assertEquals(10, projected.getEdges().size());
+        assertNull(projected.getEdges().get(0).getNode().getText());
+        assertSame(full.getEdges().get(0).getNode(),
+            service.queryRequirementConnection(input, RequirementProjection.ALL).getEdges().get(0).getNode());
+    }
+}
@@ -0,0 +1,301 @@
+package com.sysml.platform.domain.requirements;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RQ-REQ-CRUD-001: 乐观并发更新/删除
+ * 验收条件：每次更新版本递增，过期版本返回冲突，同一版本的并发更新只有一个成功，不同需求互不影响；
+ * 建立关系同样生成新版本而不修改已读取的实例，并发创建同一reqId只有一个成功，并发关系不形成环，删除需求移除双向关系，创建后立即到达的更新不会被索引丢失
+ */
+public class RequirementVersioningTest {
+
+    private RequirementService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new RequirementService();
+    }
+
+    @Test
+    @DisplayName("更新应该递增版本并反映到查询结果")
+    public void shouldIncrementVersionOnUpdate() {
+        RequirementDefinition created = create("REQ-001");
+        assertEquals(1, created.getVersion());
+
+        UpdateRequirementPayload result = service.updateRequirement(created.getId(),
+            update("Renamed", 1L));
+
+        assertTrue(result.isOk());
+        assertEquals(2, result.getRequirement().getVersion());
+        assertEquals("Renamed", result.getRequirement().getName());
+        assertEquals(created.getText(), result.getRequirement().getText());
+        RequirementDefinition listed = service.queryRequirements(
+            QueryRequirementsInput.builder().page(0).size(10).build()).getContent().get(0);
+        assertEquals("Renamed", listed.getName());
+        assertEquals(2, listed.getVersion());
+    }
+
+    @Test
+    @DisplayName("过期版本的更新与删除应该返回冲突")
+    public void shouldRejectStaleVersion() {
+        RequirementDefinition created = create("REQ-001");
+        service.updateRequirement(created.getId(), update("First edit", 1L));
+
+        UpdateRequirementPayload stale = service.updateRequirement(created.getId(), update("Second edit", 1L));
+        assertFalse(stale.isOk());
+        assertEquals("REQ_VERSION_CONFLICT", stale.getError().getCode());
+        assertEquals("First edit", stale.getRequirement().getName());
+        assertEquals(2, stale.getRequirement().getVersion());
+
+        DeleteRequirementPayload staleDelete = service.deleteRequirement(created.getId(), 1L);
+        assertFalse(staleDelete.isOk());
+        assertEquals("REQ_VERSION_CONFLICT", staleDelete.getError().getCode());
+
+        assertTrue(service.deleteRequirement(created.getId(), 2L).isOk());
+        assertEquals("REQ_NOT_FOUND", service.updateRequirement(created.getId(), update("x", null)).getError().getCode());
+        assertEquals(0, service.queryRequirements(QueryRequirementsInput.builder().build()).getTotalElements());
+        // reqId在删除后可重新使用
+        assertTrue(service.createRequirement(input("REQ-001")).isOk());
+    }
+
+    @Test
+    @DisplayName("同一版本的并发更新只有一个成功")
+    public void shouldAllowSingleWinnerPerVersion() throws Exception {
+        RequirementDefinition created = create("REQ-001");
+        int writers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UpdateRequirementPayload>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String name = "Editor " + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return service.updateRequirement(created.getId(), update(name, 1L));
+            }));
+        }
+        start.countDown();
+
+        int winners = 0;
+        for (Future<UpdateRequirementPayload> future : futures) {
+            if (future.get(10, TimeUnit.SECONDS).isOk()) {
+                winners++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners);
+        RequirementDefinition latest = service.queryRequirements(
+            QueryRequirementsInput.builder().build()).getContent().get(0);
+        assertEquals(2, latest.getVersion());
+    }
+
+    @Test
+    @DisplayName("不同需求的并发无条件更新应该全部成功且不丢失")
+    public void shouldNotLoseConcurrentUpdates() throws Exception {
+        List<RequirementDefinition> requirements = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requirements.add(create(String.format("REQ-%03d", i)));
+        }
+        int updatesPerRequirement = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (RequirementDefinition req : requirements) {
+            for (int t = 0; t < 2; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerRequirement / 2; i++) {
+                        if (!service.updateRequirement(req.getId(), update(null, null)).isOk()) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, failures.get());
+        for (RequirementDefinition req : requirements) {
+            // 每次更新恰好递增一次版本
+            UpdateRequirementPayload latest = service.updateRequirement(req.getId(), update(null, null));
+            assertEquals(1 + updatesPerRequirement + 1, latest.getRequirement().getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("建立关系应该生成新版本，不修改已读取的实例")
+    public void shouldVersionRelationChanges() {
+        RequirementDefinition source = create("REQ-001");
+        RequirementDefinition target = create("REQ-002");
+
+        DeriveRequirementPayload derived = service.deriveRequirement(source.getId(), target.getId());
+        RefineRequirementPayload refined = service.refineRequirement(source.getId(), target.getId());
+
+        assertTrue(derived.isOk());
+        assertEquals(2, derived.getSource().getVersion());
+        assertEquals(Set.of(target.getId()), derived.getSource().getDerivedFrom());
+        assertTrue(refined.isOk());
+        assertEquals(3, refined.getSource().getVersion());
+        assertEquals(Set.of(target.getId()), refined.getSource().getDerivedFrom());
+        // 之前读取的实例保持原状
+        assertNull(source.getDerivedFrom());
+        assertEquals(1, source.getVersion());
+        assertNull(derived.getSource().getRefines());
+        assertFalse(service.updateRequirement(source.getId(), update("x", 1L)).isOk());
+    }
+
+    @Test
+    @DisplayName("并发的更新与建立关系应该互不丢失")
+    public void shouldNotLoseConcurrentRelationChanges() throws Exception {
+        RequirementDefinition source = create("REQ-SRC");
+        List<RequirementDefinition> targets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            targets.add(create(String.format("REQ-T%02d", i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            for (RequirementDefinition target : targets) {
+                assertTrue(service.deriveRequirement(source.getId(), target.getId()).isOk());
+            }
+        }));
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(service.updateRequirement(source.getId(), update("Edit " + i, null)).isOk());
+            }
+        }));
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        RequirementDefinition latest = service.updateRequirement(source.getId(), update(null, null)).getRequirement();
+        assertEquals(50, latest.getDerivedFrom().size());
+        assertEquals("Edit 49", latest.getName());
+        assertEquals(1 + 50 + 50 + 1, latest.getVersion());
+    }
+
+    @Test
+    @DisplayName("并发建立相反方向的derive关系不应该形成环")
+    public void shouldRejectConcurrentDerivesClosingCycle() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 200; i++) {
+            RequirementDefinition a = create(String.format("REQ-A%03d", i));
+            RequirementDefinition b = create(String.format("REQ-B%03d", i));
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Future<Boolean> forward = executor.submit(() -> {
+                barrier.await();
+                return service.deriveRequirement(a.getId(), b.getId()).isOk();
+            });
+            Future<Boolean> backward = executor.submit(() -> {
+                barrier.await();
+                return service.deriveRequirement(b.getId(), a.getId()).isOk();
+            });
+            assertNotEquals(forward.get(30, TimeUnit.SECONDS), backward.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("删除需求应该移除双向关系")
+    public void shouldRemoveRelationsOfDeletedRequirement() {
+        RequirementDefinition source = create("REQ-DEL-SRC");
+        RequirementDefinition removed = create("REQ-DEL-MID");
+        RequirementDefinition target = create("REQ-DEL-TGT");
+        RequirementDefinition abstract_ = create("REQ-DEL-ABS");
+        assertTrue(service.deriveRequirement(source.getId(), removed.getId()).isOk());
+        assertTrue(service.deriveRequirement(removed.getId(), target.getId()).isOk());
+        assertTrue(service.deriveRequirement(source.getId(), target.getId()).isOk());
+        assertTrue(service.refineRequirement(abstract_.getId(), removed.getId()).isOk());
+        assertTrue(service.refineRequirement(removed.getId(), abstract_.getId()).isOk());
+
+        assertTrue(service.deleteRequirement(removed.getId(), null).isOk());
+
+        RequirementRelationsPayload sourceRelations = service.getRequirementRelations(source.getId());
+        assertEquals(Set.of(target.getId()), sourceRelations.getDerives());
+        assertEquals(Set.of(), service.getRequirementRelations(abstract_.getId()).getRefines());
+        RequirementDefinition latestSource = service.updateRequirement(source.getId(), update(null, null)).getRequirement();
+        assertEquals(Set.of(target.getId()), latestSource.getDerivedFrom());
+        RequirementDefinition latestAbstract =
+            service.updateRequirement(abstract_.getId(), update(null, null)).getRequirement();
+        assertEquals(Set.of(), latestAbstract.getRefines());
+    }
+
+    @Test
+    @DisplayName("并发创建同一reqId应该只有一个成功")
+    public void shouldCreateUniqueReqIdUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return service.createRequirement(input("REQ-SAME")).isOk();
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        for (Future<Boolean> future : futures) {
+            created += future.get(30, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(1, service.queryRequirements(QueryRequirementsInput.builder().page(0).size(10).build())
+            .getContent().size());
+    }
+
+    @Test
+    @DisplayName("创建后立即到达的更新应该反映到有序索引")
+    public void shouldIndexUpdateRacingWithCreate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 200; i++) {
+            String reqId = String.format("REQ-RACE-%03d", i);
+            // 按reqId更新，创建一发布到仓库即可成功
+            Future<?> updater = executor.submit(() -> {
+                while (!service.updateRequirement(reqId, update("Updated", null)).isOk()) {
+                    Thread.onSpinWait();
+                }
+            });
+            executor.submit(() -> create(reqId)).get(30, TimeUnit.SECONDS);
+            updater.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<RequirementDefinition> content = service.queryRequirements(
+            QueryRequirementsInput.builder().page(0).size(200).build()).getContent();
+        assertEquals(200, content.size());
+        for (RequirementDefinition req : content) {
+            assertEquals(2, req.getVersion());
+            assertEquals("Updated", req.getName());
+        }
+    }
+
+    private RequirementDefinition create(String reqId) {
+        return service.createRequirement(input(reqId)).getRequirement();
+    }
+
+    private CreateRequirementInput input(String reqId) {
+        return CreateRequirementInput.builder()
+            .reqId(reqId)
+            .name("Requirement " + reqId)
+            .text("Text of " + reqId)
+            .kind(RequirementKind.FUNCTIONAL)
+            .build();
+    }
+
+    private UpdateRequirementInput update(String name, Long expectedVersion) {
+        UpdateRequirementInput input = new UpdateRequirementInput();
+        input.setName(name);
+        input.setExpectedVersion(expectedVersion);
+        return input;
+    }
+}
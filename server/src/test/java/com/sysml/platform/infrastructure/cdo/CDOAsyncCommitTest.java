@@ -0,0 +1,101 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RQ-INFRA-TX-002: 异步流水线提交
+ * 验收条件：commitAsync返回提交结果并可在指定执行器上完成，多个在途提交按调用顺序得到版本号并一起落盘，冲突以异常完成
+ */
+public class CDOAsyncCommitTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("异步提交应该返回版本号与写入路径")
+    public void shouldReturnCommitInfo() throws Exception {
+        CDOTransactionManager manager = new CDOTransactionManager();
+        CDOTransaction tx = manager.beginTransaction();
+        tx.createResource("/model/a").setAttribute("name", "A");
+        tx.createResource("/model/b");
+
+        CommitInfo info = tx.commitAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, info.getVersion());
+        assertEquals(0, info.getStartVersion());
+        assertEquals(Set.of("/model/a", "/model/b"), info.getChangedPaths());
+        assertEquals(1, tx.getCommitVersion());
+        assertFalse(tx.isActive());
+        assertEquals(-1, manager.beginTransaction().commitAsync().get(5, TimeUnit.SECONDS).getVersion());
+    }
+
+    @Test
+    @DisplayName("指定执行器的异步提交应该在该执行器上完成")
+    public void shouldCompleteOnGivenExecutor() throws Exception {
+        CDOTransactionManager manager = new CDOTransactionManager(new CommitLog(directory, 20000, 256, 100000));
+        List<Runnable> completions = Collections.synchronizedList(new ArrayList<>());
+        try {
+            CDOTransaction tx = manager.beginTransaction();
+            tx.createResource("/model/a");
+
+            CompletableFuture<CommitInfo> result = tx.commitAsync(command -> {
+                completions.add(command);
+                command.run();
+            });
+
+            assertEquals(1, result.get(5, TimeUnit.SECONDS).getVersion());
+            assertEquals(1, completions.size());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("多个在途提交应该按调用顺序得到版本号，并由组提交一起落盘")
+    public void shouldPipelineCommitsInOrder() throws Exception {
+        CommitLog log = new CommitLog(directory, 20000, 256, 100000);
+        CDOTransactionManager manager = new CDOTransactionManager(log);
+        List<CompletableFuture<CommitInfo>> inFlight = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            CDOTransaction tx = manager.beginTransaction();
+            tx.createResource("/import/e" + i).setAttribute("index", i);
+            inFlight.add(tx.commitAsync());
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < inFlight.size(); i++) {
+            assertEquals(i + 1, inFlight.get(i).join().getVersion());
+        }
+        assertEquals(50, manager.getCommittedVersion());
+        assertEquals(50, manager.countResources("/import"));
+        assertTrue(log.getSyncCount() < 50);
+        manager.close();
+
+        CDOTransactionManager recovered = new CDOTransactionManager(new CommitLog(directory, 0, 256, 100000));
+        assertEquals(49, recovered.getResource("/import/e49").getAttribute("index"));
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("冲突与非活跃事务的异步提交应该以异常完成")
+    public void shouldFailConflictingCommit() {
+        CDOTransactionManager manager = new CDOTransactionManager();
+        CDOTransaction first = manager.beginTransaction();
+        CDOTransaction second = manager.beginTransaction();
+        first.createResource("/model/a");
+        second.createResource("/model/a");
+
+        assertDoesNotThrow(() -> first.commitAsync().join());
+        CompletionException conflict = assertThrows(CompletionException.class, () -> second.commitAsync().join());
+        assertInstanceOf(CommitConflictException.class, conflict.getCause());
+        assertEquals(conflict.getCause(), second.getConflict());
+        CompletionException inactive = assertThrows(CompletionException.class, () -> second.commitAsync().join());
+        assertInstanceOf(IllegalStateException.class, inactive.getCause());
+    }
+}
@@ -0,0 +1,124 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 审计历史与时间点读取
+ * 验收条件：按版本与时间点读取资源历史状态，差异链经关键帧截断，压缩按保留策略裁剪且保留窗口起点状态
+ */
+public class CDOAuditHistoryTest {
+
+    private AuditHistory audit;
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        audit = new AuditHistory(4, 60000, 1000, 0);
+        transactionManager = new CDOTransactionManager(null, audit, false, 10000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("应该按版本读取资源的历史状态，包括删除与重建")
+    public void shouldReadResourceAtVersion() {
+        write("/model/a", "name", "v1");                         // 版本1
+        for (int i = 2; i <= 10; i++) {
+            write("/model/a", "name", "v" + i);                  // 版本2..10，跨越多个关键帧
+        }
+        CDOTransaction unset = transactionManager.beginTransaction();
+        unset.getResource("/model/a").unsetAttribute("name");
+        unset.getResource("/model/a").setAttribute("doc", "text");
+        assertTrue(unset.commit());                              // 版本11
+        CDOTransaction delete = transactionManager.beginTransaction();
+        delete.deleteResource("/model/a");
+        assertTrue(delete.commit());                             // 版本12
+        CDOTransaction recreate = transactionManager.beginTransaction();
+        recreate.createResource("/model/a").setAttribute("name", "again");
+        assertTrue(recreate.commit());                           // 版本13
+
+        for (int v = 1; v <= 10; v++) {
+            assertEquals("v" + v, transactionManager.getResource("/model/a", v).getAttribute("name"));
+        }
+        assertEquals(Map.of("doc", "text"), transactionManager.getResource("/model/a", 11).getAttributes());
+        assertNull(transactionManager.getResource("/model/a", 12));
+        assertEquals(Map.of("name", "again"), transactionManager.getResource("/model/a", 13).getAttributes());
+        assertEquals("again", transactionManager.getResource("/model/a", 99).getAttribute("name"));
+        assertNull(transactionManager.getResource("/model/a", 0));
+        assertNull(transactionManager.getResource("/model/missing", 5));
+        assertThrows(IllegalStateException.class,
+            () -> transactionManager.getResource("/model/a", 5).setAttribute("name", "x"));
+    }
+
+    @Test
+    @DisplayName("应该按时间点读取资源状态")
+    public void shouldReadResourceAtTimestamp() throws InterruptedException {
+        Instant before = Instant.now().minusSeconds(1);
+        write("/model/a", "name", "first");
+        Thread.sleep(20);
+        Instant between = Instant.now();
+        Thread.sleep(20);
+        write("/model/a", "name", "second");
+
+        assertNull(transactionManager.getResource("/model/a", before));
+        assertEquals("first", transactionManager.getResource("/model/a", between).getAttribute("name"));
+        assertEquals("second", transactionManager.getResource("/model/a", Instant.now()).getAttribute("name"));
+    }
+
+    @Test
+    @DisplayName("压缩应该裁剪过期记录，保留窗口起点状态并移除过期墓碑")
+    public void shouldCompactByRetentionPolicy() {
+        for (int i = 1; i <= 10; i++) {
+            write("/model/a", "name", "v" + i);
+        }
+        write("/model/b", "name", "b");
+        CDOTransaction delete = transactionManager.beginTransaction();
+        delete.deleteResource("/model/b");
+        assertTrue(delete.commit());                             // 版本12
+        assertEquals(12, audit.size());
+
+        // 全部记录都已超过保留时间：a只保留当前状态，b的墓碑整体移除
+        audit.compact(System.currentTimeMillis() + 120000);
+
+        assertEquals(1, audit.size());
+        assertEquals("v10", transactionManager.getResource("/model/a", 10).getAttribute("name"));
+        assertNull(transactionManager.getResource("/model/a", 9));
+        assertNull(transactionManager.getResource("/model/b", 11));
+        write("/model/a", "name", "v13");
+        assertEquals("v10", transactionManager.getResource("/model/a", 12).getAttribute("name"));
+        assertEquals("v13", transactionManager.getResource("/model/a", 13).getAttribute("name"));
+    }
+
+    @Test
+    @DisplayName("应该限制每条路径的历史记录数")
+    public void shouldCapVersionsPerPath() {
+        AuditHistory capped = new AuditHistory(4, Long.MAX_VALUE / 2, 3, 0);
+        CDOTransactionManager manager = new CDOTransactionManager(null, capped, false, 10000, new SimpleMeterRegistry());
+        CDOTransaction create = manager.beginTransaction();
+        create.createResource("/model/a").setAttribute("name", "v1");
+        assertTrue(create.commit());
+        for (int i = 2; i <= 6; i++) {
+            CDOTransaction tx = manager.beginTransaction();
+            tx.getResource("/model/a").setAttribute("name", "v" + i);
+            assertTrue(tx.commit());
+        }
+
+        capped.compact(System.currentTimeMillis());
+
+        assertEquals(3, capped.size());
+        assertNull(manager.getResource("/model/a", 3));
+        assertEquals("v4", manager.getResource("/model/a", 4).getAttribute("name"));
+        assertEquals("v6", manager.getResource("/model/a", 6).getAttribute("name"));
+        assertThrows(IllegalStateException.class, () -> new CDOTransactionManager().getResource("/model/a", 1));
+    }
+
+    private void write(String path, String name, Object value) {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getOrCreateResource(path).setAttribute(name, value);
+        assertTrue(tx.commit());
+    }
+}
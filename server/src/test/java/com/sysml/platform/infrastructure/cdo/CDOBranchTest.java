@@ -0,0 +1,131 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 写时复制分支
+ * 验收条件：分支读取回落到父仓库的基础版本，分支提交对父仓库不可见，合并按路径检测冲突
+ */
+public class CDOBranchTest {
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager(null, null, true, 10000, new SimpleMeterRegistry());
+        CDOTransaction setup = transactionManager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("name", "A");
+        setup.createResource("/model/b").setAttribute("name", "B");
+        setup.createResource("/model/c").setAttribute("name", "C");
+        assertTrue(setup.commit());
+    }
+
+    @Test
+    @DisplayName("分支应该共享父仓库的资源，分支提交与父仓库之后的提交互不可见")
+    public void shouldIsolateBranchFromParent() {
+        CDOBranch branch = transactionManager.createBranch("what-if");
+        assertEquals(1, branch.getBaseVersion());
+        assertEquals("A", branch.getResource("/model/a").getAttribute("name"));
+        assertEquals(0, branch.getStoredPathCount());
+
+        CDOTransaction tx = branch.beginTransaction();
+        tx.getResource("/model/a").setAttribute("name", "A-branch");
+        tx.deleteResource("/model/b");
+        tx.createResource("/model/d");
+        assertTrue(tx.commit());
+        CDOTransaction main = transactionManager.beginTransaction();
+        main.getResource("/model/c").setAttribute("name", "C-main");
+        assertTrue(main.commit());
+
+        assertEquals("A-branch", branch.getResource("/model/a").getAttribute("name"));
+        assertFalse(branch.resourceExists("/model/b"));
+        assertEquals("C", branch.getResource("/model/c").getAttribute("name"));
+        assertEquals(List.of("/model/a", "/model/c", "/model/d"), branch.listResources("/model"));
+        assertEquals(3, branch.countResources("/model"));
+        assertEquals(3, branch.getStoredPathCount());
+
+        assertEquals("A", transactionManager.getResource("/model/a").getAttribute("name"));
+        assertTrue(transactionManager.resourceExists("/model/b"));
+        assertFalse(transactionManager.resourceExists("/model/d"));
+    }
+
+    @Test
+    @DisplayName("合并应该把分支的全部变更作为一次提交应用到父仓库")
+    public void shouldMergeBranch() {
+        CDOBranch branch = transactionManager.createBranch("feature");
+        for (int i = 1; i <= 3; i++) {
+            CDOTransaction tx = branch.beginTransaction();
+            tx.getResource("/model/a").setAttribute("step", i);
+            assertTrue(tx.commit());
+        }
+        CDOTransaction tx = branch.beginTransaction();
+        tx.getResource("/model/a").unsetAttribute("name");
+        tx.deleteResource("/model/b");
+        tx.createResource("/model/d").setAttribute("name", "D");
+        assertTrue(tx.commit());
+        CDOTransaction unrelated = transactionManager.beginTransaction();
+        unrelated.getResource("/model/c").setAttribute("name", "C-main");
+        assertTrue(unrelated.commit());
+
+        CommitInfo info = branch.merge();
+
+        assertEquals(3, info.getVersion());
+        assertEquals(Set.of("/model/a", "/model/b", "/model/d"), info.getChangedPaths());
+        assertEquals(Map.of("step", 3), transactionManager.getResource("/model/a").getAttributes());
+        assertFalse(transactionManager.resourceExists("/model/b"));
+        assertEquals("C-main", transactionManager.getResource("/model/c").getAttribute("name"));
+        assertEquals("D", transactionManager.getResource("/model/d").getAttribute("name"));
+        assertTrue(branch.isClosed());
+        assertThrows(IllegalStateException.class, () -> branch.getResource("/model/a"));
+        assertEquals(0, transactionManager.getActiveTransactionCount());
+    }
+
+    @Test
+    @DisplayName("父仓库修改了分支变更的路径时合并应该冲突")
+    public void shouldDetectMergeConflictsPerPath() {
+        CDOBranch branch = transactionManager.createBranch("conflicting");
+        CDOTransaction tx = branch.beginTransaction();
+        tx.getResource("/model/a").setAttribute("name", "A-branch");
+        tx.getResource("/model/b").setAttribute("name", "B-branch");
+        assertTrue(tx.commit());
+        CDOTransaction main = transactionManager.beginTransaction();
+        main.getResource("/model/a").setAttribute("name", "A-main");
+        assertTrue(main.commit());
+
+        CommitConflictException conflict = assertThrows(CommitConflictException.class, branch::merge);
+
+        assertEquals(Set.of("/model/a"), conflict.getConflictingPaths());
+        assertFalse(branch.isClosed());
+        assertEquals("B", transactionManager.getResource("/model/b").getAttribute("name"));
+        branch.close();
+    }
+
+    @Test
+    @DisplayName("子分支应该逐级回落读取，分支功能关闭时不能创建分支")
+    public void shouldSupportNestedBranches() {
+        CDOBranch parent = transactionManager.createBranch("parent");
+        CDOTransaction tx = parent.beginTransaction();
+        tx.getResource("/model/a").setAttribute("name", "A-parent");
+        assertTrue(tx.commit());
+        CDOBranch child = parent.createBranch("child");
+        CDOTransaction childTx = child.beginTransaction();
+        childTx.getResource("/model/b").setAttribute("name", "B-child");
+        assertTrue(childTx.commit());
+
+        assertEquals("A-parent", child.getResource("/model/a").getAttribute("name"));
+        assertEquals("C", child.getResource("/model/c").getAttribute("name"));
+        child.merge();
+        assertEquals("B-child", parent.getResource("/model/b").getAttribute("name"));
+        assertEquals("B", transactionManager.getResource("/model/b").getAttribute("name"));
+        parent.merge();
+        assertEquals("B-child", transactionManager.getResource("/model/b").getAttribute("name"));
+        assertEquals("A-parent", transactionManager.getResource("/model/a").getAttribute("name"));
+
+        assertThrows(IllegalStateException.class, () -> new CDOTransactionManager().createBranch("x"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import java.nio.file.Path;
+
+/**
+ * RQ-INFRA-CDO-001: CDO事务与存储指标
+ * 验收条件：事务计数、分阶段提交延迟、提交规模、冲突与存储规模可观测，健康检查反映提交日志状态与延迟SLO
+ */
+public class CDOMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry registry;
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        transactionManager = new CDOTransactionManager(null, 10000, registry);
+    }
+
+    @Test
+    @DisplayName("应该记录事务计数、活跃事务数、冲突与存储规模")
+    public void shouldCountTransactions() {
+        CDOTransaction first = transactionManager.beginTransaction();
+        CDOTransaction second = transactionManager.beginTransaction();
+        CDOTransaction rolledBack = transactionManager.beginTransaction();
+        assertEquals(3.0, registry.get(CDOMetrics.TRANSACTIONS_ACTIVE).gauge().value());
+
+        first.createResource("/model/a");
+        first.createResource("/model/b");
+        second.createResource("/model/a");
+        assertTrue(first.commit());
+        assertFalse(second.commit());
+        assertTrue(rolledBack.rollback());
+
+        assertEquals(3.0, registry.get(CDOMetrics.TRANSACTIONS_BEGUN).counter().count());
+        assertEquals(1.0, registry.get(CDOMetrics.TRANSACTIONS_COMMITTED).counter().count());
+        assertEquals(1.0, registry.get(CDOMetrics.TRANSACTIONS_ROLLED_BACK).counter().count());
+        assertEquals(1.0, registry.get(CDOMetrics.COMMIT_CONFLICTS).counter().count());
+        assertEquals(0.0, registry.get(CDOMetrics.TRANSACTIONS_ACTIVE).gauge().value());
+        assertEquals(2.0, registry.get(CDOMetrics.STORE_RESOURCES).gauge().value());
+        assertEquals(1.0, registry.get(CDOMetrics.STORE_VERSION).gauge().value());
+        assertEquals(2.0, registry.get(CDOMetrics.COMMIT_RESOURCES).summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("应该按流水线阶段记录提交延迟")
+    public void shouldRecordStageLatency() {
+        CDOTransactionManager persistent = new CDOTransactionManager(
+            new CommitLog(directory, 0, 256, 100000), 10000, registry);
+        for (int i = 0; i < 3; i++) {
+            CDOTransaction tx = persistent.beginTransaction();
+            tx.createResource("/model/e" + i);
+            assertTrue(tx.commit());
+        }
+        persistent.close();
+
+        for (String stage : new String[] {"validate", "sequence", "durable", "total"}) {
+            assertEquals(3, registry.get(CDOMetrics.COMMIT_LATENCY).tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(3, persistent.metrics().recentCommits());
+        assertTrue(persistent.metrics().recentLatencyMillis(0.99) > 0);
+    }
+
+    @Test
+    @DisplayName("健康检查应该在提交日志关闭时为DOWN，超出延迟SLO时为DEGRADED")
+    public void shouldProbeHealth() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.createResource("/model/a");
+        assertTrue(tx.commit());
+        Health healthy = indicator(transactionManager, 500, 1).health();
+        assertEquals(Status.UP, healthy.getStatus());
+        assertEquals("lean", healthy.getDetails().get("mode"));
+        assertEquals(1, healthy.getDetails().get("resources"));
+
+        assertEquals(CDOHealthIndicator.DEGRADED, indicator(transactionManager, -1, 1).health().getStatus());
+        assertEquals(Status.UP, indicator(transactionManager, -1, 2).health().getStatus());
+
+        CDOTransactionManager persistent = new CDOTransactionManager(
+            new CommitLog(directory, 0, 256, 100000), 10000, new SimpleMeterRegistry());
+        assertEquals(Status.UP, indicator(persistent, 500, 1).health().getStatus());
+        persistent.close();
+        assertEquals(Status.DOWN, indicator(persistent, 500, 1).health().getStatus());
+    }
+
+    private CDOHealthIndicator indicator(CDOTransactionManager manager, long sloMillis, int minSamples) {
+        return new CDOHealthIndicator(manager, "sysml-repo", true, true, true, sloMillis, minSamples);
+    }
+}
@@ -0,0 +1,101 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 层级资源列举
+ * 验收条件：按前缀列举与计数只包含子树，子树删除随提交生效，列举结果遵循快照隔离
+ */
+public class CDOPathIndexTest {
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+        create("/project", "/project/model", "/project/model/a", "/project/model/b",
+            "/project/model/b/port", "/project/model-x", "/project/other/c");
+    }
+
+    @Test
+    @DisplayName("前缀列举应该只包含子树，不包含同名前缀的兄弟路径")
+    public void shouldListSubtree() {
+        assertEquals(List.of("/project/model", "/project/model/a", "/project/model/b", "/project/model/b/port"),
+            transactionManager.listResources("/project/model"));
+        assertEquals(transactionManager.listResources("/project/model"),
+            transactionManager.listResources("/project/model/"));
+        assertEquals(4, transactionManager.countResources("/project/model"));
+        assertEquals(7, transactionManager.countResources("/"));
+        assertEquals(0, transactionManager.countResources("/missing"));
+    }
+
+    @Test
+    @DisplayName("应该列举直接子节点，包括自身不是资源的中间节点")
+    public void shouldListChildren() {
+        assertEquals(List.of("/project/model", "/project/model-x", "/project/other"),
+            transactionManager.listChildren("/project"));
+        assertEquals(List.of("/project/model/a", "/project/model/b"),
+            transactionManager.listChildren("/project/model"));
+        assertEquals(List.of("/project"), transactionManager.listChildren("/"));
+    }
+
+    @Test
+    @DisplayName("子树删除应该在提交后生效，并且不影响兄弟路径")
+    public void shouldDeleteSubtree() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.createResource("/project/model/new");
+
+        assertEquals(5, tx.deleteSubtree("/project/model"));
+        assertTrue(tx.listResources("/project/model").isEmpty());
+        // 提交前其他读者仍然看到原子树
+        assertEquals(4, transactionManager.countResources("/project/model"));
+        assertTrue(tx.commit());
+
+        assertEquals(0, transactionManager.countResources("/project/model"));
+        assertEquals(List.of("/project", "/project/model-x", "/project/other/c"),
+            transactionManager.listResources("/project"));
+    }
+
+    @Test
+    @DisplayName("事务列举应该基于快照并包含本事务的新建与删除")
+    public void shouldListWithinSnapshot() {
+        CDOTransaction reader = transactionManager.beginTransaction();
+        CDOTransaction writer = transactionManager.beginTransaction();
+        writer.deleteResource("/project/model/a");
+        writer.createResource("/project/model/z");
+        assertEquals(List.of("/project/model", "/project/model/b", "/project/model/b/port", "/project/model/z"),
+            writer.listResources("/project/model"));
+        assertTrue(writer.commit());
+
+        assertEquals(List.of("/project/model", "/project/model/a", "/project/model/b", "/project/model/b/port"),
+            reader.listResources("/project/model"));
+        assertEquals(List.of("/project/model", "/project/model/b", "/project/model/b/port", "/project/model/z"),
+            transactionManager.listResources("/project/model"));
+    }
+
+    @Test
+    @DisplayName("并发修改子树中的资源时子树删除应该冲突")
+    public void shouldConflictWithConcurrentSubtreeWrite() {
+        CDOTransaction deleter = transactionManager.beginTransaction();
+        CDOTransaction editor = transactionManager.beginTransaction();
+        deleter.deleteSubtree("/project/model");
+        editor.getResource("/project/model/b").setAttribute("name", "B");
+
+        assertTrue(editor.commit());
+        assertFalse(deleter.commit());
+        assertTrue(deleter.getConflict().getConflictingPaths().contains("/project/model/b"));
+        assertEquals(4, transactionManager.countResources("/project/model"));
+    }
+
+    private void create(String... paths) {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        for (String path : paths) {
+            tx.createResource(path);
+        }
+        assertTrue(tx.commit());
+    }
+}
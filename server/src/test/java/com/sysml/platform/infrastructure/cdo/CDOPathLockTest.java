@@ -0,0 +1,117 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RQ-INFRA-TX-002: 悲观锁与死锁检测
+ * 验收条件：读锁共享、写锁独占，锁随事务结束释放，等待超时与循环等待被检测，锁定路径的并发写入提交失败
+ */
+public class CDOPathLockTest {
+
+    private SimpleMeterRegistry registry;
+    private CDOTransactionManager transactionManager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        transactionManager = new CDOTransactionManager(null, null, false,
+            new PathLockManager(16, 2000), 10000, registry);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("读锁应该共享，写锁应该独占并在事务结束时释放")
+    public void shouldShareReadAndExcludeWrite() throws Exception {
+        CDOTransaction reader1 = transactionManager.beginTransaction();
+        CDOTransaction reader2 = transactionManager.beginTransaction();
+        reader1.lockRead("/model/a");
+        reader2.lockRead("/model/a");
+        assertEquals(Set.of("/model/a"), reader1.getLockedPaths());
+
+        CDOTransaction writer = transactionManager.beginTransaction();
+        assertThrows(LockTimeoutException.class, () -> writer.lockWrite("/model/a", 50));
+        assertEquals(1.0, registry.counter(CDOMetrics.LOCK_TIMEOUTS).count());
+
+        Future<?> waiting = executor.submit(() -> writer.lockWrite("/model/a", 2000));
+        reader1.rollback();
+        assertTrue(reader2.commit());
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(Set.of("/model/a"), writer.getLockedPaths());
+        assertThrows(LockTimeoutException.class, () -> transactionManager.beginTransaction().lockRead("/model/a", 50));
+
+        assertTrue(writer.commit());
+        assertFalse(transactionManager.isLocked("/model/a"));
+    }
+
+    @Test
+    @DisplayName("唯一读者应该可以升级为写锁，持有者可以重入")
+    public void shouldUpgradeAndReenter() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.lockRead("/model/a");
+        tx.lockWrite("/model/a");
+        tx.lockRead("/model/a");
+        tx.lockWrite("/model/a");
+        assertTrue(transactionManager.isLocked("/model/a"));
+        tx.rollback();
+        assertFalse(transactionManager.isLocked("/model/a"));
+    }
+
+    @Test
+    @DisplayName("循环等待应该被检测，请求方作为牺牲者失败")
+    public void shouldDetectDeadlock() throws Exception {
+        CDOTransaction first = transactionManager.beginTransaction();
+        CDOTransaction second = transactionManager.beginTransaction();
+        first.lockWrite("/model/a");
+        second.lockWrite("/model/b");
+
+        Future<?> firstWaits = executor.submit(() -> first.lockWrite("/model/b", 5000));
+        awaitWaiting(first, second);
+
+        assertThrows(DeadlockException.class, () -> second.lockWrite("/model/a", 5000));
+        assertEquals(1.0, registry.counter(CDOMetrics.LOCK_DEADLOCKS).count());
+        second.rollback();
+        firstWaits.get(5, TimeUnit.SECONDS);
+        assertEquals(Set.of("/model/a", "/model/b"), first.getLockedPaths());
+        first.rollback();
+    }
+
+    @Test
+    @DisplayName("写入被其他事务锁定的路径时提交应该冲突，超时的事务释放锁")
+    public void shouldRejectCommitOnLockedPath() throws InterruptedException {
+        CDOTransaction editor = transactionManager.beginTransaction(300);
+        editor.lockWrite("/model/a");
+        CDOTransaction other = transactionManager.beginTransaction();
+        other.createResource("/model/a");
+
+        assertFalse(other.commit());
+        assertEquals(Set.of("/model/a"), other.getConflict().getConflictingPaths());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transactionManager.isLocked("/model/a") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(editor.isTimedOut());
+        assertFalse(transactionManager.isLocked("/model/a"));
+        assertThrows(IllegalStateException.class, () -> new CDOTransactionManager().beginTransaction().lockRead("/x"));
+    }
+
+    private void awaitWaiting(CDOTransaction waiter, CDOTransaction holder) throws InterruptedException {
+        // 等待者进入等待后，持有者的请求才会构成循环
+        Thread.sleep(200);
+        assertTrue(waiter.isActive());
+        assertTrue(holder.isActive());
+    }
+}
@@ -0,0 +1,70 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 只读事务
+ * 验收条件：只读事务读取固定快照，拒绝写入，结束后释放快照且不可再读取
+ */
+public class CDOReadOnlyTransactionTest {
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+        CDOTransaction setup = transactionManager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("name", "A");
+        assertTrue(setup.commit());
+    }
+
+    @Test
+    @DisplayName("只读事务应该读取开始时的快照")
+    public void shouldReadPinnedSnapshot() {
+        try (CDOReadOnlyTransaction reader = transactionManager.beginReadOnlyTransaction()) {
+            CDOTransaction writer = transactionManager.beginTransaction();
+            writer.getResource("/model/a").setAttribute("name", "A2");
+            writer.createResource("/model/b");
+            assertTrue(writer.commit());
+
+            assertEquals(1, reader.getStartVersion());
+            assertEquals("A", reader.getAttribute("/model/a", "name"));
+            assertEquals("A", reader.getResource("/model/a").getAttribute("name"));
+            assertFalse(reader.resourceExists("/model/b"));
+            assertNull(reader.getResource("/model/b"));
+            assertEquals(List.of("/model/a"), reader.listResources("/model"));
+        }
+        assertEquals("A2", transactionManager.getResource("/model/a").getAttribute("name"));
+    }
+
+    @Test
+    @DisplayName("只读事务返回的资源应该拒绝修改")
+    public void shouldRejectWrites() {
+        try (CDOReadOnlyTransaction reader = transactionManager.beginReadOnlyTransaction()) {
+            CDOResource resource = reader.getResource("/model/a");
+            assertThrows(IllegalStateException.class, () -> resource.setAttribute("name", "changed"));
+            assertThrows(IllegalStateException.class, () -> resource.unsetAttribute("name"));
+            assertEquals(Map.of("name", "A"), resource.getAttributes());
+            assertFalse(resource.isDirty());
+        }
+        assertEquals("A", transactionManager.getResource("/model/a").getAttribute("name"));
+    }
+
+    @Test
+    @DisplayName("结束只读事务应该释放快照，之后读取失败")
+    public void shouldReleaseOnClose() {
+        CDOReadOnlyTransaction reader = transactionManager.beginReadOnlyTransaction();
+        assertEquals(1, transactionManager.getActiveTransactionCount());
+
+        reader.close();
+        reader.close();
+
+        assertFalse(reader.isActive());
+        assertEquals(0, transactionManager.getActiveTransactionCount());
+        assertThrows(IllegalStateException.class, () -> reader.getResource("/model/a"));
+    }
+}
@@ -0,0 +1,241 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 常驻内存有界
+ * 验收条件：已提交资源的常驻权重不超过上限，淘汰的资源从磁盘装回且读写、冲突检测与快照隔离不变，
+ * 事务持有工作副本的路径不被淘汰，检查点与恢复包含已淘汰的资源，共用目录的实例互不干扰
+ */
+public class CDOResourceCacheTest {
+
+    private static final long MAX_WEIGHT = 20000;
+    private static final String PAYLOAD = "x".repeat(100);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("常驻权重应该不超过上限，淘汰的资源可以从磁盘读回")
+    public void shouldBoundResidentWeight() {
+        ResourceStore store = new ResourceStore(directory.resolve("cache"));
+        CDOTransactionManager manager = open(null, store);
+        try {
+            for (int i = 0; i < 500; i++) {
+                write(manager, "/model/r" + i, "name", PAYLOAD + i);
+            }
+            assertTrue(manager.getCacheWeight() <= MAX_WEIGHT);
+            assertTrue(manager.getSpilledPathCount() > 0);
+            assertTrue(manager.getCacheEvictionCount() > 0);
+            assertTrue(manager.getResidentPathCount() < 500);
+
+            assertEquals(500, manager.countResources("/model"));
+            for (int i = 0; i < 500; i++) {
+                assertEquals(PAYLOAD + i, manager.getResource("/model/r" + i).getAttribute("name"));
+            }
+            assertTrue(manager.getCacheWeight() <= MAX_WEIGHT);
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("修改与删除已淘汰的资源应该生效，删除后不会从磁盘复活")
+    public void shouldModifyAndDeleteEvictedResources() {
+        ResourceStore store = new ResourceStore(directory.resolve("cache"));
+        CDOTransactionManager manager = open(null, store);
+        try {
+            for (int i = 0; i < 500; i++) {
+                write(manager, "/model/r" + i, "name", PAYLOAD + i);
+            }
+            String evicted = firstSpilled(store, 500);
+
+            CDOTransaction tx = manager.beginTransaction();
+            tx.getResource(evicted).setAttribute("name", "changed");
+            assertTrue(tx.commit());
+            assertEquals("changed", manager.getResource(evicted).getAttribute("name"));
+
+            CDOTransaction delete = manager.beginTransaction();
+            delete.deleteResource(evicted);
+            assertTrue(delete.commit());
+            // 挤出缓存中的其他资源后仍不可见
+            for (int i = 0; i < 500; i++) {
+                manager.getResource("/model/r" + i);
+            }
+            assertFalse(manager.resourceExists(evicted));
+            assertFalse(store.contains(evicted));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("已淘汰资源的写写冲突与快照隔离应该不变")
+    public void shouldKeepIsolationAcrossEviction() {
+        ResourceStore store = new ResourceStore(directory.resolve("cache"));
+        CDOTransactionManager manager = open(null, store);
+        try {
+            for (int i = 0; i < 500; i++) {
+                write(manager, "/model/r" + i, "name", PAYLOAD + i);
+            }
+            String evicted = firstSpilled(store, 500);
+            CDOReadOnlyTransaction reader = manager.beginReadOnlyTransaction();
+            CDOTransaction first = manager.beginTransaction();
+            CDOTransaction second = manager.beginTransaction();
+            first.getResource(evicted).setAttribute("name", "first");
+            second.getResource(evicted).setAttribute("name", "second");
+            assertTrue(first.commit());
+            assertFalse(second.commit());
+            assertNotNull(second.getConflict());
+
+            // 旧快照仍引用的版本链不被淘汰
+            for (int i = 0; i < 500; i++) {
+                manager.getResource("/model/r" + i);
+            }
+            assertEquals(PAYLOAD + evicted.substring("/model/r".length()),
+                reader.getResource(evicted).getAttribute("name"));
+            assertEquals("first", manager.getResource(evicted).getAttribute("name"));
+            reader.close();
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("事务持有工作副本的路径在提交前应该被钉住不淘汰")
+    public void shouldPinDirtyResources() {
+        ResourceStore store = new ResourceStore(directory.resolve("cache"));
+        CDOTransactionManager manager = open(null, store);
+        try {
+            write(manager, "/model/dirty", "name", "before");
+            CDOTransaction tx = manager.beginTransaction();
+            tx.getResource("/model/dirty").setAttribute("name", "after");
+            for (int i = 0; i < 500; i++) {
+                write(manager, "/model/r" + i, "name", PAYLOAD + i);
+            }
+            assertFalse(store.contains("/model/dirty"));
+            assertTrue(tx.commit());
+            assertEquals("after", manager.getResource("/model/dirty").getAttribute("name"));
+            assertTrue(manager.getCacheWeight() <= MAX_WEIGHT);
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("检查点与恢复应该包含已淘汰的资源")
+    public void shouldCheckpointAndRecoverEvictedResources() {
+        CDOTransactionManager manager = open(new CommitLog(directory.resolve("wal"), 0, 256, 50),
+            new ResourceStore(directory.resolve("cache")));
+        for (int i = 0; i < 300; i++) {
+            write(manager, "/model/r" + i, "name", PAYLOAD + i);
+        }
+        assertTrue(manager.getSpilledPathCount() > 0);
+        long version = manager.getCommittedVersion();
+        manager.close();
+
+        CDOTransactionManager recovered = open(new CommitLog(directory.resolve("wal"), 0, 256, 50),
+            new ResourceStore(directory.resolve("cache")));
+        try {
+            assertEquals(version, recovered.getCommittedVersion());
+            assertTrue(recovered.getCacheWeight() <= MAX_WEIGHT);
+            assertEquals(300, recovered.countResources("/model"));
+            for (int i = 0; i < 300; i++) {
+                assertEquals(PAYLOAD + i, recovered.getResource("/model/r" + i).getAttribute("name"));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("访问频率高的资源应该留在缓存中")
+    public void shouldRetainFrequentlyReadResources() {
+        ResourceStore store = new ResourceStore(directory.resolve("cache"));
+        CDOTransactionManager manager = open(null, store);
+        try {
+            write(manager, "/model/hot", "name", PAYLOAD);
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 20; i++) {
+                    manager.getResource("/model/hot");
+                }
+                for (int i = 0; i < 50; i++) {
+                    write(manager, "/model/r" + round + "-" + i, "name", PAYLOAD + i);
+                }
+            }
+            assertFalse(store.contains("/model/hot"));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("共用配置目录的多个实例应该各自使用独立的存放文件")
+    public void shouldIsolateStoresSharingDirectory() throws Exception {
+        Path shared = directory.resolve("cache");
+        ResourceStore first = new ResourceStore(shared);
+        assertTrue(first.write("/model/a", 1, resource("/model/a", "first")));
+        ResourceStore second = new ResourceStore(shared);
+        try {
+            assertNotEquals(first.getDirectory(), second.getDirectory());
+            assertTrue(second.write("/model/a", 1, resource("/model/a", "second")));
+            assertEquals("first", first.read("/model/a").getState().getAttribute("name"));
+            assertEquals("second", second.read("/model/a").getState().getAttribute("name"));
+        } finally {
+            second.close();
+        }
+        assertEquals("first", first.read("/model/a").getState().getAttribute("name"));
+        first.close();
+        assertFalse(Files.exists(first.getDirectory()));
+    }
+
+    @Test
+    @DisplayName("启动时应该清理已无人持有的存放目录")
+    public void shouldRemoveAbandonedStoreDirectories() throws Exception {
+        Path shared = directory.resolve("cache");
+        Path abandoned = Files.createDirectories(shared.resolve("store-crashed"));
+        Files.createFile(abandoned.resolve("store.lock"));
+        Files.createFile(abandoned.resolve(ResourceStore.DATA_FILE));
+
+        ResourceStore store = new ResourceStore(shared);
+        try {
+            assertFalse(Files.exists(abandoned));
+            assertTrue(Files.exists(store.getDirectory()));
+        } finally {
+            store.close();
+        }
+    }
+
+    private static CDOResource resource(String path, String name) {
+        CDOResource resource = new CDOResource(path);
+        resource.setAttribute("name", name);
+        return resource;
+    }
+
+    private static CDOTransactionManager open(CommitLog log, ResourceStore store) {
+        return new CDOTransactionManager(log, null, false, null, store, MAX_WEIGHT,
+            CDOTransactionManager.DEFAULT_TIMEOUT_MILLIS, new SimpleMeterRegistry());
+    }
+
+    private static String firstSpilled(ResourceStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            if (store.contains("/model/r" + i)) {
+                return "/model/r" + i;
+            }
+        }
+        return fail("no resource was evicted");
+    }
+
+    private static void write(CDOTransactionManager manager, String path, String name, Object value) {
+        CDOTransaction tx = manager.beginTransaction();
+        tx.getOrCreateResource(path).setAttribute(name, value);
+        assertTrue(tx.commit());
+    }
+}
@@ -0,0 +1,159 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 属性级差异
+ * 验收条件：事务修改只记录属性差异且不泄漏，提交只应用差异，日志只记录差异，恢复后状态一致
+ */
+public class CDOResourceDeltaTest {
+
+    @TempDir
+    Path directory;
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+    }
+
+    @Test
+    @DisplayName("修改应该记录为带新旧值的属性差异")
+    public void shouldRecordAttributeDeltas() {
+        write(Map.of("name", "Engine", "mass", 100, "color", "red"));
+
+        CDOTransaction tx = transactionManager.beginTransaction();
+        CDOResource resource = tx.getResource("/model/part");
+        assertFalse(resource.isDirty());
+        resource.setAttribute("mass", 120);
+        resource.unsetAttribute("color");
+        resource.setAttribute("name", "Engine");
+
+        Map<String, AttributeDelta> deltas = new HashMap<>();
+        resource.getDeltas().forEach(delta -> deltas.put(delta.getName(), delta));
+        assertEquals(Set.of("mass", "color"), deltas.keySet());
+        assertEquals(AttributeDelta.Kind.SET, deltas.get("mass").getKind());
+        assertEquals(100, deltas.get("mass").getOldValue());
+        assertEquals(120, deltas.get("mass").getNewValue());
+        assertEquals(AttributeDelta.Kind.UNSET, deltas.get("color").getKind());
+        assertEquals("red", deltas.get("color").getOldValue());
+        assertNull(resource.getAttribute("color"));
+        assertFalse(resource.hasAttribute("color"));
+
+        // 改回原值时撤销差异
+        resource.setAttribute("mass", 100);
+        assertEquals(1, resource.getDeltas().size());
+    }
+
+    @Test
+    @DisplayName("提交应该只应用差异并保留其余属性")
+    public void shouldApplyOnlyChangedAttributes() {
+        Map<String, Object> attributes = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            attributes.put("attr" + i, i);
+        }
+        write(attributes);
+
+        CDOTransaction tx = transactionManager.beginTransaction();
+        CDOResource resource = tx.getResource("/model/part");
+        resource.setAttribute("attr42", "changed");
+        resource.unsetAttribute("attr43");
+        resource.setAttribute("extra", true);
+        assertEquals(3, resource.getDeltas().size());
+        assertTrue(tx.commit());
+
+        CDOResource committed = transactionManager.getResource("/model/part");
+        assertEquals("changed", committed.getAttribute("attr42"));
+        assertFalse(committed.hasAttribute("attr43"));
+        assertEquals(true, committed.getAttribute("extra"));
+        assertEquals(7, committed.getAttribute("attr7"));
+        assertEquals(10_000, committed.getAttributes().size());
+    }
+
+    @Test
+    @DisplayName("管理器返回的资源被修改不应该影响已提交状态")
+    public void shouldNotLeakThroughManagerReads() {
+        write(Map.of("name", "Engine"));
+
+        transactionManager.getResource("/model/part").setAttribute("name", "Leaked");
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getResource("/model/part").setAttribute("name", "Uncommitted");
+
+        assertEquals("Engine", transactionManager.getResource("/model/part").getAttribute("name"));
+        assertFalse(tx.getResource("/model/part").getDeltas().isEmpty());
+    }
+
+    @Test
+    @DisplayName("多次提交叠加的差异应该保持正确")
+    public void shouldStackManyCommits() {
+        write(Map.of("counter", 0, "label", "start"));
+        for (int i = 1; i <= 50; i++) {
+            CDOTransaction tx = transactionManager.beginTransaction();
+            CDOResource resource = tx.getResource("/model/part");
+            resource.setAttribute("counter", i);
+            if (i % 2 == 0) {
+                resource.setAttribute("even", i);
+            } else {
+                resource.unsetAttribute("even");
+            }
+            assertTrue(tx.commit());
+        }
+
+        CDOResource committed = transactionManager.getResource("/model/part");
+        assertEquals(50, committed.getAttribute("counter"));
+        assertEquals(50, committed.getAttribute("even"));
+        assertEquals("start", committed.getAttribute("label"));
+        assertEquals(Map.of("counter", 50, "even", 50, "label", "start"), committed.getAttributes());
+    }
+
+    @Test
+    @DisplayName("日志应该只记录差异，恢复后状态一致")
+    public void shouldLogOnlyDeltas() throws Exception {
+        CDOTransactionManager manager = new CDOTransactionManager(new CommitLog(directory, 0, 256, 100000));
+        Map<String, Object> attributes = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            attributes.put("attr" + i, "value-" + i);
+        }
+        CDOTransaction create = manager.beginTransaction();
+        CDOResource resource = create.createResource("/model/part");
+        attributes.forEach(resource::setAttribute);
+        assertTrue(create.commit());
+        Path logFile = directory.resolve(CommitLog.LOG_FILE);
+        long fullSize = Files.size(logFile);
+
+        CDOTransaction update = manager.beginTransaction();
+        update.getResource("/model/part").setAttribute("attr500", "changed");
+        update.getResource("/model/part").unsetAttribute("attr501");
+        assertTrue(update.commit());
+        long deltaSize = Files.size(logFile) - fullSize;
+        manager.close();
+
+        assertTrue(deltaSize * 10 < fullSize, "delta=" + deltaSize + " full=" + fullSize);
+
+        CDOTransactionManager recovered = new CDOTransactionManager(new CommitLog(directory, 0, 256, 100000));
+        try {
+            CDOResource part = recovered.getResource("/model/part");
+            assertEquals("changed", part.getAttribute("attr500"));
+            assertFalse(part.hasAttribute("attr501"));
+            assertEquals("value-502", part.getAttribute("attr502"));
+            assertEquals(999, part.getAttributes().size());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private void write(Map<String, Object> attributes) {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        CDOResource resource = tx.getOrCreateResource("/model/part");
+        attributes.forEach(resource::setAttribute);
+        assertTrue(tx.commit());
+    }
+}
@@ -0,0 +1,104 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+
+/**
+ * RQ-INFRA-TX-002: 保存点与嵌套事务
+ * 验收条件：回滚到保存点只撤销其后的修改，嵌套事务失败不影响外层修改，提交结果只包含保留的修改
+ */
+public class CDOSavepointTest {
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+        CDOTransaction setup = transactionManager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("name", "A");
+        setup.createResource("/model/b").setAttribute("name", "B");
+        assertTrue(setup.commit());
+    }
+
+    @Test
+    @DisplayName("回滚到保存点应该撤销其后的属性修改、新建与删除")
+    public void shouldRollbackToSavepoint() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        CDOResource a = tx.getResource("/model/a");
+        a.setAttribute("name", "A1");
+
+        Savepoint savepoint = tx.setSavepoint("form");
+        a.setAttribute("name", "A2");
+        a.setAttribute("doc", "text");
+        tx.getResource("/model/b").unsetAttribute("name");
+        tx.createResource("/model/c");
+        tx.deleteResource("/model/b");
+
+        tx.rollbackToSavepoint(savepoint);
+
+        assertEquals("A1", tx.getResource("/model/a").getAttribute("name"));
+        assertFalse(tx.getResource("/model/a").hasAttribute("doc"));
+        assertEquals("B", tx.getResource("/model/b").getAttribute("name"));
+        assertNull(tx.getResource("/model/c"));
+        assertTrue(tx.commit());
+
+        assertEquals("A1", transactionManager.getResource("/model/a").getAttribute("name"));
+        assertEquals("B", transactionManager.getResource("/model/b").getAttribute("name"));
+        assertFalse(transactionManager.resourceExists("/model/c"));
+    }
+
+    @Test
+    @DisplayName("回滚到较早的保存点应该使其后的保存点失效，保存点本身可以再次回滚")
+    public void shouldInvalidateLaterSavepoints() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        CDOResource a = tx.getResource("/model/a");
+        Savepoint first = tx.setSavepoint();
+        a.setAttribute("name", "A1");
+        Savepoint second = tx.setSavepoint();
+        a.setAttribute("name", "A2");
+
+        tx.rollbackToSavepoint(first);
+        assertEquals("A", a.getAttribute("name"));
+        assertThrows(IllegalArgumentException.class, () -> tx.rollbackToSavepoint(second));
+
+        a.setAttribute("name", "A3");
+        tx.rollbackToSavepoint(first);
+        assertEquals("A", a.getAttribute("name"));
+        assertFalse(a.isDirty());
+
+        tx.releaseSavepoint(first);
+        assertThrows(IllegalArgumentException.class, () -> tx.rollbackToSavepoint(first));
+        CDOTransaction other = transactionManager.beginTransaction();
+        assertThrows(IllegalArgumentException.class, () -> other.rollbackToSavepoint(tx.setSavepoint()));
+    }
+
+    @Test
+    @DisplayName("嵌套事务失败时只撤销嵌套内的修改")
+    public void shouldRollbackFailedNestedTransaction() {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getResource("/model/a").setAttribute("name", "outer");
+
+        String kept = tx.nested(() -> {
+            tx.createResource("/model/kept");
+            return "kept";
+        });
+        assertThrows(IllegalStateException.class, () -> tx.nested(() -> {
+            tx.getResource("/model/a").setAttribute("name", "inner");
+            tx.createResource("/model/discarded");
+            return tx.nested(() -> {
+                tx.deleteResource("/model/b");
+                throw new IllegalStateException("validation failed");
+            });
+        }));
+
+        assertEquals("kept", kept);
+        assertTrue(tx.commit());
+        assertEquals("outer", transactionManager.getResource("/model/a").getAttribute("name"));
+        assertTrue(transactionManager.resourceExists("/model/kept"));
+        assertTrue(transactionManager.resourceExists("/model/b"));
+        assertFalse(transactionManager.resourceExists("/model/discarded"));
+    }
+}
@@ -0,0 +1,162 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RQ-INFRA-TX-002: 快照隔离
+ * 验收条件：事务读取开始时的快照，提交获得递增版本号，写写冲突在提交时失败，并发读改写不丢失更新
+ */
+public class CDOSnapshotIsolationTest {
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+    }
+
+    @Test
+    @DisplayName("事务应该只看到开始时的快照")
+    public void shouldReadFromStartSnapshot() {
+        write("/model/a", "value", "v1");
+
+        CDOTransaction reader = transactionManager.beginTransaction();
+        write("/model/a", "value", "v2");
+        write("/model/b", "value", "new");
+
+        assertEquals("v1", reader.getResource("/model/a").getAttribute("value"));
+        assertNull(reader.getResource("/model/b"));
+        assertTrue(reader.commit());
+        assertEquals("v2", transactionManager.getResource("/model/a").getAttribute("value"));
+    }
+
+    @Test
+    @DisplayName("未提交的修改不应该泄漏到已提交状态")
+    public void shouldIsolateUncommittedChanges() {
+        write("/model/a", "value", "v1");
+
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getResource("/model/a").setAttribute("value", "dirty");
+
+        assertEquals("v1", transactionManager.getResource("/model/a").getAttribute("value"));
+        assertTrue(tx.rollback());
+        assertEquals("v1", transactionManager.getResource("/model/a").getAttribute("value"));
+    }
+
+    @Test
+    @DisplayName("提交应该获得递增的全局版本号，只读事务不产生版本")
+    public void shouldAssignIncreasingVersions() {
+        long first = write("/model/a", "value", "v1");
+        long second = write("/model/b", "value", "v1");
+
+        assertTrue(second > first);
+        assertEquals(second, transactionManager.getCommittedVersion());
+
+        CDOTransaction readOnly = transactionManager.beginTransaction();
+        readOnly.getResource("/model/a");
+        assertTrue(readOnly.commit());
+        assertEquals(-1, readOnly.getCommitVersion());
+        assertEquals(second, transactionManager.getCommittedVersion());
+    }
+
+    @Test
+    @DisplayName("写写冲突时后提交的事务应该失败并保留先提交者的结果")
+    public void shouldDetectWriteWriteConflict() {
+        write("/model/a", "value", "v0");
+
+        CDOTransaction tx1 = transactionManager.beginTransaction();
+        CDOTransaction tx2 = transactionManager.beginTransaction();
+        tx1.getResource("/model/a").setAttribute("value", "tx1");
+        tx2.getResource("/model/a").setAttribute("value", "tx2");
+        tx2.getOrCreateResource("/model/other").setAttribute("value", "tx2");
+
+        assertTrue(tx1.commit());
+        assertFalse(tx2.commit());
+
+        assertFalse(tx2.isActive());
+        assertEquals(Set.of("/model/a"), tx2.getConflict().getConflictingPaths());
+        assertEquals("tx1", transactionManager.getResource("/model/a").getAttribute("value"));
+        // 冲突的提交整体失败
+        assertFalse(transactionManager.resourceExists("/model/other"));
+    }
+
+    @Test
+    @DisplayName("删除应该对之后的快照生效，对之前的快照不可见")
+    public void shouldDeleteAtVersion() {
+        write("/model/a", "value", "v1");
+        CDOTransaction before = transactionManager.beginTransaction();
+
+        CDOTransaction deleter = transactionManager.beginTransaction();
+        deleter.deleteResource("/model/a");
+        assertTrue(deleter.commit());
+
+        assertFalse(transactionManager.resourceExists("/model/a"));
+        assertEquals("v1", before.getResource("/model/a").getAttribute("value"));
+        assertNull(transactionManager.beginTransaction().getResource("/model/a"));
+    }
+
+    @Test
+    @DisplayName("并发读改写在冲突重试下不应该丢失更新")
+    public void shouldNotLoseConcurrentUpdates() throws Exception {
+        write("/model/counter", "count", 0);
+        int workers = 8;
+        int incrementsPerWorker = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < incrementsPerWorker; i++) {
+                    while (true) {
+                        CDOTransaction tx = transactionManager.beginTransaction();
+                        CDOResource counter = tx.getResource("/model/counter");
+                        counter.setAttribute("count", (Integer) counter.getAttribute("count") + 1);
+                        if (tx.commit()) {
+                            break;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(workers * incrementsPerWorker,
+            transactionManager.getResource("/model/counter").getAttribute("count"));
+        // 每次成功提交恰好产生一个版本
+        assertEquals(1 + workers * incrementsPerWorker, transactionManager.getCommittedVersion());
+    }
+
+    @Test
+    @DisplayName("长事务持有的快照在并发提交后仍然可读")
+    public void shouldKeepVersionsForActiveSnapshots() {
+        write("/model/a", "value", 0);
+        CDOTransaction longRunning = transactionManager.beginTransaction();
+        for (int i = 1; i <= 100; i++) {
+            write("/model/a", "value", i);
+        }
+
+        assertEquals(0, longRunning.getResource("/model/a").getAttribute("value"));
+        assertEquals(100, transactionManager.getResource("/model/a").getAttribute("value"));
+    }
+
+    private long write(String path, String name, Object value) {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getOrCreateResource(path).setAttribute(name, value);
+        assertTrue(tx.commit());
+        return tx.getCommitVersion();
+    }
+}
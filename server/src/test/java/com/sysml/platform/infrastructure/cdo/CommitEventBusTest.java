@@ -0,0 +1,137 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RQ-INFRA-TX-002: 提交通知
+ * 验收条件：监听器收到提交的版本号、变更路径与属性差异，同步与异步监听器均按版本顺序送达，积压时成批送达
+ */
+public class CommitEventBusTest {
+
+    @TempDir
+    Path directory;
+
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+    }
+
+    @Test
+    @DisplayName("同步监听器应该在提交返回前收到变更路径与属性差异")
+    public void shouldNotifySynchronously() {
+        CDOTransaction setup = transactionManager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("name", "A");
+        setup.createResource("/model/b");
+        assertTrue(setup.commit());
+
+        List<CommitEvent> received = new ArrayList<>();
+        transactionManager.addCommitListener(received::addAll);
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.getResource("/model/a").setAttribute("name", "A2");
+        tx.getResource("/model/b");
+        tx.deleteResource("/model/b");
+        tx.createResource("/model/c").setAttribute("doc", "text");
+        assertTrue(tx.commit());
+
+        assertEquals(1, received.size());
+        CommitEvent event = received.get(0);
+        assertEquals(2, event.getVersion());
+        Map<String, CommitEvent.Change> changes = new HashMap<>();
+        event.getChanges().forEach(change -> changes.put(change.getPath(), change));
+        assertEquals(Set.of("/model/a", "/model/b", "/model/c"), changes.keySet());
+        assertEquals(CommitEvent.ChangeKind.MODIFIED, changes.get("/model/a").getKind());
+        AttributeDelta delta = changes.get("/model/a").getDeltas().get(0);
+        assertEquals("A", delta.getOldValue());
+        assertEquals("A2", delta.getNewValue());
+        assertEquals(CommitEvent.ChangeKind.DELETED, changes.get("/model/b").getKind());
+        assertEquals(CommitEvent.ChangeKind.CREATED, changes.get("/model/c").getKind());
+        assertEquals("doc", changes.get("/model/c").getDeltas().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("异步监听器应该按版本顺序收到全部提交，积压时成批送达")
+    public void shouldDeliverAsynchronouslyInOrder() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Long> versions = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        transactionManager.addCommitListener(events -> {
+            awaitQuietly(blocked);
+            batchSizes.add(events.size());
+            events.forEach(event -> versions.add(event.getVersion()));
+            if (versions.size() == 20) {
+                done.countDown();
+            }
+        }, executor);
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> commits = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int index = i;
+            commits.add(writers.submit(() -> {
+                CDOTransaction tx = transactionManager.beginTransaction();
+                tx.createResource("/model/e" + index);
+                return tx.commit();
+            }));
+        }
+        for (Future<Boolean> commit : commits) {
+            assertTrue(commit.get(5, TimeUnit.SECONDS));
+        }
+        blocked.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        List<Long> expected = new ArrayList<>();
+        for (long v = 1; v <= 20; v++) {
+            expected.add(v);
+        }
+        assertEquals(expected, versions);
+        assertTrue(batchSizes.size() < 20);
+        writers.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("启用提交日志时应该在落盘发布后通知，监听器异常不影响提交")
+    public void shouldNotifyAfterDurablePublish() {
+        CDOTransactionManager persistent = new CDOTransactionManager(new CommitLog(directory, 0, 256, 100000));
+        List<Long> visibleAtNotify = new ArrayList<>();
+        persistent.addCommitListener(events -> {
+            throw new IllegalStateException("listener failure");
+        });
+        persistent.addCommitListener(events -> events.forEach(event ->
+            visibleAtNotify.add(persistent.getCommittedVersion() >= event.getVersion() ? event.getVersion() : -1)));
+
+        for (int i = 0; i < 3; i++) {
+            CDOTransaction tx = persistent.beginTransaction();
+            tx.createResource("/model/e" + i);
+            assertTrue(tx.commit());
+        }
+        persistent.close();
+
+        assertEquals(List.of(1L, 2L, 3L), visibleAtNotify);
+        CommitListener removed = events -> fail("removed listener notified");
+        transactionManager.addCommitListener(removed);
+        assertTrue(transactionManager.removeCommitListener(removed));
+        CDOTransaction tx = transactionManager.beginTransaction();
+        tx.createResource("/model/x");
+        assertTrue(tx.commit());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RQ-INFRA-TX-002: 提交持久化与恢复
+ * 验收条件：重启后恢复已提交资源，并发提交合并刷盘，后台检查点删除旧日志、失败时重试且不影响提交，不完整的日志尾部被忽略，日志目录由一个实例独占
+ */
+public class CommitLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("重启后应该从日志恢复已提交的资源与版本")
+    public void shouldRecoverCommittedResources() {
+        CDOTransactionManager manager = open(1000);
+        write(manager, "/project/model/a", "name", "A");
+        write(manager, "/project/model/b", "name", "B");
+        CDOTransaction tx = manager.beginTransaction();
+        tx.getResource("/project/model/a").setAttribute("name", "A2");
+        tx.deleteResource("/project/model/b");
+        assertTrue(tx.commit());
+        long version = manager.getCommittedVersion();
+        manager.close();
+
+        CDOTransactionManager recovered = open(1000);
+        try {
+            assertEquals(version, recovered.getCommittedVersion());
+            assertEquals("A2", recovered.getResource("/project/model/a").getAttribute("name"));
+            assertFalse(recovered.resourceExists("/project/model/b"));
+            // 恢复后的版本号继续递增
+            assertTrue(write(recovered, "/project/model/c", "name", "C") > version);
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("并发提交应该合并为更少次数的fsync")
+    public void shouldGroupConcurrentCommits() throws Exception {
+        CommitLog log = new CommitLog(directory, 2000, 256, 100000);
+        CDOTransactionManager manager = new CDOTransactionManager(log);
+        int writers = 16;
+        int commitsPerWriter = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String path = "/project/writer-" + w;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < commitsPerWriter; i++) {
+                    write(manager, path, "count", i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        manager.close();
+
+        int commits = writers * commitsPerWriter;
+        assertTrue(log.getSyncCount() < commits, "syncs=" + log.getSyncCount() + " commits=" + commits);
+
+        CDOTransactionManager recovered = open(100000);
+        try {
+            assertEquals(commits, recovered.getCommittedVersion());
+            for (int w = 0; w < writers; w++) {
+                assertEquals(commitsPerWriter - 1, recovered.getResource("/project/writer-" + w).getAttribute("count"));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("检查点之后旧日志应该被删除，恢复结果不变")
+    public void shouldCheckpointAndTruncateLog() throws Exception {
+        CommitLog log = new CommitLog(directory, 0, 256, 10);
+        CDOTransactionManager manager = new CDOTransactionManager(log);
+        for (int i = 0; i < 25; i++) {
+            write(manager, "/project/item-" + (i % 5), "value", i);
+        }
+        CDOTransaction tx = manager.beginTransaction();
+        tx.deleteResource("/project/item-0");
+        assertTrue(tx.commit());
+        manager.close();
+
+        // 检查点在后台写出，完成的版本取决于调度，但必定在某个间隔上
+        assertTrue(log.getLastCheckpointVersion() >= 10);
+        assertEquals(0, log.getLastCheckpointVersion() % 10);
+        assertTrue(Files.exists(directory.resolve(CommitLog.CHECKPOINT_FILE)));
+        assertFalse(Files.exists(directory.resolve(CommitLog.ROTATED_LOG_FILE)));
+
+        CDOTransactionManager recovered = open(10);
+        try {
+            assertEquals(26, recovered.getCommittedVersion());
+            assertFalse(recovered.resourceExists("/project/item-0"));
+            for (int i = 1; i < 5; i++) {
+                assertEquals(20 + i, recovered.getResource("/project/item-" + i).getAttribute("value"));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("检查点失败不应该影响提交，之后的检查点重试并覆盖保留的旧日志")
+    public void shouldRetryFailedCheckpoint() throws Exception {
+        // 临时文件位置被目录占用，写检查点失败
+        Path blocker = Files.createDirectories(directory.resolve(CommitLog.CHECKPOINT_FILE + ".tmp"));
+        CommitLog log = new CommitLog(directory, 0, 256, 10);
+        CDOTransactionManager manager = new CDOTransactionManager(log);
+        for (int i = 0; i < 15; i++) {
+            assertEquals(i + 1, write(manager, "/project/item-" + i, "value", i));
+        }
+        awaitCheckpoint(log);
+        assertEquals(0, log.getLastCheckpointVersion());
+        assertTrue(Files.exists(directory.resolve(CommitLog.ROTATED_LOG_FILE)));
+        assertEquals(0, manager.getActiveTransactionCount());
+
+        Files.delete(blocker);
+        for (int i = 15; i < 30; i++) {
+            write(manager, "/project/item-" + i, "value", i);
+        }
+        manager.close();
+        assertTrue(log.getLastCheckpointVersion() >= 20);
+        assertFalse(Files.exists(directory.resolve(CommitLog.ROTATED_LOG_FILE)));
+
+        CDOTransactionManager recovered = open(10);
+        try {
+            assertEquals(30, recovered.getCommittedVersion());
+            for (int i = 0; i < 30; i++) {
+                assertEquals(i, recovered.getResource("/project/item-" + i).getAttribute("value"));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("检查点未完成时应该从旧日志与当前日志一起恢复")
+    public void shouldRecoverFromRotatedLog() throws Exception {
+        Files.createDirectories(directory.resolve(CommitLog.CHECKPOINT_FILE + ".tmp"));
+        CDOTransactionManager manager = open(10);
+        for (int i = 0; i < 15; i++) {
+            write(manager, "/project/item-" + i, "value", i);
+        }
+        manager.close();
+        assertTrue(Files.exists(directory.resolve(CommitLog.ROTATED_LOG_FILE)));
+
+        CDOTransactionManager recovered = open(1000);
+        try {
+            assertEquals(15, recovered.getCommittedVersion());
+            for (int i = 0; i < 15; i++) {
+                assertEquals(i, recovered.getResource("/project/item-" + i).getAttribute("value"));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("不完整的日志尾部应该在恢复时被忽略")
+    public void shouldIgnoreTornTail() throws Exception {
+        CDOTransactionManager manager = open(1000);
+        write(manager, "/project/a", "name", "A");
+        manager.close();
+        Path logFile = directory.resolve(CommitLog.LOG_FILE);
+        long validSize = Files.size(logFile);
+        Files.write(logFile, new byte[] {0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+
+        CDOTransactionManager recovered = open(1000);
+        try {
+            assertEquals(1, recovered.getCommittedVersion());
+            assertEquals("A", recovered.getResource("/project/a").getAttribute("name"));
+            assertEquals(validSize, Files.size(logFile));
+            write(recovered, "/project/b", "name", "B");
+        } finally {
+            recovered.close();
+        }
+
+        CDOTransactionManager reopened = open(1000);
+        try {
+            assertEquals("B", reopened.getResource("/project/b").getAttribute("name"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("不可序列化的属性应该使提交失败且不占用版本")
+    public void shouldRejectUnserializableAttributes() {
+        CDOTransactionManager manager = open(1000);
+        try {
+            CDOTransaction tx = manager.beginTransaction();
+            tx.getOrCreateResource("/project/a").setAttribute("handle", new Object());
+            assertFalse(tx.commit());
+            assertFalse(manager.resourceExists("/project/a"));
+            assertEquals(1, write(manager, "/project/a", "name", "A"));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("日志目录应该只能被一个实例使用")
+    public void shouldLockDirectory() {
+        CDOTransactionManager manager = open(1000);
+        try {
+            write(manager, "/project/a", "name", "A");
+            assertThrows(IllegalStateException.class, () -> open(1000));
+            assertEquals("A", manager.getResource("/project/a").getAttribute("name"));
+        } finally {
+            manager.close();
+        }
+
+        CDOTransactionManager reopened = open(1000);
+        try {
+            assertEquals("A", reopened.getResource("/project/a").getAttribute("name"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static void awaitCheckpoint(CommitLog log) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (log.isCheckpointing() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(log.isCheckpointing());
+    }
+
+    private CDOTransactionManager open(long checkpointInterval) {
+        return new CDOTransactionManager(new CommitLog(directory, 0, 256, checkpointInterval));
+    }
+
+    private static long write(CDOTransactionManager manager, String path, String name, Object value) {
+        CDOTransaction tx = manager.beginTransaction();
+        tx.getOrCreateResource(path).setAttribute(name, value);
+        assertTrue(tx.commit());
+        return tx.getCommitVersion();
+    }
+}
@@ -0,0 +1,107 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RQ-INFRA-TX-002: 事务上下文传播
+ * 验收条件：事务只在作用域内绑定到线程，可跨执行器与CompletableFuture阶段传播，结束后确定性清空
+ */
+public class TransactionContextTest {
+
+    private CDOTransactionManager transactionManager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = new CDOTransactionManager();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("开始事务不应该绑定到当前线程，作用域结束后恢复原绑定")
+    public void shouldBindOnlyWithinScope() {
+        CDOTransaction outer = transactionManager.beginTransaction();
+        CDOTransaction inner = transactionManager.beginTransaction();
+        assertTrue(transactionManager.currentTransaction().isEmpty());
+
+        outer.getContext().run(() -> {
+            assertSame(outer, transactionManager.currentTransaction().orElseThrow());
+            inner.getContext().run(() ->
+                assertSame(inner, transactionManager.currentTransaction().orElseThrow()));
+            assertSame(outer, transactionManager.currentTransaction().orElseThrow());
+        });
+        assertTrue(TransactionContext.current().isEmpty());
+    }
+
+    @Test
+    @DisplayName("上下文应该跨执行器与CompletableFuture阶段传播，且不残留在池化线程上")
+    public void shouldPropagateAcrossExecutors() throws Exception {
+        CDOTransaction tx = transactionManager.beginTransaction();
+        TransactionContext context = tx.getContext();
+        Executor propagating = context.wrap(executor);
+
+        CompletableFuture<String> result = context
+            .supplyAsync(() -> TransactionContext.current().orElseThrow().createResource("/model/a"), executor)
+            .thenApplyAsync(resource -> {
+                TransactionContext.current().orElseThrow().createResource("/model/b");
+                return resource.getPath();
+            }, propagating);
+        assertEquals("/model/a", result.get(5, TimeUnit.SECONDS));
+        assertTrue(tx.commit());
+
+        assertTrue(transactionManager.resourceExists("/model/a"));
+        assertTrue(transactionManager.resourceExists("/model/b"));
+        // 同一池中的线程执行未包装的任务时看不到事务
+        List<Future<Boolean>> leaked = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            leaked.add(executor.submit(() -> TransactionContext.current().isPresent()));
+        }
+        for (Future<Boolean> future : leaked) {
+            assertFalse(future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("事务提交或回滚后上下文应该清空")
+    public void shouldClearContextOnEnd() {
+        CDOTransaction committed = transactionManager.beginTransaction();
+        CDOTransaction rolledBack = transactionManager.beginTransaction();
+        assertTrue(committed.getContext().isActive());
+
+        assertTrue(committed.commit());
+        assertTrue(rolledBack.rollback());
+
+        assertFalse(committed.getContext().isActive());
+        committed.getContext().run(() -> assertTrue(TransactionContext.current().isEmpty()));
+        assertTrue(rolledBack.getContext().call(TransactionContext::current).isEmpty());
+    }
+
+    @Test
+    @DisplayName("inTransaction应该在作用域内绑定事务，正常返回时提交，异常时回滚")
+    public void shouldCommitOrRollbackInTransaction() {
+        String path = transactionManager.inTransaction(tx -> {
+            assertSame(tx, TransactionContext.current().orElseThrow());
+            return tx.createResource("/model/a").getPath();
+        });
+        assertTrue(transactionManager.resourceExists(path));
+
+        assertThrows(IllegalArgumentException.class, () -> transactionManager.inTransaction(tx -> {
+            tx.createResource("/model/b");
+            throw new IllegalArgumentException("boom");
+        }));
+        assertFalse(transactionManager.resourceExists("/model/b"));
+        assertEquals(0, transactionManager.getActiveTransactionCount());
+        assertTrue(TransactionContext.current().isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package com.sysml.platform.infrastructure.cdo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RQ-INFRA-TX-002: 事务超时主动回收
+ * 验收条件：被遗弃的事务到期即回滚并计数，时间轮只释放共享资源、本地更改由持有线程丢弃，
+ * 已结束的事务不再超时，时间轮按期触发且可取消
+ */
+public class TransactionTimeoutTest {
+
+    private SimpleMeterRegistry registry;
+    private CDOTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        transactionManager = new CDOTransactionManager(null, 300, registry);
+    }
+
+    @Test
+    @DisplayName("被遗弃的事务应该在到期后被主动回滚")
+    public void shouldExpireAbandonedTransaction() throws InterruptedException {
+        CDOTransaction abandoned = transactionManager.beginTransaction();
+        abandoned.createResource("/model/abandoned");
+
+        awaitTimeouts(1);
+
+        assertFalse(abandoned.isActive());
+        assertTrue(abandoned.isTimedOut());
+        assertThrows(TransactionTimeoutException.class, () -> abandoned.getResource("/model/abandoned"));
+        assertFalse(abandoned.commit());
+        assertFalse(transactionManager.resourceExists("/model/abandoned"));
+    }
+
+    @Test
+    @DisplayName("已提交或回滚的事务不应该再超时")
+    public void shouldCancelTimeoutOnEnd() throws InterruptedException {
+        CDOTransaction committed = transactionManager.beginTransaction();
+        committed.createResource("/model/a");
+        assertTrue(committed.commit());
+        CDOTransaction rolledBack = transactionManager.beginTransaction();
+        assertTrue(rolledBack.rollback());
+
+        Thread.sleep(800);
+
+        assertEquals(0.0, registry.counter("cdo.transactions.timeouts").count());
+        assertFalse(committed.isTimedOut());
+        assertTrue(transactionManager.resourceExists("/model/a"));
+    }
+
+    @Test
+    @DisplayName("超时回滚应该释放事务持有的快照")
+    public void shouldReleaseSnapshotOnExpiry() throws InterruptedException {
+        CDOTransaction setup = transactionManager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("value", 0);
+        assertTrue(setup.commit());
+        CDOTransaction abandoned = transactionManager.beginTransaction();
+        assertEquals(0, abandoned.getResource("/model/a").getAttribute("value"));
+        assertEquals(1, transactionManager.getActiveTransactionCount());
+
+        awaitTimeouts(1);
+
+        assertEquals(0, transactionManager.getActiveTransactionCount());
+    }
+
+    @Test
+    @DisplayName("超时只释放共享资源，本地更改在持有线程的下一次调用时丢弃")
+    public void shouldDiscardLocalChangesOnOwnerThread() throws InterruptedException {
+        CDOTransactionManager manager = new CDOTransactionManager(null, null, false,
+            new PathLockManager(16, 2000), 300, registry);
+        CDOTransaction setup = manager.beginTransaction();
+        setup.createResource("/model/a").setAttribute("value", 0);
+        assertTrue(setup.commit());
+        CDOTransaction abandoned = manager.beginTransaction();
+        abandoned.lockWrite("/model/a");
+        abandoned.setSavepoint();
+        CDOResource working = abandoned.getResource("/model/a");
+
+        awaitTimeouts(1);
+
+        // 时间轮已释放快照与路径锁
+        assertEquals(0, manager.getActiveTransactionCount());
+        CDOTransaction other = manager.beginTransaction();
+        other.lockWrite("/model/a", 0);
+        assertTrue(other.rollback());
+        // 持有线程的工作副本与撤销日志未被时间轮改动，继续修改不会失败
+        working.setAttribute("value", 1);
+        assertThrows(TransactionTimeoutException.class, () -> abandoned.createResource("/model/b"));
+        assertThrows(TransactionTimeoutException.class, () -> abandoned.deleteResource("/model/a"));
+        assertFalse(abandoned.rollback());
+        assertFalse(abandoned.commit());
+        assertEquals(0, manager.getResource("/model/a").getAttribute("value"));
+        assertFalse(manager.resourceExists("/model/b"));
+    }
+
+    @Test
+    @DisplayName("时间轮应该按期触发并支持取消")
+    public void shouldFireAndCancelTimeouts() throws InterruptedException {
+        TransactionTimer timer = new TransactionTimer(10, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger fired = new AtomicInteger();
+        List<TransactionTimer.Timeout> cancelled = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            cancelled.add(timer.schedule(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS));
+        }
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.nanoTime();
+        // 延迟超过一整圈（8 x 10ms）的超时需要多轮才到期
+        timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+        timer.schedule(latch::countDown, 150, TimeUnit.MILLISECONDS);
+        timer.schedule(latch::countDown, 250, TimeUnit.MILLISECONDS);
+        cancelled.forEach(TransactionTimer.Timeout::cancel);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+        assertEquals(0, fired.get());
+        assertEquals(0, timer.size());
+        assertFalse(cancelled.get(0).cancel());
+    }
+
+    private void awaitTimeouts(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.counter("cdo.transactions.timeouts").count() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, registry.counter("cdo.transactions.timeouts").count());
+    }
+}
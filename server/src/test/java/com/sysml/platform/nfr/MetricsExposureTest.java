@@ -5,15 +5,21 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import java.util.Map;
 
 /**
  * RQ-NFR-METRICS-002: 指标暴露
- * 验收条件：/metrics包含关键指标
+ * 验收条件：/metrics包含关键指标，字段级延迟以直方图导出
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 public class MetricsExposureTest {
 
     @Autowired
@@ -70,4 +76,34 @@ public class MetricsExposureTest {
         assertTrue(body.contains("value"), "应该包含指标值");
         assertTrue(body.contains("baseUnit"), "应该包含单位信息");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("应该暴露GraphQL解析器级延迟指标")
+    public void shouldExposeResolverLatencyMetrics() {
+        // Given: 执行一次带操作名的GraphQL查询
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String query = "query MetricsProbe { requirements(page: 0, size: 5) { content { id } totalElements } }";
+        restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(Map.of("query", query), headers), Map.class);
+
+        // Then: 操作级与字段级（父类型+字段）指标均已注册
+        assertMetricExists("graphql.operation.latency?tag=operation:MetricsProbe&tag=type:query");
+        assertMetricExists("graphql.field.latency?tag=parentType:Query&tag=field:requirements");
+        assertMetricExists("graphql.field.invocations?tag=parentType:Query&tag=field:requirements");
+        assertMetricExists("graphql.field.result.size?tag=parentType:RequirementsPage&tag=field:content");
+
+        // 字段延迟导出直方图桶，可计算各字段的p95/p99
+        String prometheus = restTemplate.getForEntity("/actuator/prometheus", String.class).getBody();
+        assertNotNull(prometheus);
+        assertTrue(prometheus.lines().anyMatch(line -> line.startsWith("graphql_field_latency_seconds_bucket{")
+            && line.contains("field=\"requirements\"") && line.contains("parentType=\"Query\"")),
+            "应该包含字段延迟直方图桶");
+    }
+
+    private void assertMetricExists(String metric) {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/metrics/" + metric, String.class);
+        assertEquals(200, response.getStatusCodeValue(), "应该存在指标: " + metric);
+        assertTrue(response.getBody().contains("COUNT"), "应该包含计数: " + metric);
+    }
+}
@@ -0,0 +1,139 @@
+package com.sysml.platform.nfr;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sysml.platform.common.ErrorCode;
+import com.sysml.platform.common.ErrorCodeRegistry;
+import com.sysml.platform.common.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RQ-NFR-PERF-006: 查询成本预算
+ * 验收条件：按客户端（远端地址）独立扣减预算，耗尽后立即以RATE_LIMITED拒绝并给出retryAfter，
+ * 轮换请求头不能绕过预算，其他客户端不受影响，准入结果可观测
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "performance.budget.enabled=true",
+        "performance.budget.capacity=300",
+        "performance.budget.refill-per-second=1",
+        // 测试经本机代理头模拟不同客户端地址
+        "server.forward-headers-strategy=native"
+    })
+public class QueryCostBudgetTest {
+
+    // 成本 = 1 + 50 × (content 1 + id 1) = 101
+    private static final String PAGE_QUERY = "{ requirements(page: 0, size: 50) { content { id } } }";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ErrorCodeRegistry errorCodeRegistry;
+
+    @Test
+    @DisplayName("预算耗尽的客户端应该收到RATE_LIMITED错误，其他客户端不受影响")
+    @SuppressWarnings("unchecked")
+    public void shouldRejectWhenBudgetExhausted() {
+        assertNull(execute("10.0.0.1", PAGE_QUERY).get("errors"));
+        assertNull(execute("10.0.0.1", PAGE_QUERY).get("errors"));
+
+        Map<String, Object> rejected = execute("10.0.0.1", PAGE_QUERY);
+        assertNull(rejected.get("data"));
+        Map<String, Object> error = ((List<Map<String, Object>>) rejected.get("errors")).get(0);
+        Map<String, Object> extensions = (Map<String, Object>) error.get("extensions");
+        assertEquals("RATE_LIMITED", extensions.get("code"));
+        assertEquals("error.rate.limited", extensions.get("messageKey"));
+        assertEquals(101, extensions.get("cost"));
+        // 余额约98，补足101最多需3秒
+        int retryAfter = (Integer) extensions.get("retryAfter");
+        assertTrue(retryAfter >= 1 && retryAfter <= 3);
+
+        // 其他地址的客户端有独立的桶
+        assertNull(execute("10.0.0.2", PAGE_QUERY).get("errors"));
+
+        assertMetricExists("graphql.budget.requests?tag=outcome:rejected");
+        assertMetricExists("graphql.budget.cost");
+    }
+
+    @Test
+    @DisplayName("轮换API Key请求头不应该得到新的预算")
+    @SuppressWarnings("unchecked")
+    public void shouldIgnoreClientSuppliedKeys() {
+        for (int i = 0; i < 2; i++) {
+            assertNull(execute("10.0.0.3", "key-" + i, PAGE_QUERY).get("errors"));
+        }
+
+        Map<String, Object> rejected = execute("10.0.0.3", "key-2", PAGE_QUERY);
+        Map<String, Object> error = ((List<Map<String, Object>>) rejected.get("errors")).get(0);
+        assertEquals("RATE_LIMITED", ((Map<String, Object>) error.get("extensions")).get("code"));
+    }
+
+    @Test
+    @DisplayName("单次成本超过桶容量的查询应该直接拒绝")
+    @SuppressWarnings("unchecked")
+    public void shouldRejectQueryAboveCapacity() {
+        Map<String, Object> result = execute("10.0.0.4", "{ requirements(page: 0, size: 200) { content { id name } } }");
+
+        Map<String, Object> error = ((List<Map<String, Object>>) result.get("errors")).get(0);
+        Map<String, Object> extensions = (Map<String, Object>) error.get("extensions");
+        assertEquals("RATE_LIMITED", extensions.get("code"));
+        assertFalse(extensions.containsKey("retryAfter"));
+    }
+
+    @Test
+    @DisplayName("RATE_LIMITED应该注册在错误码表中")
+    public void shouldRegisterRateLimitedCode() {
+        assertTrue(errorCodeRegistry.isRegistered(ErrorCode.RATE_LIMITED.getCode()));
+        assertEquals("CLIENT", ErrorCode.RATE_LIMITED.getCategory());
+    }
+
+    @Test
+    @DisplayName("令牌桶应该按速率补充，余额不足时不扣减并给出等待时长")
+    public void shouldRefillAndAcquire() {
+        long second = 1_000_000_000L;
+        TokenBucket bucket = new TokenBucket(100, 10, 0);
+
+        assertEquals(0, bucket.tryAcquire(80, 0));
+        // 余额20，缺30个令牌需3秒，不扣减
+        assertEquals(3 * second, bucket.tryAcquire(50, 0));
+        assertEquals(20, bucket.available(0), 0.001);
+        assertEquals(0, bucket.tryAcquire(50, 3 * second));
+        // 补充不超过容量
+        assertEquals(100, bucket.available(60 * second), 0.001);
+        assertEquals(TokenBucket.NEVER, bucket.tryAcquire(101, 60 * second));
+    }
+
+    private Map<String, Object> execute(String clientAddress, String query) {
+        return execute(clientAddress, null, query);
+    }
+
+    private Map<String, Object> execute(String clientAddress, String apiKey, String query) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientAddress);
+        if (apiKey != null) {
+            headers.set("X-API-Key", apiKey);
+        }
+        ResponseEntity<Map> response = restTemplate.postForEntity("/graphql",
+            new HttpEntity<>(Map.of("query", query), headers), Map.class);
+        assertEquals(200, response.getStatusCodeValue());
+        return response.getBody();
+    }
+
+    private void assertMetricExists(String metric) {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/metrics/" + metric, String.class);
+        assertEquals(200, response.getStatusCodeValue(), "应该存在指标: " + metric);
+    }
+}
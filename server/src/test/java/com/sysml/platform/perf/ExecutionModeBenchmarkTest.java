@@ -0,0 +1,112 @@
+package com.sysml.platform.perf;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sysml.platform.Application;
+import com.sysml.platform.domain.requirements.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RQ-NFR-PERF-005: 执行模式吞吐对比
+ * 分别以平台线程（Tomcat默认线程池）与虚拟线程（spring.threads.virtual.enabled=true）启动完整应用，
+ * 1k/10k个并发客户端经HTTP向/graphql发送需求分页查询，经过Tomcat、GraphQL执行与解析器，
+ * 报告两种模式的吞吐；结果经TestReporter输出
+ *
+ * 虚拟线程模式需要JDK 21运行时，低版本时两次运行均为平台线程。
+ * 运行：./gradlew performanceTest -PjavaToolchain=21
+ */
+public class ExecutionModeBenchmarkTest {
+
+    private static final String QUERY = "{\"query\":\"{ requirements(page: 0, size: 20) { content { id reqId name } } }\"}";
+    private static final int WARMUP_REQUESTS = 2_000;
+
+    @ParameterizedTest(name = "{0}个并发客户端")
+    @ValueSource(ints = {1_000, 10_000})
+    @DisplayName("报告平台线程与虚拟线程模式下真实端点的吞吐")
+    public void compareThroughput(int clients, TestReporter reporter) throws Exception {
+        double platform = measure(false, clients);
+        double virtual = measure(true, clients);
+        reporter.publishEntry(Map.of(
+            "clients", String.valueOf(clients),
+            "runtime", "JDK " + Runtime.version().feature(),
+            "platform.req/s", String.format("%.0f", platform),
+            "virtual.req/s", String.format("%.0f", virtual)));
+    }
+
+    /**
+     * 启动应用，预热后让clients个请求同时在途，返回全部完成时的每秒请求数
+     */
+    private double measure(boolean virtualThreads, int clients) throws Exception {
+        try (ConfigurableApplicationContext context = start(virtualThreads)) {
+            seed(context.getBean(RequirementService.class));
+            URI endpoint = URI.create("http://localhost:"
+                + context.getEnvironment().getProperty("local.server.port") + "/graphql");
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+            run(client, endpoint, WARMUP_REQUESTS);
+            long begin = System.nanoTime();
+            run(client, endpoint, clients);
+            long elapsed = System.nanoTime() - begin;
+            return clients / (elapsed / 1_000_000_000.0);
+        }
+    }
+
+    private static void run(HttpClient client, URI endpoint, int clients) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(120))
+            .POST(HttpRequest.BodyPublishers.ofString(QUERY))
+            .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> result = response.get(180, TimeUnit.SECONDS);
+            assertEquals(200, result.statusCode(), result.body());
+            assertFalse(result.body().contains("\"errors\""), result.body());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(Application.class).run(
+            "--server.port=0",
+            "--spring.threads.virtual.enabled=" + virtualThreads,
+            "--server.tomcat.max-connections=20000",
+            "--server.tomcat.accept-count=10000",
+            "--cdo.wal.enabled=false",
+            // 相同查询不合并执行、不受预算限制，每个请求都完整经过解析器
+            "--performance.budget.enabled=false",
+            "--performance.coalescing.enabled=false",
+            "--logging.level.root=WARN");
+    }
+
+    private static void seed(RequirementService service) {
+        for (int i = 0; i < 1000; i++) {
+            service.createRequirement(CreateRequirementInput.builder()
+                .reqId(String.format("BENCH-%04d", i))
+                .name("Requirement " + i)
+                .kind(RequirementKind.FUNCTIONAL)
+                .build());
+        }
+    }
+}